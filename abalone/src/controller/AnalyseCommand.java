@@ -0,0 +1,86 @@
+package controller;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import model.artificialintelligence.MinimaxStrategy;
+import model.artificialintelligence.minimax.PrincipalVariation;
+import model.gamelogic.ComputerPlayer;
+import model.gamelogic.GameState;
+import model.gamelogic.GameState.Game;
+import model.gamelogic.Move;
+import model.gamelogic.Player;
+import model.gamelogic.StartingLayout;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "analyse", mixinStandardHelpOptions = true, version = "v1.0",
+		description = "Shows the best lines of the player to move in a position of a game.")
+public class AnalyseCommand implements Callable<Integer> {
+	
+	@Option(names = {"-p", "--players"}, required = true,
+			description = "The player file of the players of the game, of which the player to move "
+					+ "must use the minimax strategy.")
+	private File players;
+	
+	@Option(names = {"-i", "--input"},
+			description = "The game file of which the moves are replayed up to the position.")
+	private File input;
+	
+	@Option(names = {"-l", "--layout"},
+			description = "BELGIAN_DAISY, or empty for the STANDARD layout, if there is no input file.")
+	private StartingLayout layout = null;
+	
+	@Option(names = {"-t", "--turn"},
+			description = "The number of moves of the game that are replayed, all moves by default.")
+	private int turn = Integer.MAX_VALUE;
+	
+	@Option(names = {"-k", "--lines"}, description = "The number of lines that are shown.")
+	private int lines = 3;
+	
+	@Override
+	public Integer call() throws IOException {
+		List<Player> gamePlayers;
+		try (Reader in = new FileReader(players)) {
+			gamePlayers = Json.deserializePlayers(in);
+		}
+		Game game = null;
+		if (input != null) {
+			try (Reader in = new FileReader(input)) {
+				game = Json.deserializeGame(in);
+			}
+			if (game.players.size() != gamePlayers.size()) {
+				System.err.println("The game has " + game.players.size() + " players, but the player file "
+						+ gamePlayers.size() + ".");
+				return 1;
+			}
+		}
+		GameState gameState = new GameState(gamePlayers, game == null ? layout : game.layout);
+		if (game != null) {
+			for (String notation : game.moves.subList(0, Math.min(turn, game.moves.size()))) {
+				gameState.gameStats.initializeTurn();
+				gameState.makeMove(Move.newMove(gameState.getBoard(), notation, gameState.getCurrentPlayer()));
+				gameState.gameStats.commitTurn();
+			}
+		}
+		
+		Player player = gameState.getCurrentPlayer();
+		if (!(player instanceof ComputerPlayer)
+				|| !(((ComputerPlayer) player).getStrategy() instanceof MinimaxStrategy)) {
+			System.err.println(player.getName() + " is to move, but does not use the minimax strategy.");
+			return 1;
+		}
+		gameState.gameStats.initializeTurn();
+		List<PrincipalVariation> result = ((MinimaxStrategy) ((ComputerPlayer) player).getStrategy())
+				.analyse(gameState, lines);
+		System.out.println("Turn " + gameState.getTurn() + ", " + player.getName() + " to move:");
+		for (int i = 0; i < result.size(); i++) {
+			System.out.println((i + 1) + ". " + result.get(i));
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,106 @@
+package controller;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import model.artificialintelligence.OpeningBook;
+import model.artificialintelligence.RandomStrategy;
+import model.gamelogic.GameState;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Player;
+import model.gamelogic.StartingLayout;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "book", mixinStandardHelpOptions = true, version = "v1.0",
+		description = "Builds an opening book from recorded games and self-play.")
+public class BookCommand implements Callable<Integer> {
+	
+	@Parameters(paramLabel = "GAME_FILE",
+			description = "The game files, as stored with the output option, that are added to the book.")
+	private List<File> games = new ArrayList<>();
+	
+	@Option(names = {"-o", "--output"}, required = true,
+			description = "The opening book file that is written.")
+	private File output;
+	
+	@Option(names = {"-p", "--players"},
+			description = "The player file of the players that play the self-play games.")
+	private File players;
+	
+	@Option(names = {"-n", "--self-play"}, description = "The number of self-play games.")
+	private int selfPlayGames = 0;
+	
+	@Option(names = {"-l", "--layout"},
+			description = "BELGIAN_DAISY, or empty for the STANDARD layout of the self-play games.")
+	private StartingLayout layout = null;
+	
+	@Option(names = {"-d", "--depth"}, description = "The number of turns of every game that are recorded.")
+	private int depth = OpeningBook.DEFAULT_DEPTH;
+	
+	@Option(names = {"-r", "--random-turns"},
+			description = "The number of turns at the start of every self-play game that are played "
+					+ "randomly, so that the games differ. These turns are not recorded.")
+	private int randomTurns = 2;
+	
+	@Option(names = {"-t", "--max-turns"},
+			description = "The number of turns after which a self-play game is decided by "
+					+ "the conquered marbles.")
+	private int maxTurns = 200;
+	
+	@Option(names = {"-m", "--min-games"},
+			description = "The number of games in which a move must have been played to be in the book.")
+	private int minGames = 1;
+	
+	@Override
+	public Integer call() throws IOException {
+		if (selfPlayGames > 0 && players == null) {
+			System.err.println("Self-play requires a player file.");
+			return 1;
+		}
+		OpeningBook.Recorder recorder = new OpeningBook.Recorder(depth);
+		for (File game : games) {
+			try (Reader in = new FileReader(game)) {
+				recorder.addGame(Json.deserializeGame(in));
+			}
+		}
+		for (int i = 0; i < selfPlayGames; i++) {
+			List<Player> selfPlayers;
+			try (Reader in = new FileReader(players)) {
+				selfPlayers = Json.deserializePlayers(in);
+			}
+			recorder.addGame(selfPlay(new GameState(selfPlayers, layout)).gameHistory, randomTurns);
+			System.out.println("Finished self-play game " + (i + 1) + " of " + selfPlayGames + ".");
+		}
+		
+		OpeningBook book = recorder.build(minGames);
+		book.write(output);
+		System.out.println("Wrote " + book.size() + " moves from " + recorder.getNrOfGames()
+				+ " games to " + output + ".");
+		return 0;
+	}
+	
+	/**
+	 * Plays the game until it is finished or maxTurns turns have been played.
+	 * @param gameState The gameState at the start of the game.
+	 * @return The gameState at the end of the game.
+	 */
+	private GameState selfPlay(GameState gameState) {
+		RandomStrategy random = new RandomStrategy();
+		while (!gameState.isFinished() && gameState.getTurn() < maxTurns) {
+			gameState.gameStats.initializeTurn();
+			PlayableMove move = gameState.getTurn() < randomTurns
+					? random.determineMove(gameState)
+					: gameState.getCurrentPlayer().determineMove(gameState);
+			gameState.makeMove(move);
+			gameState.gameStats.commitTurn();
+		}
+		return gameState;
+	}
+}
@@ -9,8 +9,10 @@ import java.io.Writer;
 import java.util.List;
 
 import model.artificialintelligence.AggressivePusherStrategy;
+import model.artificialintelligence.MctsStrategy;
 import model.artificialintelligence.MinimaxStrategy;
 import model.artificialintelligence.RandomStrategy;
+import model.artificialintelligence.mcts.Mcts;
 import model.artificialintelligence.minimax.GameStateEvaluator;
 import model.artificialintelligence.minimax.Minimax;
 import model.gamelogic.ComputerPlayer;
@@ -41,10 +43,15 @@ public class Json {
 				.addAlias("minimax", MinimaxStrategy.class)
 				.addAlias("evaluator", GameStateEvaluator.class)
 				.addAlias("builder", Minimax.Builder.class)
+				.addAlias("mcts", MctsStrategy.class)
+				.addAlias("mctsBuilder", Mcts.Builder.class)
 				.exclude("color")
 				.exclude("marbles")
 				.exclude("team")
 				.exclude("transpositionTable")
+				.exclude("evaluationCache")
+				.exclude("teamFeatureCache")
+				.exclude("weights")
 				.exclude("gameScoreHashes")
 				.exclude("totalTime")
 				.exclude("weight")
@@ -9,6 +9,7 @@ import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.List;
 
+import model.artificialintelligence.mcts.Mcts;
 import model.artificialintelligence.minimax.GameStateEvaluator;
 import model.artificialintelligence.minimax.Minimax;
 import model.gamelogic.Player;
@@ -40,11 +41,20 @@ class JsonTest {
 					.withDistanceFromCenterWeight(5)
 					.withFormationBreakWeight(20)
 					.build());
+		final Player player5 = Player.newPlayer("mcts", 
+				new Mcts.Builder()
+					.withIterations(1000)
+					.enableTreeParallelism(2)
+					.enablePriors(0.5),
+					new GameStateEvaluator.Builder()
+					.withMarbleConqueredWeight(100)
+					.build());
 		players = new ArrayList<>();
 		players.add(player1);
 		players.add(player2);
 		players.add(player3);
 		players.add(player4);
+		players.add(player5);
 		
 		out = new ByteArrayOutputStream();
 		Json.serializePlayers(players, new OutputStreamWriter(out));
@@ -12,7 +12,8 @@ import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
 @Command(name = "launcher", mixinStandardHelpOptions = true, version = "v1.0",
-		description = "Launches Abalone.")
+		description = "Launches Abalone.", subcommands = {BookCommand.class, AnalyseCommand.class, 
+				TuneCommand.class})
 public class Launcher implements Callable<Integer> {
 	
 	@Option(names = {"-p", "--players"}, description = "The player file where the behaviour of the players are defined.")
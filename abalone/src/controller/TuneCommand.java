@@ -0,0 +1,98 @@
+package controller;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import model.artificialintelligence.MinimaxStrategy;
+import model.artificialintelligence.minimax.GameStateEvaluator;
+import model.artificialintelligence.minimax.TexelTuner;
+import model.gamelogic.ComputerPlayer;
+import model.gamelogic.GameState.Game;
+import model.gamelogic.Player;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "tune", mixinStandardHelpOptions = true, version = "v1.0",
+		description = "Tunes the weights of the evaluator of the minimax players to recorded games.")
+public class TuneCommand implements Callable<Integer> {
+	
+	@Parameters(paramLabel = "GAME_FILE", arity = "1..*",
+			description = "The game files, as stored with the output option, whose positions are tuned to.")
+	private List<File> games = new ArrayList<>();
+	
+	@Option(names = {"-p", "--players"}, required = true,
+			description = "The player file of which the evaluator of the first minimax player is tuned.")
+	private File players;
+	
+	@Option(names = {"-o", "--output"}, required = true,
+			description = "The player file that is written, in which all minimax players use the tuned evaluator.")
+	private File output;
+	
+	@Option(names = {"-s", "--skip-turns"},
+			description = "The number of turns at the start of every game that are not used.")
+	private int skippedTurns = TexelTuner.DEFAULT_SKIPPED_TURNS;
+	
+	@Option(names = {"-r", "--rounds"}, description = "The maximum number of rounds over all weights.")
+	private int rounds = 1000;
+	
+	@Override
+	public Integer call() throws IOException {
+		List<Player> tunedPlayers;
+		try (Reader in = new FileReader(players)) {
+			tunedPlayers = Json.deserializePlayers(in);
+		}
+		GameStateEvaluator evaluator = null;
+		for (Player player : tunedPlayers) {
+			if (evaluator == null && getMinimaxStrategy(player) != null) {
+				evaluator = getMinimaxStrategy(player).getEvaluator();
+			}
+		}
+		if (evaluator == null) {
+			System.err.println("The player file has no minimax player.");
+			return 1;
+		}
+		
+		List<Game> recordedGames = new ArrayList<>();
+		for (File game : games) {
+			try (Reader in = new FileReader(game)) {
+				recordedGames.add(Json.deserializeGame(in));
+			}
+		}
+		TexelTuner tuner = new TexelTuner(evaluator, skippedTurns);
+		tuner.addGames(recordedGames);
+		double scale = tuner.fitScale();
+		System.out.println("Tuning " + tuner.size() + " positions, initial error "
+				+ tuner.computeError(evaluator, scale) + " with scale " + scale + ".");
+		GameStateEvaluator tuned = tuner.tune(scale, rounds);
+		System.out.println("Tuned error " + tuner.computeError(tuned, scale) + ".");
+		
+		for (int i = 0; i < tunedPlayers.size(); i++) {
+			MinimaxStrategy strategy = getMinimaxStrategy(tunedPlayers.get(i));
+			if (strategy != null) {
+				tunedPlayers.set(i, new ComputerPlayer(tunedPlayers.get(i).getName(), 
+						strategy.withEvaluator(tuned)));
+			}
+		}
+		try (Writer out = new FileWriter(output)) {
+			Json.serializePlayers(tunedPlayers, out);
+		}
+		System.out.println("Wrote the tuned players to " + output + ".");
+		return 0;
+	}
+	
+	private static MinimaxStrategy getMinimaxStrategy(Player player) {
+		if (player instanceof ComputerPlayer 
+				&& ((ComputerPlayer) player).getStrategy() instanceof MinimaxStrategy) {
+			return (MinimaxStrategy) ((ComputerPlayer) player).getStrategy();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,53 @@
+package model.artificialintelligence;
+
+import com.owlike.genson.annotation.JsonProperty;
+
+import model.artificialintelligence.mcts.Mcts;
+import model.artificialintelligence.minimax.GameStateEvaluator;
+import model.gamelogic.GameState;
+import model.gamelogic.PlayableMove;
+
+public class MctsStrategy implements Strategy {
+	//
+	Mcts.Builder mctsBuilder;
+	Mcts mcts = null;
+	GameStateEvaluator evaluator;
+	long totalTime = 0;
+	int weight = 0;
+	
+	/**
+	 * Constructs mctsStrategy from an mctsBuilder and gameStateEvaluator.
+	 * @param mctsBuilder Contains the information on the budget, parallelism and priors of the search.
+	 * @param evaluator Contains the information on how to rate gameStates, may be null.
+	 */
+	public MctsStrategy(@JsonProperty("mctsBuilder") Mcts.Builder mctsBuilder, 
+						@JsonProperty("evaluator") GameStateEvaluator evaluator) {
+		this.mctsBuilder = mctsBuilder;
+		this.evaluator = evaluator;
+	}
+	
+	@Override
+	public PlayableMove determineMove(GameState gameState) {
+		if (mcts == null) {
+			mcts = mctsBuilder.build(gameState, evaluator);
+		}
+		
+		long startTime = System.nanoTime();
+		final PlayableMove move = mcts.getBestMove();
+		long endTime = System.nanoTime();
+		long duration = (endTime - startTime) / 1000000;
+		totalTime += duration;
+		weight++;
+		System.out.println("Average of " 
+				+ (totalTime / weight + " milliseconds."));
+		return move;
+	}
+	
+	/**
+	 * Gets the GameStateEvaluator for this mctsStrategy.
+	 * @return the GameStateEvaluator for this mctsStrategy, may be null.
+	 */
+	public GameStateEvaluator getEvaluator() {
+		return evaluator;
+	}
+}
@@ -2,9 +2,14 @@ package model.artificialintelligence;
 
 import com.owlike.genson.annotation.JsonProperty;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
 import model.artificialintelligence.minimax.DefaultMinimax;
 import model.artificialintelligence.minimax.GameStateEvaluator;
 import model.artificialintelligence.minimax.Minimax;
+import model.artificialintelligence.minimax.PrincipalVariation;
 import model.gamelogic.GameState;
 import model.gamelogic.PlayableMove;
 
@@ -13,6 +18,8 @@ public class MinimaxStrategy implements Strategy {
 	Minimax.Builder miniBuilder;
 	Minimax minimax = null;
 	GameStateEvaluator evaluator;
+	String openingBook;
+	transient OpeningBook loadedOpeningBook = null;
 	long totalTime = 0;
 	int weight = 0;
 	
@@ -21,23 +28,54 @@ public class MinimaxStrategy implements Strategy {
 	 * @param miniBuilder Contains the information on which heuristics and search algorithms to use.
 	 * @param evaluator Contains the information on how to rate gameStates.
 	 */
+	public MinimaxStrategy(Minimax.Builder miniBuilder, GameStateEvaluator evaluator) {
+		this(miniBuilder, evaluator, null);
+	}
+	
+	/**
+	 * Constructs minimaxStrategy from a minimaxBuilder, gameStateEvaluator and opening book.
+	 * @param miniBuilder Contains the information on which heuristics and search algorithms to use.
+	 * @param evaluator Contains the information on how to rate gameStates.
+	 * @param openingBook The path of the opening book file that is probed before searching, or null.
+	 */
 	public MinimaxStrategy(@JsonProperty("miniBuilder") Minimax.Builder miniBuilder, 
-						   @JsonProperty("evaluator") GameStateEvaluator evaluator) {
+						   @JsonProperty("evaluator") GameStateEvaluator evaluator,
+						   @JsonProperty("openingBook") String openingBook) {
 		this.miniBuilder = miniBuilder;
 		this.evaluator = evaluator;
+		this.openingBook = openingBook;
 	}
 	
 	@Override
 	public PlayableMove determineMove(GameState gameState) {
 		if (minimax == null) {
 			minimax = miniBuilder.build(gameState, evaluator);
+			loadedOpeningBook = loadOpeningBook();
+		}
+		if (loadedOpeningBook != null) {
+			PlayableMove bookMove = loadedOpeningBook.probe(gameState);
+			if (bookMove != null) {
+				// The position that was pondered on can no longer occur.
+				((DefaultMinimax) minimax).cancelPondering();
+				return bookMove;
+			}
 		}
 
 		long startTime = System.nanoTime();
 		final PlayableMove move = minimax.getBestMove();
 		long endTime = System.nanoTime();
 		long duration = (endTime - startTime) / 1000000;
+		for (String line : gameState.gameStats.currentTurnCommittedDepth.principalVariationByDepth) {
+			System.out.println("Depth " + line);
+		}
+		List<PrincipalVariation> lines = minimax.getPrincipalVariations();
+		if (lines.size() > 1) {
+			for (int i = 0; i < lines.size(); i++) {
+				System.out.println((i + 1) + ". " + lines.get(i));
+			}
+		}
 		((DefaultMinimax) minimax).resetHistoryTable();
+		((DefaultMinimax) minimax).startPondering(move);
 		totalTime += duration;
 		weight++;
 		System.out.println("Average of " 
@@ -45,6 +83,47 @@ public class MinimaxStrategy implements Strategy {
 		return move;
 	}
 	
+	/**
+	 * Searches for the best lines of the current player of the gameState without making a move,
+	 * probing the opening book or pondering. The number of lines only applies to this search, the
+	 * minimax builder of this strategy is left as it is.
+	 * @param gameState The gameState, whose stats must be initialized for the current turn.
+	 * @param lines The number of lines.
+	 * @return The lines, from the best to the worst.
+	 */
+	public List<PrincipalVariation> analyse(GameState gameState, int lines) {
+		Minimax analysis = miniBuilder.build(gameState, evaluator);
+		((DefaultMinimax) analysis).enableMultiPv(lines);
+		analysis.getBestMove();
+		return analysis.getPrincipalVariations();
+	}
+	
+	/**
+	 * Reads the opening book file, if one is set.
+	 * @return The opening book, or null if there is none or it cannot be read.
+	 */
+	private OpeningBook loadOpeningBook() {
+		if (openingBook == null) {
+			return null;
+		}
+		try {
+			return OpeningBook.read(new File(openingBook));
+		} catch (IOException e) {
+			System.err.println("Warning: The opening book could not be read: " + e.getMessage() 
+					+ " Continuing program execution without the opening book.");
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns a copy of this minimaxStrategy that rates gameStates with the given evaluator.
+	 * @param evaluator Contains the information on how to rate gameStates.
+	 * @return A new minimaxStrategy with the same minimaxBuilder and opening book.
+	 */
+	public MinimaxStrategy withEvaluator(GameStateEvaluator evaluator) {
+		return new MinimaxStrategy(miniBuilder, evaluator, openingBook);
+	}
+	
 	/**
 	 * Gets the GameStateEvaluator for this minimaxStrategy.
 	 * @return the GameStateEvaluator for this minimaxStrategy.
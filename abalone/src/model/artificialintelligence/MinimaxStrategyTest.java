@@ -0,0 +1,67 @@
+package model.artificialintelligence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.artificialintelligence.minimax.DefaultMinimax;
+import model.artificialintelligence.minimax.GameStateEvaluator;
+import model.artificialintelligence.minimax.Minimax;
+import model.gamelogic.GameState;
+import model.gamelogic.GameState.Game;
+import model.gamelogic.Move;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Player;
+
+class MinimaxStrategyTest {
+	//
+	GameState gameState;
+	MinimaxStrategy strategy;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		gameState = new GameState(Arrays.asList(
+				Player.newPlayer("x", "random"), Player.newPlayer("y", "random")));
+		strategy = new MinimaxStrategy(new Minimax.Builder().withDfs(2), new GameStateEvaluator.Builder()
+				.withCoherenceWeight(1)
+				.withDistanceFromCenterWeight(3)
+				.build());
+	}
+	
+	@Test
+	void testAnalyseDoesNotChangeTheNumberOfLinesOfLaterSearches() {
+		gameState.gameStats.initializeTurn();
+		assertEquals(3, strategy.analyse(gameState, 3).size());
+		
+		strategy.determineMove(gameState);
+		assertEquals(1, strategy.minimax.getPrincipalVariations().size());
+	}
+	
+	@Test
+	void testBookMoveStopsPondering() {
+		strategy = new MinimaxStrategy(new Minimax.Builder().withDfs(2).enableHashing().enablePondering(),
+				strategy.getEvaluator());
+		gameState.gameStats.initializeTurn();
+		PlayableMove move = strategy.determineMove(gameState);
+		DefaultMinimax minimax = (DefaultMinimax) strategy.minimax;
+		assertTrue(minimax.isPondering());
+		gameState.makeMove(move);
+		PlayableMove reply = Move.allLegalMoves(gameState).iterator().next();
+		gameState.makeMove(reply);
+		
+		// A book that only has a move for the position after the reply.
+		PlayableMove bookMove = Move.allLegalMoves(gameState).iterator().next();
+		Game game = new Game(null, Arrays.asList("x", "y"));
+		game.moves.addAll(Arrays.asList(
+				move.getMoveNotation(), reply.getMoveNotation(), bookMove.getMoveNotation()));
+		OpeningBook.Recorder recorder = new OpeningBook.Recorder(OpeningBook.DEFAULT_DEPTH);
+		recorder.addGame(game, 2);
+		strategy.loadedOpeningBook = recorder.build(1);
+		
+		assertEquals(bookMove, strategy.determineMove(gameState));
+		assertFalse(minimax.isPondering());
+	}
+}
@@ -0,0 +1,321 @@
+package model.artificialintelligence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.artificialintelligence.minimax.GameStateEvaluator;
+import model.gamelogic.GameState;
+import model.gamelogic.GameState.Game;
+import model.gamelogic.Move;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Team;
+
+/**
+ * An opening book: the moves that were played in the first turns of recorded games and self-play,
+ * with the number of games in which they were played and the results of the teams that played them.
+ * A position is identified by the Zobrist hash of its board, which has a fixed seed, and the team
+ * to move. A move is identified by the hash of the board that it results in.
+ * The book is stored as a binary file of fixed size records, sorted by position and from the best to
+ * the worst move, so that the moves of a position are found with a binary search.
+ */
+public class OpeningBook {
+	//
+	/**
+	 * The number of turns of a game that are recorded by default.
+	 */
+	public static final int DEFAULT_DEPTH = 12;
+	// "ABOB", the first bytes of an opening book file.
+	private static final int MAGIC = 0x41424F42;
+	private static final int VERSION = 1;
+	// Mixed into the board hash so that the same board with another team to move is another position.
+	private static final long TEAM_KEY = 0x9E3779B97F4A7C15L;
+	
+	private final long[] positions;
+	private final long[] children;
+	private final int[] weights;
+	private final int[] games;
+	private final int[] wins;
+	private final int[] draws;
+	
+	private OpeningBook(int size) {
+		positions = new long[size];
+		children = new long[size];
+		weights = new int[size];
+		games = new int[size];
+		wins = new int[size];
+		draws = new int[size];
+	}
+	
+	/**
+	 * Returns the key of the current position of the gameState in the book.
+	 * @param gameState The gameState.
+	 * @return The board hash, mixed with the number of the team to move.
+	 */
+	static long positionOf(GameState gameState) {
+		return gameState.getBoard().getBoardHash()
+				^ TEAM_KEY * gameState.getTeamNumber(gameState.getCurrentTeam());
+	}
+	
+	/**
+	 * Returns the number of moves in the book.
+	 * @return The number of moves over all positions.
+	 */
+	public int size() {
+		return positions.length;
+	}
+	
+	/**
+	 * Looks up the current position of the gameState and returns its book move with the highest weight.
+	 * Book moves that would repeat an earlier position of the game are skipped, as are moves with a weight
+	 * of 0, which were only played in lost games.
+	 * @param gameState The gameState for whose current player a move is determined.
+	 * @return The book move, or null if the position is not in the book or has no move that scored.
+	 */
+	public PlayableMove probe(GameState gameState) {
+		long position = positionOf(gameState);
+		int first = firstIndexOf(position);
+		if (first == positions.length || positions[first] != position) {
+			return null;
+		}
+		long boardHash = gameState.getBoard().getBoardHash();
+		Map<Long, PlayableMove> legalMoves = new HashMap<>();
+		for (PlayableMove move : Move.allLegalMoves(gameState)) {
+			legalMoves.put(GameStateEvaluator.hashOfBoard(boardHash, move), move);
+		}
+		// The moves are sorted by weight, so no move after one without weight has any.
+		for (int i = first; i < positions.length && positions[i] == position && weights[i] > 0; i++) {
+			PlayableMove move = legalMoves.get(children[i]);
+			if (move != null && !gameState.gameHistory.isRepetition(children[i])) {
+				return move;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the number of games in which the move was played in the current position of the gameState.
+	 * @param gameState The gameState.
+	 * @param move A legal move of the current player of the gameState.
+	 * @return The number of games, 0 if the move is not in the book.
+	 */
+	public int getGames(GameState gameState, PlayableMove move) {
+		int index = indexOf(gameState, move);
+		return index < 0 ? 0 : games[index];
+	}
+	
+	/**
+	 * Returns the weight of the move in the current position of the gameState: two points for every game
+	 * that the team of the current player won after the move and one point for every draw.
+	 * @param gameState The gameState.
+	 * @param move A legal move of the current player of the gameState.
+	 * @return The weight, 0 if the move is not in the book.
+	 */
+	public int getWeight(GameState gameState, PlayableMove move) {
+		int index = indexOf(gameState, move);
+		return index < 0 ? 0 : weights[index];
+	}
+	
+	private int indexOf(GameState gameState, PlayableMove move) {
+		long position = positionOf(gameState);
+		long child = GameStateEvaluator.hashOfBoard(gameState.getBoard().getBoardHash(), move);
+		for (int i = firstIndexOf(position); i < positions.length && positions[i] == position; i++) {
+			if (children[i] == child) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Returns the index of the first move of the position, or of the first move of the next position
+	 * if the position is not in the book.
+	 */
+	private int firstIndexOf(long position) {
+		int low = 0;
+		int high = positions.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (positions[middle] < position) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+	
+	/**
+	 * Reads an opening book from the given file.
+	 * @param file A file that was written by write.
+	 * @return The opening book.
+	 * @throws IOException If the file cannot be read or is not an opening book.
+	 */
+	public static OpeningBook read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(file + " is not an opening book of version " + VERSION + ".");
+			}
+			OpeningBook book = new OpeningBook(in.readInt());
+			for (int i = 0; i < book.size(); i++) {
+				book.positions[i] = in.readLong();
+				book.children[i] = in.readLong();
+				book.weights[i] = in.readInt();
+				book.games[i] = in.readInt();
+				book.wins[i] = in.readInt();
+				book.draws[i] = in.readInt();
+			}
+			return book;
+		}
+	}
+	
+	/**
+	 * Writes this opening book to the given file.
+	 * @param file The file to write to, which is overwritten.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void write(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(size());
+			for (int i = 0; i < size(); i++) {
+				out.writeLong(positions[i]);
+				out.writeLong(children[i]);
+				out.writeInt(weights[i]);
+				out.writeInt(games[i]);
+				out.writeInt(wins[i]);
+				out.writeInt(draws[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Collects the moves of the first turns of games and their results, from which an opening book
+	 * is built.
+	 */
+	public static class Recorder {
+		private final int depth;
+		// The games, wins and draws of every move, by position and by the hash of the resulting board.
+		private final Map<Long, Map<Long, int[]>> moves = new HashMap<>();
+		private int nrOfGames = 0;
+		
+		/**
+		 * Creates a recorder that records the given number of turns of every game.
+		 * @param depth The number of turns.
+		 */
+		public Recorder(int depth) {
+			assert (depth > 0);
+			this.depth = depth;
+		}
+		
+		public int getNrOfGames() {
+			return nrOfGames;
+		}
+		
+		/**
+		 * Replays the game and records its first turns and its result. A game that has not finished
+		 * is won by the team that conquered the most marbles, or a draw if no team did.
+		 * @param game The game, as it was stored by the output option of the launcher.
+		 */
+		public void addGame(Game game) {
+			addGame(game, 0);
+		}
+		
+		/**
+		 * Replays the game and records its first turns and its result, except for the turns that were
+		 * played randomly, see addGame(Game).
+		 * @param game The game, as it was stored by the output option of the launcher.
+		 * @param randomTurns The number of turns at the start of the game that were played randomly,
+		 *     which are not book moves.
+		 */
+		public void addGame(Game game, int randomTurns) {
+			List<Long> gamePositions = new ArrayList<>();
+			List<Long> gameChildren = new ArrayList<>();
+			List<Team> movers = new ArrayList<>();
+			GameState gameState = game.replay((position, move) -> {
+				if (randomTurns <= position.getTurn() && position.getTurn() < depth) {
+					gamePositions.add(positionOf(position));
+					gameChildren.add(GameStateEvaluator.hashOfBoard(position.getBoard().getBoardHash(), move));
+					movers.add(position.getCurrentTeam());
+				}
+			});
+			
+			Team winner = Game.getLeadingTeam(gameState);
+			for (int i = 0; i < gamePositions.size(); i++) {
+				int[] stats = moves.computeIfAbsent(gamePositions.get(i), (key) -> new HashMap<>())
+						.computeIfAbsent(gameChildren.get(i), (key) -> new int[3]);
+				stats[0]++;
+				if (winner == null) {
+					stats[2]++;
+				} else if (winner == movers.get(i)) {
+					stats[1]++;
+				}
+			}
+			nrOfGames++;
+		}
+		
+		/**
+		 * Builds the opening book from the recorded games.
+		 * @param minGames The number of games in which a move must have been played to be in the book.
+		 * @return The opening book.
+		 */
+		public OpeningBook build(int minGames) {
+			List<long[]> records = new ArrayList<>();
+			for (Map.Entry<Long, Map<Long, int[]>> position : moves.entrySet()) {
+				for (Map.Entry<Long, int[]> child : position.getValue().entrySet()) {
+					int[] stats = child.getValue();
+					if (stats[0] >= minGames) {
+						records.add(new long[] {position.getKey(), child.getKey(),
+							2 * stats[1] + stats[2], stats[0], stats[1], stats[2]});
+					}
+				}
+			}
+			// By position, then from the highest to the lowest weight and from the most to the fewest games.
+			records.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+					: a[2] != b[2] ? Long.compare(b[2], a[2])
+					: a[3] != b[3] ? Long.compare(b[3], a[3])
+					: Long.compare(a[1], b[1]));
+			
+			OpeningBook book = new OpeningBook(records.size());
+			for (int i = 0; i < records.size(); i++) {
+				long[] record = records.get(i);
+				book.positions[i] = record[0];
+				book.children[i] = record[1];
+				book.weights[i] = (int) record[2];
+				book.games[i] = (int) record[3];
+				book.wins[i] = (int) record[4];
+				book.draws[i] = (int) record[5];
+			}
+			return book;
+		}
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof OpeningBook)) {
+			return false;
+		}
+		OpeningBook other = (OpeningBook) obj;
+		return Arrays.equals(positions, other.positions) && Arrays.equals(children, other.children)
+				&& Arrays.equals(weights, other.weights) && Arrays.equals(games, other.games)
+				&& Arrays.equals(wins, other.wins) && Arrays.equals(draws, other.draws);
+	}
+	
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(positions) * 31 + Arrays.hashCode(children);
+	}
+}
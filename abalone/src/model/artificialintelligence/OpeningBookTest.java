@@ -0,0 +1,141 @@
+package model.artificialintelligence;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.artificialintelligence.minimax.GameStateEvaluator;
+import model.artificialintelligence.minimax.Minimax;
+import model.gamelogic.GameState;
+import model.gamelogic.GameState.Game;
+import model.gamelogic.Move;
+import model.gamelogic.MoveSumito;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Player;
+
+class OpeningBookTest {
+	//
+	GameState gameState;
+	List<PlayableMove> moves;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		gameState = new GameState(Arrays.asList(
+				Player.newPlayer("x", "random"), Player.newPlayer("y", "random")));
+		moves = new ArrayList<>(Move.allLegalMoves(gameState));
+	}
+	
+	private static Game newGame(PlayableMove... moves) {
+		Game game = new Game(null, Arrays.asList("x", "y"));
+		for (PlayableMove move : moves) {
+			game.moves.add(move.getMoveNotation());
+		}
+		return game;
+	}
+	
+	@Test
+	void testZobristKeysAreTheSameInEveryRun() {
+		// An opening book file is only valid as long as the board hashes do not change.
+		assertEquals(9138259743266999618L, gameState.getBoard().getBoardHash());
+	}
+	
+	@Test
+	void testBookPlaysTheMoveWithTheHighestWeight() throws Exception {
+		OpeningBook.Recorder recorder = new OpeningBook.Recorder(OpeningBook.DEFAULT_DEPTH);
+		recorder.addGame(newGame(moves.get(0)));
+		recorder.addGame(newGame(moves.get(1)));
+		recorder.addGame(newGame(moves.get(1)));
+		OpeningBook book = recorder.build(1);
+		assertEquals(2, book.size());
+		
+		// Every game is a draw, so the move that was played in the most games has the highest weight.
+		assertEquals(moves.get(1), book.probe(gameState));
+		assertEquals(2, book.getGames(gameState, moves.get(1)));
+		assertEquals(2, book.getWeight(gameState, moves.get(1)));
+		assertEquals(1, book.getWeight(gameState, moves.get(0)));
+		assertEquals(0, book.getGames(gameState, moves.get(2)));
+		
+		// A minimum number of games drops the other move.
+		assertEquals(1, recorder.build(2).size());
+		
+		// Positions after the recorded turns are not in the book.
+		gameState.makeMove(moves.get(1));
+		assertNull(book.probe(gameState));
+	}
+	
+	@Test
+	void testBookOnlyRecordsTheFirstTurns() {
+		OpeningBook.Recorder recorder = new OpeningBook.Recorder(1);
+		gameState.makeMove(moves.get(0));
+		PlayableMove reply = Move.allLegalMoves(gameState).iterator().next();
+		recorder.addGame(newGame(moves.get(0), reply));
+		assertEquals(1, recorder.build(1).size());
+		assertEquals(1, recorder.getNrOfGames());
+	}
+	
+	@Test
+	void testBookDoesNotPlayMovesThatWereOnlyPlayedInLostGames() {
+		// Play until a marble is conquered, which decides the game for the team that conquered it.
+		GameState game = gameState.copy();
+		Random random = new Random(17);
+		while (game.getTotalNrOfConqueredMarbles() == 0) {
+			List<PlayableMove> legalMoves = new ArrayList<>(Move.allLegalMoves(game));
+			PlayableMove move = legalMoves.stream()
+					.filter(m -> m instanceof MoveSumito && ((MoveSumito) m).isCapture())
+					.findAny().orElse(legalMoves.get(random.nextInt(legalMoves.size())));
+			game.makeMove(move);
+		}
+		OpeningBook.Recorder recorder = new OpeningBook.Recorder(game.getTurn());
+		recorder.addGame(game.gameHistory);
+		OpeningBook book = recorder.build(1);
+		
+		for (String notation : game.gameHistory.moves) {
+			PlayableMove move = Move.newMove(gameState.getBoard(), notation, gameState.getCurrentPlayer());
+			boolean won = gameState.getCurrentTeam().equals(gameState.getTeamByNumber(
+					game.getTeamNumber(game.getTeams().stream()
+							.filter(team -> !team.getConqueredMarbles().isEmpty()).findAny().get())));
+			assertEquals(won ? 2 : 0, book.getWeight(gameState, move));
+			assertEquals(won ? move : null, book.probe(gameState));
+			gameState.makeMove(move);
+		}
+	}
+	
+	@Test
+	void testBookDoesNotRecordTheRandomTurns() {
+		OpeningBook.Recorder recorder = new OpeningBook.Recorder(OpeningBook.DEFAULT_DEPTH);
+		gameState.makeMove(moves.get(0));
+		PlayableMove reply = Move.allLegalMoves(gameState).iterator().next();
+		recorder.addGame(newGame(moves.get(0), reply), 1);
+		OpeningBook book = recorder.build(1);
+		assertEquals(1, book.size());
+		assertEquals(1, book.getWeight(gameState, reply));
+		// The first turn was played randomly, so the starting position is not in the book.
+		assertNull(book.probe(new GameState(Arrays.asList(
+				Player.newPlayer("x", "random"), Player.newPlayer("y", "random")))));
+	}
+	
+	@Test
+	void testBookIsWrittenAndReadAndProbedByMinimaxStrategy() throws Exception {
+		OpeningBook.Recorder recorder = new OpeningBook.Recorder(OpeningBook.DEFAULT_DEPTH);
+		recorder.addGame(newGame(moves.get(5)));
+		OpeningBook book = recorder.build(1);
+		File file = File.createTempFile("abalone", ".book");
+		file.deleteOnExit();
+		book.write(file);
+		assertEquals(book, OpeningBook.read(file));
+		
+		MinimaxStrategy strategy = new MinimaxStrategy(
+				new Minimax.Builder().withDfs(1),
+				new GameStateEvaluator.Builder().withMarbleConqueredWeight(1).build(),
+				file.getPath());
+		gameState.gameStats.initializeTurn();
+		assertEquals(moves.get(5), strategy.determineMove(gameState));
+	}
+}
@@ -0,0 +1,505 @@
+package model.artificialintelligence.mcts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.owlike.genson.annotation.JsonProperty;
+
+import model.artificialintelligence.RandomStrategy;
+import model.artificialintelligence.minimax.GameStateEvaluator;
+import model.exceptions.IllegalBuildException;
+import model.gamelogic.GameState;
+import model.gamelogic.Move;
+import model.gamelogic.MoveUndo;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Team;
+
+/**
+ * Monte Carlo Tree Search with UCT selection.
+ * Every iteration selects a path through the tree, expands its leaf once it has been visited before,
+ * plays random moves from there and backs the outcome up along the path. A playout that does not end
+ * the game within playoutDepth plies is decided by the GameStateEvaluator, or by the number of 
+ * conquered marbles if there is none. The children of a node can be given priors from the ratings 
+ * of the evaluator, which bias the selection towards the better rated moves while they have few visits.
+ * The search runs on multiple trees (root parallelism), which are merged by their root visits, 
+ * and every tree can be searched by multiple threads (tree parallelism), which are spread over the 
+ * tree by virtual losses. The trees are rebuilt for every move.
+ */
+public class Mcts {
+	//
+	// The time in seconds after which an idle search thread terminates.
+	private static final int THREAD_KEEP_ALIVE = 60;
+	
+	private final GameState gameState;
+	private final GameStateEvaluator evaluator;
+	private final int iterations;
+	private final int time;
+	private final int threads;
+	private final double exploration;
+	private final double priorWeight;
+	private final int playoutDepth;
+	private final List<NodeStore> trees = new ArrayList<>();
+	
+	private ExecutorService searchThreads = null;
+	private AtomicInteger playouts;
+	private AtomicInteger maxTreeDepth;
+	private long deadline;
+	
+	/**
+	 * Creates a Monte Carlo Tree Search for the current player of the given gameState.
+	 * Use Mcts.Builder to create an Mcts.
+	 */
+	Mcts(GameState gameState, GameStateEvaluator evaluator, int iterations, int time, 
+			int threads, int trees, double exploration, double priorWeight, int playoutDepth, int maxNodes) {
+		this.gameState = gameState;
+		this.evaluator = evaluator;
+		this.iterations = iterations;
+		this.time = time;
+		this.threads = threads;
+		this.exploration = exploration;
+		this.priorWeight = priorWeight;
+		this.playoutDepth = playoutDepth;
+		for (int i = 0; i < trees; i++) {
+			this.trees.add(new NodeStore(maxNodes));
+		}
+	}
+	
+	public GameState getGameState() {
+		return gameState;
+	}
+	
+	/**
+	 * Searches the current gameState until the iterations or the time run out.
+	 * @return The move to the most visited child of the root, summed over all trees.
+	 */
+	public PlayableMove getBestMove() {
+		List<PlayableMove> moves = new ArrayList<>(Move.allLegalMoves(gameState));
+		playouts = new AtomicInteger(0);
+		maxTreeDepth = new AtomicInteger(0);
+		deadline = time > 0 ? System.currentTimeMillis() + time * 1000L : Long.MAX_VALUE;
+		
+		List<Runnable> workers = new ArrayList<>();
+		for (NodeStore tree : trees) {
+			tree.clear();
+			expand(tree, NodeStore.ROOT, gameState, moves);
+			for (int i = 0; i < threads; i++) {
+				GameState copy = gameState.copy();
+				workers.add(() -> search(tree, copy));
+			}
+		}
+		runWorkers(workers);
+		
+		gameState.gameStats.addNodesVisited(iterations > 0 
+				? Math.min(iterations, playouts.get()) 
+				: playouts.get());
+		gameState.gameStats.registerDepth(maxTreeDepth.get());
+		gameState.gameStats.commitDepth();
+		
+		PlayableMove bestMove = null;
+		long bestVisits = -1;
+		long bestReward = -1;
+		for (int i = 0; i < moves.size(); i++) {
+			long visits = 0;
+			long reward = 0;
+			for (NodeStore tree : trees) {
+				if (tree.getFirstChild(NodeStore.ROOT) >= 0) {
+					visits += tree.getVisits(tree.getFirstChild(NodeStore.ROOT) + i);
+					reward += tree.getReward(tree.getFirstChild(NodeStore.ROOT) + i);
+				}
+			}
+			if (visits > bestVisits || (visits == bestVisits && reward > bestReward)) {
+				bestMove = moves.get(i);
+				bestVisits = visits;
+				bestReward = reward;
+			}
+		}
+		if (bestMove == null) {
+			System.err.println("Mcts was unable to supply a move, supplying a random move instead.");
+			return new RandomStrategy().determineMove(gameState);
+		}
+		return bestMove;
+	}
+	
+	/**
+	 * Runs the workers in parallel and waits for them to finish. 
+	 * A single worker runs on the calling thread.
+	 * @param workers The workers to run.
+	 */
+	private void runWorkers(List<Runnable> workers) {
+		if (workers.size() == 1) {
+			workers.get(0).run();
+			return;
+		}
+		if (searchThreads == null) {
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(workers.size(), workers.size(), 
+					THREAD_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (runnable) -> {
+						Thread thread = new Thread(runnable, "mcts");
+						thread.setDaemon(true);
+						return thread;
+					});
+			pool.allowCoreThreadTimeOut(true);
+			searchThreads = pool;
+		}
+		List<Future<?>> futures = new ArrayList<>();
+		for (Runnable worker : workers) {
+			futures.add(searchThreads.submit(worker));
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Runs iterations on the given tree until the iterations or the time run out.
+	 * @param tree The tree to search, which may be shared with other threads.
+	 * @param gameState A private copy of the gameState of the root.
+	 */
+	private void search(NodeStore tree, GameState gameState) {
+		List<Integer> path = new ArrayList<>();
+		List<Integer> movers = new ArrayList<>();
+		List<MoveUndo> undos = new ArrayList<>();
+		while (System.currentTimeMillis() < deadline 
+				&& (playouts.getAndIncrement() < iterations || iterations <= 0)) {
+			iterate(tree, gameState, path, movers, undos);
+			path.clear();
+			movers.clear();
+			undos.clear();
+		}
+	}
+	
+	/**
+	 * Runs a single iteration: selection, expansion, playout and backup.
+	 * The gameState is returned to the root afterwards.
+	 * @param tree The tree to search.
+	 * @param gameState A private copy of the gameState of the root.
+	 * @param path Receives the nodes that are visited, starting with the root.
+	 * @param movers Receives the team number of the team that moves from each node of the path.
+	 * @param undos Receives the undos of the moves that are made.
+	 */
+	private void iterate(NodeStore tree, GameState gameState, 
+			List<Integer> path, List<Integer> movers, List<MoveUndo> undos) {
+		int node = NodeStore.ROOT;
+		tree.addVisit(node);
+		path.add(node);
+		while (!gameState.isFinished()) {
+			List<PlayableMove> moves = null;
+			if (!tree.isExpanded(node)) {
+				// A leaf is only expanded once it has been played out from before.
+				if (tree.getVisits(node) <= 1) {
+					break;
+				}
+				moves = new ArrayList<>(Move.allLegalMoves(gameState));
+				if (!expand(tree, node, gameState, moves)) {
+					break;
+				}
+			}
+			if (moves == null) {
+				moves = new ArrayList<>(Move.allLegalMoves(gameState));
+			}
+			int child = select(tree, node);
+			movers.add(gameState.getTeamNumber(gameState.getCurrentTeam()));
+			undos.add(gameState.makeMove(moves.get(child - tree.getFirstChild(node))));
+			node = child;
+			tree.addVisit(node);
+			path.add(node);
+		}
+		maxTreeDepth.accumulateAndGet(path.size() - 1, Math::max);
+		
+		int[] rewards = playout(gameState);
+		// The reward of a node is that of the team that moved to it.
+		for (int i = 1; i < path.size(); i++) {
+			tree.addReward(path.get(i), rewards[movers.get(i - 1) - 1]);
+		}
+		for (int i = undos.size() - 1; i >= 0; i--) {
+			gameState.makeMove(undos.get(i));
+		}
+	}
+	
+	/**
+	 * Expands the given node by allocating a child for every legal move, unless another thread 
+	 * is already expanding it or the tree is full. The priors of the children are set from 
+	 * the ratings of the evaluator, scaled to [0, 1].
+	 * @param tree The tree that contains the node.
+	 * @param node The node to expand.
+	 * @param gameState The gameState of the node.
+	 * @param moves The legal moves of the gameState in the order of Move.allLegalMoves.
+	 * @return True if the node has been expanded by the calling thread, false otherwise.
+	 */
+	private boolean expand(NodeStore tree, int node, GameState gameState, List<PlayableMove> moves) {
+		if (moves.isEmpty() || !tree.tryStartExpansion(node)) {
+			return false;
+		}
+		int first = tree.allocate(moves.size());
+		if (first < 0) {
+			// The tree is full, so the node remains a leaf.
+			return false;
+		}
+		if (evaluator != null && priorWeight > 0) {
+			Team team = gameState.getCurrentTeam();
+			double[] ratings = new double[moves.size()];
+			double min = Double.MAX_VALUE;
+			double max = -Double.MAX_VALUE;
+			for (int i = 0; i < moves.size(); i++) {
+				ratings[i] = evaluator.rateMove(gameState, team, moves.get(i));
+				min = Math.min(min, ratings[i]);
+				max = Math.max(max, ratings[i]);
+			}
+			for (int i = 0; i < moves.size(); i++) {
+				tree.setPrior(first + i, max > min ? (float) ((ratings[i] - min) / (max - min)) : 0);
+			}
+		}
+		tree.finishExpansion(node, first, moves.size());
+		return true;
+	}
+	
+	/**
+	 * Selects the child of the given node with the highest UCT value, plus the prior of the child 
+	 * divided by its number of visits. Unvisited children are selected first, in the order of their priors.
+	 * @param tree The tree that contains the node.
+	 * @param node The expanded node.
+	 * @return The selected child.
+	 */
+	int select(NodeStore tree, int node) {
+		int first = tree.getFirstChild(node);
+		int end = first + tree.getChildCount(node);
+		int bestUnvisited = -1;
+		for (int child = first; child < end; child++) {
+			if (tree.getVisits(child) == 0 
+					&& (bestUnvisited == -1 || tree.getPrior(child) > tree.getPrior(bestUnvisited))) {
+				bestUnvisited = child;
+			}
+		}
+		if (bestUnvisited != -1) {
+			return bestUnvisited;
+		}
+		double logVisits = Math.log(Math.max(1, tree.getVisits(node)));
+		int bestChild = first;
+		double bestValue = -Double.MAX_VALUE;
+		for (int child = first; child < end; child++) {
+			int visits = tree.getVisits(child);
+			double value = tree.getReward(child) / (2.0 * visits)
+					+ exploration * Math.sqrt(logVisits / visits)
+					+ priorWeight * tree.getPrior(child) / (visits + 1);
+			if (value > bestValue) {
+				bestChild = child;
+				bestValue = value;
+			}
+		}
+		return bestChild;
+	}
+	
+	/**
+	 * Plays random moves until the game is finished or playoutDepth plies have been played,
+	 * after which the gameState is returned to where the playout started.
+	 * @param gameState The gameState from which the playout starts.
+	 * @return The reward of every team in half points, indexed by team number - 1.
+	 */
+	private int[] playout(GameState gameState) {
+		List<MoveUndo> undos = new ArrayList<>();
+		while (undos.size() < playoutDepth && !gameState.isFinished()) {
+			List<PlayableMove> moves = new ArrayList<>(Move.allLegalMoves(gameState));
+			undos.add(gameState.makeMove(moves.get(ThreadLocalRandom.current().nextInt(moves.size()))));
+		}
+		int[] rewards = outcome(gameState);
+		for (int i = undos.size() - 1; i >= 0; i--) {
+			gameState.makeMove(undos.get(i));
+		}
+		return rewards;
+	}
+	
+	/**
+	 * Decides the outcome of a playout. A finished game is won by its winner. Otherwise, the teams
+	 * with the highest rating share the win: 2 half points for a single winner, 1 for every team 
+	 * of a tie and 0 for the others.
+	 * @param gameState The gameState at the end of the playout.
+	 * @return The reward of every team in half points, indexed by team number - 1.
+	 */
+	private int[] outcome(GameState gameState) {
+		List<Team> teams = gameState.getTeams();
+		int[] rewards = new int[teams.size()];
+		long[] ratings = new long[teams.size()];
+		if (gameState.isFinished()) {
+			Team winner = gameState.getWinner();
+			for (Team team : teams) {
+				ratings[gameState.getTeamNumber(team) - 1] = winner == null || team == winner ? 1 : 0;
+			}
+		} else {
+			for (Team team : teams) {
+				ratings[gameState.getTeamNumber(team) - 1] = evaluator != null
+						? evaluator.rateGameState(gameState, team)
+						: team.getConqueredMarbles().size();
+			}
+		}
+		long best = Long.MIN_VALUE;
+		int winners = 0;
+		for (long rating : ratings) {
+			if (rating > best) {
+				best = rating;
+				winners = 1;
+			} else if (rating == best) {
+				winners++;
+			}
+		}
+		for (int i = 0; i < ratings.length; i++) {
+			rewards[i] = ratings[i] == best ? (winners == 1 ? 2 : 1) : 0;
+		}
+		return rewards;
+	}
+	
+	public static class Builder {
+		@JsonProperty("iterations") private int iterations = 0;
+		@JsonProperty("time") private int time = 0;
+		@JsonProperty("threads") private int threads = 1;
+		@JsonProperty("trees") private int trees = 1;
+		@JsonProperty("exploration") private double exploration = Math.sqrt(2);
+		@JsonProperty("priors") private boolean priors = false;
+		@JsonProperty("priorWeight") private double priorWeight = 0;
+		@JsonProperty("playoutDepth") private int playoutDepth = 4;
+		@JsonProperty("maxNodes") private int maxNodes = 1000000;
+		
+		
+		/** Creates a builder for Mcts.
+		 */
+		public Builder() {
+		}
+		
+		/**
+		 * Bounds the search by the given number of iterations per move, counted over all threads.
+		 * Can be combined with withTime, in which case the search stops at whichever runs out first.
+		 * @param iterations The number of playouts per move.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withIterations(int iterations) {
+			this.iterations = iterations;
+			return this;
+		}
+		
+		/**
+		 * Bounds the search by the given time per move.
+		 * Can be combined with withIterations, in which case the search stops at whichever runs out first.
+		 * @param time The number of seconds that the search may take.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withTime(int time) {
+			this.time = time;
+			return this;
+		}
+		
+		/**
+		 * Enables tree parallelism: the given number of threads search the same tree. A thread counts 
+		 * its visits before their outcome is known, so that the others avoid its path: the virtual loss.
+		 * @param threads The number of threads per tree.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enableTreeParallelism(int threads) {
+			assert (threads > 0);
+			this.threads = threads;
+			return this;
+		}
+		
+		/**
+		 * Enables root parallelism: the given number of independent trees are searched at the same time,
+		 * after which the visits of the children of their roots are summed to choose the move.
+		 * Can be combined with enableTreeParallelism, in which case every tree gets its own threads.
+		 * @param trees The number of trees.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enableRootParallelism(int trees) {
+			assert (trees > 0);
+			this.trees = trees;
+			return this;
+		}
+		
+		/**
+		 * Sets the exploration constant of UCT, which is sqrt(2) by default.
+		 * @param exploration The weight of the exploration term.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withExploration(double exploration) {
+			assert (exploration >= 0);
+			this.exploration = exploration;
+			return this;
+		}
+		
+		/**
+		 * Enables priors: the children of a node are rated by the evaluator when the node is expanded.
+		 * The ratings are scaled to [0, 1] and added to the UCT value with the given weight, 
+		 * divided by the number of visits of the child.
+		 * @param priorWeight The weight of the priors.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enablePriors(double priorWeight) {
+			assert (priorWeight > 0);
+			this.priors = true;
+			this.priorWeight = priorWeight;
+			return this;
+		}
+		
+		/**
+		 * Sets the number of random moves after which a playout is decided by the evaluator.
+		 * @param playoutDepth The maximum number of plies of a playout.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withPlayoutDepth(int playoutDepth) {
+			assert (playoutDepth >= 0);
+			this.playoutDepth = playoutDepth;
+			return this;
+		}
+		
+		/**
+		 * Sets the maximum number of nodes per tree. Every tree takes 18 bytes per node,
+		 * which are allocated when the Mcts is built. Once a tree is full, its leaves are no longer
+		 * expanded, but the search continues.
+		 * @param maxNodes The maximum number of nodes per tree.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withMaxNodes(int maxNodes) {
+			this.maxNodes = maxNodes;
+			return this;
+		}
+		
+		/**
+		 * Builds an Mcts from the given arguments.
+		 * @param gameState GameState for which the Mcts will work.
+		 * @param evaluator The GameStateEvaluator that decides unfinished playouts and provides the priors,
+		 *     or null to decide unfinished playouts by the number of conquered marbles.
+		 * @return An Mcts from the given build arguments.
+		 * @throws IllegalBuildException If neither withIterations nor withTime was called, 
+		 *     or if the trees cannot hold the children of the root.
+		 */
+		public Mcts build(GameState gameState, GameStateEvaluator evaluator) throws IllegalBuildException {
+			if (iterations <= 0 && time <= 0) {
+				throw new IllegalBuildException("Build must use iterations or time.");
+			}
+			if (maxNodes <= Move.allLegalMoves(gameState).size()) {
+				throw new IllegalBuildException("maxNodes must be larger than the number of legal moves.");
+			}
+			double weight = 0;
+			if (priors) {
+				if (evaluator != null) {
+					weight = priorWeight;
+				} else {
+					System.err.println("Warning: Priors require an evaluator. "
+							+ "Continuing program execution without priors.");
+				}
+			}
+			return new Mcts(gameState, evaluator, iterations, time, 
+					threads, trees, exploration, weight, playoutDepth, maxNodes);
+		}
+	}
+}
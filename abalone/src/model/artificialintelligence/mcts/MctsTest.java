@@ -0,0 +1,130 @@
+package model.artificialintelligence.mcts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.artificialintelligence.minimax.GameStateEvaluator;
+import model.exceptions.IllegalBuildException;
+import model.gamelogic.GameState;
+import model.gamelogic.Move;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Player;
+
+class MctsTest {
+	//
+	GameState gameState;
+	GameStateEvaluator evaluator;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		gameState = new GameState(Arrays.asList(
+				Player.newPlayer("x", "random"), Player.newPlayer("y", "random")));
+		evaluator = new GameStateEvaluator.Builder()
+				.withMarbleConqueredWeight(100)
+				.withDistanceFromCenterWeight(4)
+				.build();
+		gameState.gameStats.initializeTurn();
+	}
+	
+	@Test
+	void testMctsProvidesLegalMoveWithinIterations() {
+		Mcts mcts = new Mcts.Builder()
+				.withIterations(200)
+				.withPlayoutDepth(2)
+				.enablePriors(1)
+				.build(gameState, evaluator);
+		PlayableMove move = mcts.getBestMove();
+		assertTrue(Move.allLegalMoves(gameState).contains(move));
+		assertEquals(200, gameState.gameStats.currentTurnCommittedDepth.nodesVisited);
+		assertTrue(gameState.gameStats.currentTurnCommittedDepth.depth > 0);
+	}
+	
+	@Test
+	void testTreeAndRootParallelMctsShareTheIterations() {
+		Mcts mcts = new Mcts.Builder()
+				.withIterations(200)
+				.withPlayoutDepth(2)
+				.enableTreeParallelism(2)
+				.enableRootParallelism(2)
+				.build(gameState, evaluator);
+		PlayableMove move = mcts.getBestMove();
+		assertTrue(Move.allLegalMoves(gameState).contains(move));
+		assertEquals(200, gameState.gameStats.currentTurnCommittedDepth.nodesVisited);
+	}
+	
+	@Test
+	void testTimeBoundMctsProvidesMoveInTime() {
+		int time = 1;
+		Mcts mcts = new Mcts.Builder()
+				.withTime(time)
+				.enableTreeParallelism(2)
+				.build(gameState, null);
+		long startTime = System.nanoTime();
+		PlayableMove move = mcts.getBestMove();
+		long duration = (System.nanoTime() - startTime) / 1000000;
+		assertNotNull(move);
+		assertTrue(duration < time * 1000 + 500, 
+				"getBestMove() should be supplied in the given "
+				+ "time + at maximum 500 milliseconds delay but the extra delay was: "
+				+ (duration - time * 1000));
+	}
+	
+	@Test
+	void testMctsThrowsWithoutBudget() {
+		assertThrows(IllegalBuildException.class, () -> new Mcts.Builder().build(gameState, evaluator));
+	}
+	
+	@Test
+	void testUnvisitedChildrenAreSelectedInTheOrderOfTheirPriors() {
+		Mcts mcts = new Mcts.Builder()
+				.withIterations(1)
+				.enablePriors(1)
+				.build(gameState, evaluator);
+		NodeStore tree = new NodeStore(4);
+		tree.clear();
+		assertTrue(tree.tryStartExpansion(NodeStore.ROOT));
+		int first = tree.allocate(3);
+		tree.finishExpansion(NodeStore.ROOT, first, 3);
+		tree.setPrior(first, 0.2f);
+		tree.setPrior(first + 1, 0.5f);
+		tree.setPrior(first + 2, 1f);
+		
+		assertEquals(first + 2, mcts.select(tree, NodeStore.ROOT));
+		tree.addVisit(first + 2);
+		assertEquals(first + 1, mcts.select(tree, NodeStore.ROOT));
+		tree.addVisit(first + 1);
+		assertEquals(first, mcts.select(tree, NodeStore.ROOT));
+	}
+	
+	@Test
+	void testNodeStoreCountsVirtualLossesAndStopsExpandingWhenFull() {
+		NodeStore tree = new NodeStore(4);
+		tree.clear();
+		assertTrue(tree.tryStartExpansion(NodeStore.ROOT));
+		assertFalse(tree.tryStartExpansion(NodeStore.ROOT));
+		assertFalse(tree.isExpanded(NodeStore.ROOT));
+		int first = tree.allocate(2);
+		tree.finishExpansion(NodeStore.ROOT, first, 2);
+		assertTrue(tree.isExpanded(NodeStore.ROOT));
+		assertEquals(2, tree.getChildCount(NodeStore.ROOT));
+		
+		// A visit counts as a loss until its reward is added.
+		tree.addVisit(first);
+		tree.addVisit(first);
+		assertEquals(2, tree.getVisits(first));
+		assertEquals(0, tree.getReward(first));
+		tree.addReward(first, 2);
+		tree.addReward(first, 1);
+		assertEquals(2, tree.getVisits(first));
+		assertEquals(3, tree.getReward(first));
+		
+		assertTrue(tree.tryStartExpansion(first));
+		assertEquals(-1, tree.allocate(2));
+		assertFalse(tree.isExpanded(first));
+		assertEquals(3, tree.size());
+	}
+}
@@ -0,0 +1,156 @@
+package model.artificialintelligence.mcts;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Monte Carlo search tree stored in preallocated arrays, indexed by node, instead of as node objects.
+ * A node takes 18 bytes: its visits and reward packed in a long, the index of its first child, 
+ * its number of children and its prior. Children are allocated consecutively, so the i-th child of a
+ * node belongs to the i-th move of Move.allLegalMoves, whose order is deterministic.
+ * The store can be shared by multiple threads: visits and rewards are updated atomically 
+ * and only one thread can expand a node.
+ */
+class NodeStore {
+	//
+	static final int ROOT = 0;
+	// The first child of a node that has not been expanded yet.
+	static final int UNEXPANDED = -1;
+	// The first child of a node that is being expanded, or that cannot be expanded as the store is full.
+	static final int LEAF = -2;
+	
+	private static final long VISIT = 1L << 32;
+	private static final long REWARD_MASK = VISIT - 1;
+	
+	// The number of visits in the upper 32 bits, the reward in half points in the lower 32 bits.
+	private final AtomicLongArray stats;
+	private final AtomicIntegerArray firstChild;
+	private final short[] childCount;
+	private final float[] prior;
+	private final AtomicInteger size = new AtomicInteger(0);
+	
+	/**
+	 * Creates a store for the given number of nodes, which are allocated right away.
+	 * @param capacity The maximum number of nodes of the tree.
+	 */
+	NodeStore(int capacity) {
+		assert (capacity > 0);
+		stats = new AtomicLongArray(capacity);
+		firstChild = new AtomicIntegerArray(capacity);
+		childCount = new short[capacity];
+		prior = new float[capacity];
+	}
+	
+	/**
+	 * Removes all nodes and creates a new, unexpanded root.
+	 * Must not be called while other threads use the store.
+	 */
+	void clear() {
+		size.set(0);
+		allocate(1);
+	}
+	
+	/**
+	 * Allocates the given number of consecutive, unvisited and unexpanded nodes.
+	 * @param count The number of nodes to allocate.
+	 * @return The index of the first allocated node, or -1 if the store does not have enough room left.
+	 */
+	int allocate(int count) {
+		int first;
+		do {
+			first = size.get();
+			if (first + count > getCapacity()) {
+				return -1;
+			}
+		} while (!size.compareAndSet(first, first + count));
+		for (int node = first; node < first + count; node++) {
+			stats.set(node, 0);
+			firstChild.set(node, UNEXPANDED);
+			childCount[node] = 0;
+			prior[node] = 0;
+		}
+		return first;
+	}
+	
+	int getCapacity() {
+		return stats.length();
+	}
+	
+	int size() {
+		return size.get();
+	}
+	
+	/**
+	 * Claims the expansion of the given node for the calling thread.
+	 * Until finishExpansion is called, the node is a leaf for the other threads.
+	 * @param node The node to expand.
+	 * @return True if the calling thread has to expand the node, false if it is already (being) expanded.
+	 */
+	boolean tryStartExpansion(int node) {
+		return firstChild.compareAndSet(node, UNEXPANDED, LEAF);
+	}
+	
+	/**
+	 * Publishes the children of a node whose expansion was claimed with tryStartExpansion.
+	 * The children and their priors must have been written before.
+	 * @param node The expanded node.
+	 * @param first The index of the first child.
+	 * @param count The number of children.
+	 */
+	void finishExpansion(int node, int first, int count) {
+		childCount[node] = (short) count;
+		firstChild.set(node, first);
+	}
+	
+	boolean isExpanded(int node) {
+		return firstChild.get(node) >= 0;
+	}
+	
+	int getFirstChild(int node) {
+		return firstChild.get(node);
+	}
+	
+	int getChildCount(int node) {
+		return childCount[node];
+	}
+	
+	float getPrior(int node) {
+		return prior[node];
+	}
+	
+	void setPrior(int node, float value) {
+		prior[node] = value;
+	}
+	
+	int getVisits(int node) {
+		return (int) (stats.get(node) >>> 32);
+	}
+	
+	/**
+	 * Returns the reward of the given node in half points: a win is worth 2, a draw 1 and a loss 0.
+	 * @param node The node whose reward is returned.
+	 * @return The sum of the rewards of all visits that have been backed up.
+	 */
+	int getReward(int node) {
+		return (int) (stats.get(node) & REWARD_MASK);
+	}
+	
+	/**
+	 * Counts a visit of the node before its reward is known. Until addReward is called, the visit
+	 * counts as a loss, which steers the other threads towards other nodes: the virtual loss.
+	 * @param node The visited node.
+	 */
+	void addVisit(int node) {
+		stats.addAndGet(node, VISIT);
+	}
+	
+	/**
+	 * Adds the reward of a visit that was counted before with addVisit.
+	 * @param node The visited node.
+	 * @param reward The reward in half points.
+	 */
+	void addReward(int node, int reward) {
+		stats.addAndGet(node, reward);
+	}
+}
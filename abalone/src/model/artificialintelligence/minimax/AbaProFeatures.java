@@ -0,0 +1,144 @@
+package model.artificialintelligence.minimax;
+
+import java.util.Arrays;
+
+import model.gamelogic.Board;
+import model.gamelogic.GameState;
+import model.gamelogic.Player;
+import model.gamelogic.Team;
+
+/**
+ * The running totals of computeRatingAbaPro for every team of a gameState: the sums of the coordinates
+ * of the marbles on the board and their number, from which the center of mass of every team follows.
+ * A marble only affects the totals of its own field, see IncrementalFeatures.
+ * The rating is computed from the totals without creating any Hexes, with the distances between
+ * all fields of the board looked up in a table. The rounding of Hex.divide is replicated exactly,
+ * so that the rating is equal to that of computeRatingAbaPro.
+ */
+class AbaProFeatures extends IncrementalFeatures {
+	//
+	static final int SUM_Q = 0;
+	static final int SUM_R = 1;
+	static final int ON_BOARD = 2;
+	static final int NR_OF_FEATURES = 3;
+	// The distance at which a captured marble is from R, see Marble.computeDistanceFromR.
+	private static final int CAPTURED_DISTANCE = 100;
+	private static final int RADIUS = Board.BOARD_RADIUS - 1;
+	private static final int STRIDE = 2 * RADIUS + 1;
+	
+	// The distance between every two fields of the board by index.
+	private static final int[][] DISTANCES = new int[HEXES.size()][HEXES.size()];
+	// The index of the field at axial coordinates (q, r) at [q + RADIUS][r + RADIUS], or -1.
+	private static final int[][] FIELDS = new int[STRIDE][STRIDE];
+	
+	static {
+		for (int[] row : FIELDS) {
+			Arrays.fill(row, -1);
+		}
+		for (int i = 0; i < HEXES.size(); i++) {
+			FIELDS[HEXES.get(i).coordQ + RADIUS][HEXES.get(i).coordR + RADIUS] = i;
+			for (int j = 0; j < HEXES.size(); j++) {
+				DISTANCES[i][j] = HEXES.get(i).distance(HEXES.get(j));
+			}
+		}
+	}
+	
+	// The number of marbles of every team, on the board or captured, by team number.
+	private final int[] nrOfMarbles;
+	// The coordinates of the last hex computed by round.
+	private int roundedQ;
+	private int roundedR;
+	
+	/**
+	 * Computes the totals of the current gameState from scratch.
+	 * @param gameState The gameState, whose moves must be passed to beforeMove and afterMove from now on.
+	 */
+	AbaProFeatures(GameState gameState) {
+		super(gameState, NR_OF_FEATURES, 0);
+		this.nrOfMarbles = new int[totals.length];
+		for (Team team : gameState.getTeams()) {
+			for (Player player : team.players) {
+				nrOfMarbles[gameState.getTeamNumber(team)] += player.getMarbles().size();
+			}
+		}
+		initialize();
+	}
+	
+	@Override
+	void addFeatures(int field, int sign) {
+		int[] total = totals[teams[field]];
+		total[SUM_Q] += sign * HEXES.get(field).coordQ;
+		total[SUM_R] += sign * HEXES.get(field).coordR;
+		total[ON_BOARD] += sign;
+	}
+	
+	/**
+	 * Rates the board of the totals like computeRatingAbaPro, see get.
+	 * @param optimizingTeam The team for which the gameState is being optimized.
+	 * @return The rating of computeRatingAbaPro.
+	 * @throws ArithmeticException If a team has no marbles on the board, like Hex.divide.
+	 */
+	int rate(Team optimizingTeam) {
+		// The reference point R: the center of mass of every team with a weight of 3,
+		// the center of the board with a weight of 1.
+		int referenceQ = 0;
+		int referenceR = 0;
+		for (int team = 1; team < totals.length; team++) {
+			int[] total = totals[team];
+			if (total[ON_BOARD] == 0) {
+				throw new ArithmeticException("Division by 0.");
+			}
+			round(total[SUM_Q], total[SUM_R], total[ON_BOARD]);
+			referenceQ += 3 * roundedQ;
+			referenceR += 3 * roundedR;
+		}
+		round(referenceQ, referenceR, (totals.length - 1) * 3 + 1);
+		int reference = Math.abs(roundedQ) <= RADIUS && Math.abs(roundedR) <= RADIUS 
+				? FIELDS[roundedQ + RADIUS][roundedR + RADIUS] 
+				: -1;
+		
+		int optimizingTeamNr = getGameState().getTeamNumber(optimizingTeam);
+		int score = 0;
+		for (int team = 1; team < totals.length; team++) {
+			int captured = nrOfMarbles[team] - totals[team][ON_BOARD];
+			score += team == optimizingTeamNr ? -CAPTURED_DISTANCE * captured : CAPTURED_DISTANCE * captured;
+		}
+		for (int field = 0; field < teams.length; field++) {
+			if (teams[field] == 0) {
+				continue;
+			}
+			int distance = reference != -1 ? DISTANCES[field][reference] : distanceFromRounded(field);
+			score += teams[field] == optimizingTeamNr ? -distance : distance;
+		}
+		return score;
+	}
+	
+	/**
+	 * Divides the coordinates by k and rounds them to a hex exactly like Hex.divide,
+	 * storing the result in roundedQ and roundedR.
+	 */
+	private void round(int q, int r, int k) {
+		double fractionalQ = q / (double) k + 1e-06;
+		double fractionalR = r / (double) k + 2e-06;
+		double fractionalS = (-q - r) / (double) k - 3e-06;
+		int qi = (int) Math.round(fractionalQ);
+		int ri = (int) Math.round(fractionalR);
+		int si = (int) Math.round(fractionalS);
+		double diffQ = Math.abs(qi - fractionalQ);
+		double diffR = Math.abs(ri - fractionalR);
+		double diffS = Math.abs(si - fractionalS);
+		if (diffQ > diffR && diffQ > diffS) {
+			qi = -ri - si;
+		} else if (diffR > diffS) {
+			ri = -qi - si;
+		}
+		roundedQ = qi;
+		roundedR = ri;
+	}
+	
+	private int distanceFromRounded(int field) {
+		int dq = HEXES.get(field).coordQ - roundedQ;
+		int dr = HEXES.get(field).coordR - roundedR;
+		return (Math.abs(dq) + Math.abs(dr) + Math.abs(dq + dr)) / 2;
+	}
+}
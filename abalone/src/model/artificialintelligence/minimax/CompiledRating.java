@@ -0,0 +1,120 @@
+package model.artificialintelligence.minimax;
+
+/**
+ * The Papadopoulos rating of a GameStateEvaluator, compiled from its weights: only the terms with a
+ * weight other than 0 are kept, as the indices of their features with their signed weights, and the
+ * factors of the normalization are computed once. Rating a gameState is then a fixed loop over the
+ * features of the teams, without any checks of the weights or of the settings of the evaluator.
+ * As in computeRatingPapadopoulos, the coherence and the distance from the center are summed over
+ * the teams, while the other terms are those of the last team only.
+ */
+final class CompiledRating {
+	//
+	private final boolean considerEnemyPosition;
+	private final int marblesConqueredWeight;
+	// The features that are summed over the teams, and their weights for the optimizing team.
+	private final int[] summedFeatures;
+	private final int[] summedWeights;
+	// The features of which only the last team counts, and their weights for the optimizing team.
+	private final int[] lastTeamFeatures;
+	private final int[] lastTeamWeights;
+	private final int negativeFactor;
+	private final int positiveFactor;
+	
+	/**
+	 * Compiles the rating.
+	 * @param weights The weights of the terms, in the order of GameStateEvaluator.getWeights.
+	 * @param considerEnemyPosition Whether the features of the other teams are subtracted.
+	 * @param ratingLowerBound The lower bound of the normalization, or 0 if negative ratings are not normalized.
+	 * @param ratingUpperBound The upper bound of the normalization, or 0 if positive ratings are not normalized.
+	 */
+	CompiledRating(int[] weights, boolean considerEnemyPosition, int ratingLowerBound, int ratingUpperBound) {
+		this.considerEnemyPosition = considerEnemyPosition;
+		this.marblesConqueredWeight = weights[0];
+		int[][] summed = compile(
+				new int[] {PapadopoulosFeatures.COHERENCE, PapadopoulosFeatures.DISTANCE},
+				new int[] {weights[1], -weights[2]});
+		this.summedFeatures = summed[0];
+		this.summedWeights = summed[1];
+		int[][] lastTeam = compile(
+				new int[] {PapadopoulosFeatures.FORMATION_BREAK, PapadopoulosFeatures.IMMEDIATE_DANGER,
+						PapadopoulosFeatures.SINGLE_DANGER, PapadopoulosFeatures.DOUBLE_DANGER},
+				new int[] {weights[3], -weights[4], -weights[5], -weights[6]});
+		this.lastTeamFeatures = lastTeam[0];
+		this.lastTeamWeights = lastTeam[1];
+		this.negativeFactor = ratingLowerBound != 0 ? -GameStateEvaluator.MAX_WEIGHT / ratingLowerBound : 1;
+		this.positiveFactor = ratingUpperBound != 0 ? GameStateEvaluator.MAX_WEIGHT / ratingUpperBound : 1;
+	}
+	
+	/**
+	 * Removes the features whose weight is 0.
+	 * @return The remaining features and their weights.
+	 */
+	private static int[][] compile(int[] features, int[] weights) {
+		int size = 0;
+		for (int weight : weights) {
+			size += weight != 0 ? 1 : 0;
+		}
+		int[][] result = new int[2][size];
+		for (int i = 0, j = 0; i < features.length; i++) {
+			if (weights[i] != 0) {
+				result[0][j] = features[i];
+				result[1][j] = weights[i];
+				j++;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns whether the rating depends on the features of the marbles.
+	 * @return False if only the marbles conquered have a weight other than 0.
+	 */
+	boolean hasFeatures() {
+		return summedFeatures.length > 0 || lastTeamFeatures.length > 0;
+	}
+	
+	/**
+	 * Rates the features.
+	 * @param features The features of every team by team number, indexed by the feature constants of
+	 *     PapadopoulosFeatures. Only those of the optimizing team are used if the enemy position is not
+	 *     considered.
+	 * @param optimizingTeam The number of the team for which the gameState is being optimized.
+	 * @param marblesConqueredRating The marbles conquered by the optimizing team minus those of the others.
+	 * @return The normalized rating.
+	 */
+	int rate(int[][] features, int optimizingTeam, int marblesConqueredRating) {
+		int result = marblesConqueredRating * marblesConqueredWeight;
+		int lastTeam = optimizingTeam;
+		if (considerEnemyPosition) {
+			lastTeam = features.length - 1;
+			for (int team = 1; team < features.length; team++) {
+				int[] teamFeatures = features[team];
+				int sign = team == optimizingTeam ? 1 : -1;
+				for (int i = 0; i < summedFeatures.length; i++) {
+					result += sign * summedWeights[i] * teamFeatures[summedFeatures[i]];
+				}
+			}
+		} else {
+			int[] teamFeatures = features[optimizingTeam];
+			for (int i = 0; i < summedFeatures.length; i++) {
+				result += summedWeights[i] * teamFeatures[summedFeatures[i]];
+			}
+		}
+		int[] teamFeatures = features[lastTeam];
+		int sign = lastTeam == optimizingTeam ? 1 : -1;
+		for (int i = 0; i < lastTeamFeatures.length; i++) {
+			result += sign * lastTeamWeights[i] * teamFeatures[lastTeamFeatures[i]];
+		}
+		return normalize(result);
+	}
+	
+	/**
+	 * Normalizes the weighted sum of the features, which keeps the order of the ratings.
+	 * @param result The weighted sum of the features.
+	 * @return The normalized rating.
+	 */
+	int normalize(int result) {
+		return result * (result < 0 ? negativeFactor : positiveFactor);
+	}
+}
@@ -2,13 +2,12 @@ package model.artificialintelligence.minimax;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
 
 import model.artificialintelligence.minimax.TranspositionTable.TranspositionValue;
 import model.artificialintelligence.minimax.TranspositionTable.TranspositionValue.Flag;
@@ -23,6 +22,10 @@ import model.gamelogic.Team;
 public abstract class DefaultMinimax implements Minimax {
 	//
 	private static int DEFAULT_DEPTH = 2;
+	/**
+	 * The number of nodes between two checks of the stop flag and the deadline.
+	 */
+	static final int STOP_CHECK_INTERVAL = 64;
 	
 	protected GameState gameState;
 	protected GameStateEvaluator evaluator;
@@ -31,7 +34,62 @@ public abstract class DefaultMinimax implements Minimax {
 	
 	MoveHistoryTable historyTable;
 	protected ReentrantLock gameStateLock = new ReentrantLock();
+	YoungBrothersWait youngBrothersWait = null;
+	YoungBrothersWait.SplitPoint splitPoint = null;
+	Ponder ponder = null;
+	ProofNumberSearch endgameSolver = null;
+	
+	// The minimax whose stop flag and deadline apply to this minimax, which differs for the workers of
+	// the Young Brothers Wait search.
+	DefaultMinimax master = this;
+	private volatile boolean stopRequested = false;
+	private volatile long deadline = Long.MAX_VALUE;
+	private long nodeLimit = Long.MAX_VALUE;
+	private long nodesSearched = 0;
+	private int nodesUntilStopCheck = STOP_CHECK_INTERVAL;
+	boolean stopped = false;
+	
+	// The best root move and its score, published by minimax(depthLimit) as each root move completes,
+	// so that a search that gets stopped halfway through a depth can still use the moves it searched.
+	PlayableMove partialBestMove = null;
+	int partialBestScore = Integer.MIN_VALUE;
+	List<PlayableMove> searchedRootMoves = new ArrayList<>();
 	
+	// With multi-PV, the number of root moves that are searched with an exact score.
+	private int multiPv = 1;
+	// The lines of the latest depth that was searched completely and the board hash of their root.
+	private List<PrincipalVariation> principalVariations = new ArrayList<>();
+	private long principalVariationsBoardHash = 0;
+	// The triangular principal variation table: row d holds the best line below the node at depth d,
+	// of which the move from the node at depth k is at index k, for d <= k < pvLength[d].
+	// The board hash of the node at depth k of the line is at index k of the hash table, up to and
+	// including pvLength[d], so that the line can be recognized in the next iteration.
+	private PlayableMove[][] pvTable = new PlayableMove[0][0];
+	private long[][] pvHashTable = new long[0][0];
+	private int[] pvLength = new int[0];
+	// With PV ordering, the best line of the previous iteration, whose moves are searched first.
+	private boolean pvOrdering = false;
+	// With lazy evaluation, the leaves get the window of the search, see GameStateEvaluator.rateGameState.
+	private boolean lazyEvaluation = false;
+	private PrincipalVariation previousPv = null;
+	
+	// The root moves of the current turn with their scores of the latest iteration, used for iteration
+	// sorting at the root. Positions in which the optimizing team is to move again after the replies
+	// of the other teams get their own root move list, which is continued in the next turn. These are
+	// only recorded under the first root move of an iteration, the best move of the previous one, as
+	// only the positions under the move that is played can be the root of the next turn.
+	RootMoveList rootMoves = null;
+	Map<Long, RootMoveList> nextRootMoves = new HashMap<>();
+	boolean recordingNextRootMoves = false;
+	// The move pickers of the nodes that are being searched, by depth.
+	private List<MovePicker> movePickers = new ArrayList<>();
+	
+	// The running totals of the features of the evaluator, updated by makeMove and undoMove.
+	private IncrementalFeatures features = null;
+	
+	// With Best-Reply Search, the passes that follow each move in the search, see makeMove.
+	private boolean bestReplySearch		= false;
+	private Deque<Integer> passes = new ArrayDeque<>();
 	private boolean windowNarrowing		= false;
 	private boolean evaluateSorting		= false;
 	int evaluateSortingMinDepth			= 0;
@@ -63,6 +121,28 @@ public abstract class DefaultMinimax implements Minimax {
 		this.windowNarrowing = true;
 	}
 	
+	/**
+	 * Enables Best-Reply Search for games of more than two teams: instead of letting every opponent
+	 * reply in turn, as Paranoid search does, all opponents are collapsed into a single layer in which
+	 * only the opponent with the best reply moves while the others pass. 
+	 * A round then takes two plies regardless of the number of teams.
+	 */
+	void enableBestReplySearch() {
+		this.bestReplySearch = true;
+	}
+	
+	/**
+	 * Enables multi-PV: the given number of best root moves are searched with an exact score and
+	 * principal variation, see getPrincipalVariations. Instead of one search per line, the root moves
+	 * are searched once, with a window that only excludes the moves that cannot enter the best lines,
+	 * so all lines share the transposition table and the move ordering.
+	 * @param lines The number of lines.
+	 */
+	public void enableMultiPv(int lines) {
+		assert (lines > 0);
+		this.multiPv = lines;
+	}
+	
 	void enableEvaluateSorting(int minDepth, int maxDepth) {
 		this.evaluateSorting = true;
 		this.evaluateSortingMinDepth = minDepth;
@@ -81,94 +161,422 @@ public abstract class DefaultMinimax implements Minimax {
 		this.marbleOrderingMaxDepth = maxDepth;
 	}
 	
+	/**
+	 * Enables PV ordering: at every node of the best line of the previous iteration, 
+	 * the move of that line is searched first, ahead of all other move ordering heuristics.
+	 */
+	void enablePvOrdering() {
+		this.pvOrdering = true;
+	}
+	
+	/**
+	 * Enables lazy evaluation: a leaf whose rating is certainly outside of the window of the search by
+	 * the marbles conquered and the distance from the center alone is not rated any further.
+	 */
+	void enableLazyEvaluation() {
+		this.lazyEvaluation = true;
+	}
+	
 	void enableIterationSorting(int minDepth, int maxDepth) {
 		this.iterationSorting = true;
 		this.iterationSortingMinDepth = minDepth;
 		this.iterationSortingMaxDepth = maxDepth;
 	}
 	
+	void enableYoungBrothersWait(int threads) {
+		this.youngBrothersWait = new YoungBrothersWait(threads);
+	}
+	
+	void enablePondering(int maxDepth, int time) {
+		this.ponder = new Ponder(this, maxDepth, time);
+	}
+	
+	void enableEndgameSolver(int nodes) {
+		this.endgameSolver = new ProofNumberSearch(gameState, nodes);
+	}
+	
+	/**
+	 * Starts searching the predicted reply to the given move in the background, if pondering is enabled.
+	 * The search is stopped by the next call to getBestMove.
+	 * @param move The move that the current player of the gameState is about to make.
+	 */
+	public void startPondering(PlayableMove move) {
+		if (ponder != null) {
+			ponder.start(move);
+		}
+	}
+	
+	/**
+	 * Stops pondering without using the result of the ponder search, for a turn in which this minimax
+	 * does not search, such as a turn that is played from the opening book. The entries of the ponder
+	 * search in the transposition table remain.
+	 */
+	public void cancelPondering() {
+		if (ponder != null) {
+			ponder.stop();
+		}
+	}
+	
+	/**
+	 * Returns whether a ponder search was started and has not been stopped yet.
+	 * @return True if the ponder search may still be running, false otherwise.
+	 */
+	public boolean isPondering() {
+		return ponder != null && ponder.thread != null;
+	}
+	
+	/**
+	 * Stops pondering. On a ponder hit, the depth completed by the ponder search is registered.
+	 * @return The result of the ponder search on a ponder hit, null otherwise.
+	 */
+	Ponder.Result stopPondering() {
+		if (ponder == null) {
+			return null;
+		}
+		Ponder.Result result = ponder.stop();
+		if (result != null) {
+			gameState.gameStats.registerDepth(result.depth);
+			gameState.gameStats.commitDepth();
+		}
+		return result;
+	}
+	
+	/**
+	 * Searches for a forced win with the endgame solver, if it is enabled and any team has conquered
+	 * ProofNumberSearch.ENDGAME_MARBLES marbles. The nodes of a proven win are registered as a 
+	 * committed depth, as the normal search is skipped.
+	 * @return The first move of a forced win if one has been proven, null otherwise.
+	 */
+	PlayableMove solveEndgame() {
+		if (endgameSolver == null || !ProofNumberSearch.isEndgame(gameState)) {
+			return null;
+		}
+		PlayableMove result = endgameSolver.solve();
+		if (result != null) {
+			gameState.gameStats.addNodesVisited(endgameSolver.getNodes());
+			gameState.gameStats.registerScore(Integer.MAX_VALUE);
+			gameState.gameStats.commitDepth();
+		}
+		return result;
+	}
+	
+	/**
+	 * Copies the heuristic settings of this minimax to the other minimax, 
+	 * so that it orders and prunes moves in the same way.
+	 * @param other The minimax that receives the settings of this minimax.
+	 */
+	void copyHeuristicsTo(DefaultMinimax other) {
+		other.bestReplySearch = bestReplySearch;
+		other.windowNarrowing = windowNarrowing;
+		other.evaluateSorting = evaluateSorting;
+		other.evaluateSortingMinDepth = evaluateSortingMinDepth;
+		other.evaluateSortingMaxDepth = evaluateSortingMaxDepth;
+		other.historyHeuristicSorting = historyHeuristicSorting;
+		other.historyHeuristicSortingMinDepth = historyHeuristicSortingMinDepth;
+		other.historyHeuristicSortingMaxDepth = historyHeuristicSortingMaxDepth;
+		other.marbleOrdering = marbleOrdering;
+		other.marbleOrderingMinDepth = marbleOrderingMinDepth;
+		other.marbleOrderingMaxDepth = marbleOrderingMaxDepth;
+		other.iterationSorting = iterationSorting;
+		other.iterationSortingMinDepth = iterationSortingMinDepth;
+		other.iterationSortingMaxDepth = iterationSortingMaxDepth;
+		other.pvOrdering = pvOrdering;
+		other.lazyEvaluation = lazyEvaluation;
+		other.previousPv = previousPv;
+	}
+	
+	/**
+	 * Requests the running search to stop. The search notices the request within 
+	 * STOP_CHECK_INTERVAL nodes, after which minimax returns null. Cleared by startSearch.
+	 */
+	void stop() {
+		stopRequested = true;
+	}
+	
+	/**
+	 * Clears the stop flag and sets the deadline of the searches that follow.
+	 * @param deadline The time in milliseconds since the epoch at which the search stops,
+	 *     or Long.MAX_VALUE if the search is not bound by time.
+	 */
+	void startSearch(long deadline) {
+		startSearch(deadline, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Clears the stop flag and sets the deadline and the node limit of the searches that follow.
+	 * Unlike the deadline, the node limit makes the searches deterministic.
+	 * @param deadline The time in milliseconds since the epoch at which the search stops,
+	 *     or Long.MAX_VALUE if the search is not bound by time.
+	 * @param nodeLimit The number of nodes after which the search stops, 
+	 *     counted over all searches that follow, or Long.MAX_VALUE if the search is not bound by nodes.
+	 */
+	void startSearch(long deadline, long nodeLimit) {
+		this.deadline = deadline;
+		this.nodeLimit = nodeLimit;
+		this.nodesSearched = 0;
+		this.stopRequested = false;
+	}
+	
+	/**
+	 * Returns whether the search has been requested to stop, has passed its deadline or has
+	 * exceeded its node limit.
+	 * @return True if the search should stop, false otherwise.
+	 */
+	boolean isStopRequested() {
+		return master.stopRequested 
+				|| nodesSearched >= nodeLimit
+				|| System.currentTimeMillis() >= master.deadline;
+	}
+	
+	/**
+	 * Checks whether the search should stop. The stop flag and the deadline are checked every 
+	 * STOP_CHECK_INTERVAL nodes, whereas aborted split points are checked at every node.
+	 * Every call counts as a searched node towards the node limit.
+	 * Once the search stops, it stays stopped until the next call to minimax(depthLimit).
+	 * @return True if the search should stop, false otherwise.
+	 */
+	private boolean shouldStop() {
+		nodesSearched++;
+		if (!stopped && --nodesUntilStopCheck <= 0) {
+			nodesUntilStopCheck = STOP_CHECK_INTERVAL;
+			stopped = isStopRequested();
+		}
+		if (!stopped && splitPoint != null && splitPoint.isAborted()) {
+			stopped = true;
+		}
+		return stopped;
+	}
+	
+	/**
+	 * Returns the best move of an iterative deepening search after a depth was stopped halfway through.
+	 * The best move of the stopped depth is taken if it is better than the best move of the previous
+	 * depth: either its score is higher, or the previous best move has been searched at the deeper
+	 * depth as well.
+	 * @param bestMove The best move of the previous depth, may be null.
+	 * @param bestScore The score of the best move of the previous depth.
+	 * @return The better of the two moves.
+	 */
+	PlayableMove bestMoveAfterStoppedDepth(PlayableMove bestMove, int bestScore) {
+		if (partialBestMove != null 
+				&& (partialBestScore > bestScore || searchedRootMoves.contains(bestMove))) {
+			return partialBestMove;
+		}
+		return bestMove;
+	}
+	
 	public void resetHistoryTable() {
 		this.historyTable = new MoveHistoryTable();
 	}
 	
 	@Override
  	public PlayableMove getBestMove() {
-		try {
-			return minimax(DEFAULT_DEPTH);
-		} catch (InterruptedException e) {
-			return null;
-		}
+		return minimax(DEFAULT_DEPTH);
 	}
 	
 	@Override
 	public GameState getGameState() {
 		return this.gameState;
 	}
+	
+	@Override
+	public List<PrincipalVariation> getPrincipalVariations() {
+		if (principalVariationsBoardHash != gameState.getBoard().getBoardHash()) {
+			return new ArrayList<>();
+		}
+		return principalVariations;
+	}
+	
+	/**
+	 * Makes sure that the principal variation table can hold the lines of a search till depthLimit.
+	 * The table is only reallocated for a deeper search, never while searching.
+	 * @param depthLimit The maximum depth that can be reached by the DFS.
+	 */
+	void resizePvTable(int depthLimit) {
+		if (pvTable.length <= depthLimit) {
+			pvTable = new PlayableMove[depthLimit + 1][depthLimit];
+			pvHashTable = new long[depthLimit + 1][depthLimit + 1];
+			pvLength = new int[depthLimit + 1];
+		}
+	}
+	
+	/**
+	 * Makes the move followed by the line of its child the line of the node at the given depth.
+	 * @param depth The depth of the node.
+	 * @param move The move from the node that raised its score within the window.
+	 * @param searchedHere Whether the child was searched by this minimax. The lines of the children
+	 *     that were searched in parallel by the Young Brothers Wait search end at the move.
+	 */
+	private void updatePv(int depth, PlayableMove move, boolean searchedHere) {
+		pvTable[depth][depth] = move;
+		if (searchedHere) {
+			int childLength = pvLength[depth + 1];
+			System.arraycopy(pvTable[depth + 1], depth + 1, pvTable[depth], depth + 1, childLength - depth - 1);
+			System.arraycopy(pvHashTable[depth + 1], depth + 1, pvHashTable[depth], depth + 1, childLength - depth);
+			pvLength[depth] = childLength;
+		} else {
+			pvHashTable[depth][depth + 1] = GameStateEvaluator.hashOfBoard(pvHashTable[depth][depth], move);
+			pvLength[depth] = depth + 1;
+		}
+	}
+	
+	/**
+	 * Starts the line of the node at the given depth, which is the current position of the gameState.
+	 * @param depth The depth of the node.
+	 */
+	private void startPv(int depth) {
+		pvLength[depth] = depth;
+		pvHashTable[depth][depth] = gameState.getBoard().getBoardHash();
+	}
+	
+	/**
+	 * Adds the root move with its line to the lines, ordered from the highest to the lowest score,
+	 * and drops the lines that no longer belong to the multiPv best.
+	 * @param lines The lines of the root moves that were searched so far.
+	 * @param score The exact score of the move.
+	 * @param move The root move, whose line is in row 0 of the principal variation table.
+	 */
+	private void addLine(List<PrincipalVariation> lines, int score, PlayableMove move) {
+		List<PlayableMove> moves = new ArrayList<>(pvLength[0]);
+		for (int i = 0; i < pvLength[0]; i++) {
+			moves.add(pvTable[0][i]);
+		}
+		long[] boardHashes = Arrays.copyOf(pvHashTable[0], pvLength[0] + 1);
+		int index = 0;
+		while (index < lines.size() && lines.get(index).getScore() >= score) {
+			index++;
+		}
+		lines.add(index, new PrincipalVariation(score, moves, boardHashes));
+		if (lines.size() > multiPv) {
+			lines.remove(multiPv);
+		}
+	}
 
 	@Override
 	public List<PlayableMove> getAllLegalMoves(int depth) {
+		return new ArrayList<>(orderMoves(depth));
+	}
+	
+	/**
+	 * Orders the legal moves of the gameState in a single pass: every enabled heuristic contributes
+	 * a term to one combined score per move, see MovePicker. The moves are selected lazily.
+	 * The returned list is reused for the next node at the same depth, so it must not be kept.
+	 * @param depth The depth of the moves, which decides which heuristics are applied.
+	 * @return The legal moves, from the most to the least promising.
+	 */
+	List<PlayableMove> orderMoves(int depth) {
 		assert (depth > 0);
-		List<PlayableMove> allMoves = new ArrayList<PlayableMove>(Move.allLegalMoves(gameState));
-		if (evaluateSorting && evaluateSortingMinDepth <= depth && depth <= evaluateSortingMaxDepth) {
-			allMoves = evaluateSort(allMoves);
+		while (movePickers.size() <= depth) {
+			movePickers.add(new MovePicker());
 		}
-		if (historyHeuristicSorting 
-				&& historyHeuristicSortingMinDepth <= depth 
-				&& depth <= historyHeuristicSortingMaxDepth) {
-			allMoves = historySort(allMoves);
+		MovePicker picker = movePickers.get(depth);
+		picker.clear();
+		boolean evaluate = evaluateSorting 
+				&& evaluateSortingMinDepth <= depth && depth <= evaluateSortingMaxDepth;
+		boolean history = historyHeuristicSorting 
+				&& historyHeuristicSortingMinDepth <= depth && depth <= historyHeuristicSortingMaxDepth;
+		boolean marble = marbleOrdering 
+				&& marbleOrderingMinDepth <= depth && depth <= marbleOrderingMaxDepth;
+		boolean iteration = iterationSorting 
+				&& iterationSortingMinDepth <= depth && depth <= iterationSortingMaxDepth;
+		boolean rootIteration = iteration && depth == 1 && hasRootMoves();
+		boolean rated = false;
+		// The node is on the best line of the previous iteration if its board is that of the line.
+		long boardHash = gameState.getBoard().getBoardHash();
+		boolean onPv = pvOrdering && previousPv != null && depth <= previousPv.getMoves().size()
+				&& previousPv.getBoardHash(depth - 1) == boardHash;
+		PlayableMove pvMove = null;
+		List<PlayableMove> moves = new ArrayList<>(Move.allLegalMoves(gameState));
+		int[] ratings = evaluate ? evaluator.rateMoves(gameState, optimizingTeam, moves, features) : null;
+		for (int i = 0; i < moves.size(); i++) {
+			PlayableMove move = moves.get(i);
+			if (onPv && pvMove == null 
+					&& GameStateEvaluator.hashOfBoard(boardHash, move) == previousPv.getBoardHash(depth)) {
+				pvMove = move;
+			}
+			long score = 0;
+			if (evaluate) {
+				score += MovePicker.evaluationTerm(ratings[i]);
+			}
+			if (history) {
+				score += MovePicker.historyTerm(historyTable.get(move));
+			}
+			if (marble) {
+				score += MovePicker.marbleTerm(moveGroup(move), 
+						move instanceof MoveSumito && ((MoveSumito) move).isCapture());
+			}
+			picker.add(move, score);
+			if (iteration && !rootIteration) {
+				Integer rating = evaluator.getStoredMoveRating(gameState, optimizingTeam, move);
+				if (rating != null) {
+					picker.rate(rating);
+					rated = true;
+				}
+			}
 		}
-		if (marbleOrdering && marbleOrderingMinDepth <= depth && depth <= marbleOrderingMaxDepth) {
-			allMoves = marbleSort(allMoves);
+		if (rated) {
+			picker.rankRatings();
 		}
-		if (iterationSorting && iterationSortingMinDepth <= depth && depth <= iterationSortingMaxDepth) {
-			allMoves = iterationSort(allMoves);
+		if (rootIteration) {
+			// The root is ordered once per iteration, by the root move list instead of the iteration term.
+			picker.reorder(rootMoves.order(new ArrayList<>(picker)));
 		}
-		return allMoves;
-	}
-
-	private List<PlayableMove> evaluateSort(List<PlayableMove> allMoves) {
-		List<ScoredMove> scoredMoves = new ArrayList<>();
-		for (PlayableMove move : allMoves) {
-			scoredMoves.add(new ScoredMove(
-					move, 
-					evaluator.rateMove(gameState, optimizingTeam, move)));
+		if (pvMove != null) {
+			picker.moveToFront(pvMove);
 		}
-		
-		scoredMoves.sort(Comparator.reverseOrder());
-		return scoredMoves.stream()
-			.map((scoredMove) -> scoredMove.move)
-			.collect(Collectors.toList());
+		return picker;
 	}
 	
-	private List<PlayableMove> historySort(List<PlayableMove> allMoves) {
-		List<ScoredMove> scoredMoves = new ArrayList<>();
-		for (PlayableMove move : allMoves) {
-			scoredMoves.add(new ScoredMove(
-					move, 
-					historyTable.get(move)));
-		}
-		
-		scoredMoves.sort(Comparator.reverseOrder());
-		return scoredMoves.stream()
-			.map((scoredMove) -> scoredMove.move)
-			.collect(Collectors.toList());
+	/**
+	 * Returns whether iteration sorting is applied at the root, in which case the root moves are recorded.
+	 * @return True if iteration sorting is enabled for depth 1, false otherwise.
+	 */
+	private boolean isRootIterationSorting() {
+		return iterationSorting && iterationSortingMinDepth <= 1 && 1 <= iterationSortingMaxDepth;
 	}
 	
-	static List<PlayableMove> marbleSort(List<PlayableMove> allMoves) {
-		Map<Integer, List<PlayableMove>> countingSort = new HashMap<>();
-		for (int i = 0; i < 7; i++) {
-			countingSort.put(i, new ArrayList<>());
+	/**
+	 * Returns whether moves have been recorded for the current position of the gameState.
+	 * @return True if the root moves can be ordered by the root move list, false otherwise.
+	 */
+	private boolean hasRootMoves() {
+		return rootMoves != null && !rootMoves.isEmpty() 
+				&& rootMoves.getBoardHash() == gameState.getBoard().getBoardHash();
+	}
+	
+	/**
+	 * Adds the root move lists that a worker recorded for the next turn to those of this minimax.
+	 * @param worker A minimax that searched younger brothers of a node of this minimax.
+	 */
+	void mergeNextRootMoves(DefaultMinimax worker) {
+		nextRootMoves.putAll(worker.nextRootMoves);
+	}
+	
+	/**
+	 * Selects the root move list for the current position of the gameState. In a new turn, the list
+	 * that was recorded for this position while searching the previous turn is continued, if any.
+	 */
+	void selectRootMoves() {
+		long boardHash = gameState.getBoard().getBoardHash();
+		if (rootMoves == null || rootMoves.getBoardHash() != boardHash) {
+			rootMoves = nextRootMoves.get(boardHash);
+			if (rootMoves == null) {
+				rootMoves = new RootMoveList(gameState);
+			}
+			nextRootMoves = new HashMap<>();
 		}
+	}
+
+	/**
+	 * Orders the given moves by their marble group only, see moveGroup.
+	 * @param allMoves The moves to order.
+	 * @return The ordered moves, in their original order within a group.
+	 */
+	static List<PlayableMove> marbleSort(List<PlayableMove> allMoves) {
+		MovePicker picker = new MovePicker();
 		for (PlayableMove move : allMoves) {
-			countingSort.get(moveGroup(move)).add(move);
+			picker.add(move, MovePicker.marbleTerm(moveGroup(move), false));
 		}
-		
-		List<PlayableMove> result = countingSort.get(0);
-		for (int i = 1; i < 7; i++) {
-			result.addAll(countingSort.get(i));
-		}
-		return result;
-		
+		return new ArrayList<>(picker);
 	}
 	
 	/**
@@ -195,78 +603,85 @@ public abstract class DefaultMinimax implements Minimax {
     	}
     }
 	
-	private List<PlayableMove> iterationSort(List<PlayableMove> allMoves) {
-		// Add moves that have a hashed rating to initialSort, then sort it.
-		List<ScoredMove> filteredList = new ArrayList<>();
-		for (PlayableMove move : allMoves) {
-			Integer rating = evaluator.getStoredMoveRating(gameState, optimizingTeam, move);
-			if (rating != null) {
-				filteredList.add(new ScoredMove(move, rating));
-			}
-		}
-		filteredList.sort(Comparator.reverseOrder());
-		List<PlayableMove> filteredSortedList = filteredList
-				.stream()
-				.map((scoredMove) -> scoredMove.move)
-				.collect(Collectors.toList());
-		// Isolate the best oneThird & the worst oneSixth from the initialSort as per the paper.
-		// Remove all elements from these lists in the original list of moves, then add the best
-		// and worst at the front and back of the list respectively.
-		List<PlayableMove> bestOneThird = filteredSortedList
-				.subList(0, filteredSortedList.size() / 3);
-		List<PlayableMove> worstOneSixth = filteredSortedList
-				.subList(filteredSortedList.size() * 5 / 6, filteredSortedList.size());
-		allMoves.removeAll(bestOneThird);
-		allMoves.removeAll(worstOneSixth);
-		allMoves.addAll(0, bestOneThird);
-		allMoves.addAll(worstOneSixth);
-		
-		// Find the indices in allMoves for which the moves have been rated already. 
-		List<Integer> evaluationIndices = new ArrayList<>();
-		for (int i = allMoves.size() / 3; i < allMoves.size() * 5 / 6; i++) {
-			if (filteredSortedList.contains(allMoves.get(i))) {
-				evaluationIndices.add(i);
-			}
-		}
-		// For these indices, apply the sorted ordering.
-		for (int i = 0; i < evaluationIndices.size(); i++) {
-			allMoves.set(evaluationIndices.get(i), 
-					filteredSortedList.get(filteredSortedList.size() / 3 + i));
-		}
-		return allMoves;
-	}
-	
 	/**
 	 * Returns the best rating of the gameState possible for gameState.currentPlayer().getTeam(),
 	 * optimized for this.optimizingTeam
 	 * @param depthLimit How much deeper the DFS will go.
-	 * @return The best move that can be applied to the gameState. 
-	 * @throws InterruptedException If the thread is interrupted while executing this function.
+	 * @return The best move that can be applied to the gameState, or null if the search was stopped.
 	 */
-	protected PlayableMove minimax(int depthLimit) throws InterruptedException {
+	protected PlayableMove minimax(int depthLimit) {
+		stopped = isStopRequested();
+		nodesUntilStopCheck = STOP_CHECK_INTERVAL;
+		partialBestMove = null;
+		partialBestScore = Integer.MIN_VALUE;
+		searchedRootMoves = new ArrayList<>();
+		if (stopped) {
+			return null;
+		}
+		selectRootMoves();
+		resizePvTable(depthLimit);
+		synchronizeFeatures();
+		startPv(0);
 		gameState.gameStats.registerScore(evaluator.rateGameState(gameState, optimizingTeam, true));
 		int bestScore = Integer.MIN_VALUE;
 		PlayableMove bestMove = null;
+		List<PrincipalVariation> lines = new ArrayList<>();
 		gameStateLock.lock();
 		try {
-			List<PlayableMove> legalMoves = getAllLegalMoves(1);
+			List<PlayableMove> legalMoves = orderMoves(1);
 			gameState.gameStats.registerBranchingFactor(legalMoves.size(), 1);
-			for (PlayableMove move : legalMoves) {
-				int score = 0; 
-				try {
-					score = minimax(depthLimit, 1, bestScore, Integer.MAX_VALUE, move);
-				} catch (InterruptedException e) {
-					// Reset the history to return to the actual gameState, then rethrow.
-					while (!history.isEmpty()) {
-						gameState.makeMove(history.removeLast());
+			List<Integer> youngerBrothers = null;
+			for (int i = 0; i < legalMoves.size(); i++) {
+				PlayableMove move = legalMoves.get(i);
+				recordingNextRootMoves = i == 0;
+				// Only a move that scores above the worst of the best lines can enter them, 
+				// which is the best move without multi-PV.
+				int alpha = lines.size() < multiPv ? Integer.MIN_VALUE : lines.get(multiPv - 1).getScore();
+				if (i == 1 && youngBrothersWait != null && youngBrothersWait.isSplitPoint(depthLimit, 0)) {
+					youngerBrothers = youngBrothersWait.searchYoungerBrothers(
+							this, legalMoves, depthLimit, 1, alpha, Integer.MAX_VALUE, true);
+				}
+				long nodesBefore = nodesSearched;
+				Integer score = youngerBrothers == null 
+						? Integer.valueOf(minimax(depthLimit, 1, alpha, Integer.MAX_VALUE, move))
+						: youngerBrothers.get(i - 1);
+				// A stopped search has already returned to the actual gameState, its score is meaningless.
+				// The younger brothers that were searched completely have a score nonetheless.
+				if (stopped && youngerBrothers == null) {
+					break;
+				}
+				if (score != null) {
+					searchedRootMoves.add(move);
+					if (isRootIterationSorting()) {
+						// A move that does not raise the best score only has an upper bound as its score.
+						rootMoves.record(move, score > alpha ? score : Integer.MIN_VALUE, 
+								nodesSearched - nodesBefore);
+					}
+					if (score > alpha) {
+						updatePv(0, move, youngerBrothers == null);
+						addLine(lines, score, move);
 					}
-					throw e;
 				}
-				if (score > bestScore) {
+				if (score != null && score > bestScore) {
 					bestScore = score;
 					bestMove = move;
+					partialBestScore = score;
+					partialBestMove = move;
 				}
 			}
+			if (stopped) {
+				return null;
+			}
+			principalVariations = lines;
+			principalVariationsBoardHash = gameState.getBoard().getBoardHash();
+			if (!lines.isEmpty()) {
+				previousPv = lines.get(0);
+			}
+			List<String> lineNotations = new ArrayList<>();
+			for (PrincipalVariation line : lines) {
+				lineNotations.add(line.toString());
+			}
+			gameState.gameStats.registerPrincipalVariations(lineNotations);
 			// If all moves are losing moves, return an arbitrary move.
 			if (bestMove == null) {
 				System.out.println("All moves are losing. Making an arbitrary move.");
@@ -299,25 +714,27 @@ public abstract class DefaultMinimax implements Minimax {
 	 * @param alpha The minimum score that the maximizing player can guarantee
 	 * @param beta The maximum score that the minimizing player can guarantee
 	 * @param move The move that should be applied to the gameState in this branch or leaf.
-	 * @return the best score that can be attained in the current gameState.
-	 * @throws InterruptedException If the thread is interrupted while executing this function.
+	 * @return the best score that can be attained in the current gameState. 
+	 *     Meaningless if the search was stopped, in which case the gameState is left unchanged.
 	 */
-	protected int minimax(int depthLimit, int currentDepth, int alpha, int beta, PlayableMove move) 
-			throws InterruptedException {
+	protected int minimax(int depthLimit, int currentDepth, int alpha, int beta, PlayableMove move) {
 		assert (currentDepth <= depthLimit);
 		int originalAlpha = alpha;
 		int originalBeta = beta;
-		if (Thread.interrupted()) {
-			throw new InterruptedException();
+		if (shouldStop()) {
+			return 0;
 		}
 		
-		history.addLast(gameState.makeMove(move));
+		makeMove(move);
 		gameState.gameStats.addNodeVisited();
+		startPv(currentDepth);
 		
 		if (currentDepth == depthLimit) { // if leaf node
 			// Will use hashed value if enabled
-			int rating = evaluator.rateGameState(gameState, optimizingTeam); 
-			gameState.makeMove(history.removeLast());
+			int rating = lazyEvaluation 
+					? evaluator.rateGameState(gameState, optimizingTeam, features, alpha, beta) 
+					: evaluator.rateGameState(gameState, optimizingTeam, features); 
+			undoMove();
 			gameState.gameStats.addLeafNode();
 			return rating;
 		}
@@ -332,7 +749,7 @@ public abstract class DefaultMinimax implements Minimax {
 			if (entry != null && entry.depthOfSubtree >= depthLimit - currentDepth) {
 				//System.out.println("Cut made at depth: " + currentDepth);
 				if (entry.flag == Flag.EXACT) {
-					gameState.makeMove(history.removeLast());
+					undoMove();
 					gameState.gameStats.addExactCut();
 					return entry.value;
 				}
@@ -343,7 +760,7 @@ public abstract class DefaultMinimax implements Minimax {
 						beta = Math.min(beta, entry.value);
 					}
 					if (alpha >= beta) {
-						gameState.makeMove(history.removeLast());
+						undoMove();
 						gameState.gameStats.addWindowCut();
 						return entry.value;
 					}
@@ -353,15 +770,46 @@ public abstract class DefaultMinimax implements Minimax {
 		}
 		
 		int best;
-		List<PlayableMove> legalMoves = getAllLegalMoves(currentDepth + 1);
+		List<PlayableMove> legalMoves = orderMoves(currentDepth + 1);
+		boolean isSplitPoint = youngBrothersWait != null 
+				&& youngBrothersWait.isSplitPoint(depthLimit, currentDepth);
+		List<Integer> youngerBrothers = null;
 		if (gameState.getCurrentTeam().equals(optimizingTeam)) {
 			best = Integer.MIN_VALUE;
+			// After the replies of the other teams, record the moves for the root of the next turn.
+			RootMoveList nextRoot = null;
+			if (recordingNextRootMoves && isRootIterationSorting() && currentDepth == getPliesPerRound()) {
+				nextRoot = new RootMoveList(gameState);
+				nextRootMoves.put(nextRoot.getBoardHash(), nextRoot);
+			}
 			
 			// Recursion for all legal moves of yours.
 			int i;
 			for (i = 0; i < legalMoves.size(); i++) {
 				PlayableMove childMove = legalMoves.get(i);
-				int value = minimax(depthLimit, currentDepth + 1, alpha, beta, childMove);
+				// Once the eldest brother is searched, the younger brothers are searched in parallel.
+				if (i == 1 && isSplitPoint) {
+					youngerBrothers = youngBrothersWait.searchYoungerBrothers(
+							this, legalMoves, depthLimit, currentDepth + 1, alpha, beta, true);
+				}
+				long nodesBefore = nodesSearched;
+				Integer value = youngerBrothers == null
+						? Integer.valueOf(minimax(depthLimit, currentDepth + 1, alpha, beta, childMove))
+						: youngerBrothers.get(i - 1);
+				if (stopped) {
+					undoMove();
+					return 0;
+				}
+				if (value == null) { // Aborted because a younger brother caused a cutoff.
+					continue;
+				}
+				if (nextRoot != null) {
+					nextRoot.record(childMove, value > alpha ? value : Integer.MIN_VALUE, 
+							nodesSearched - nodesBefore);
+				}
+				if (value > alpha) {
+					updatePv(currentDepth, childMove, youngerBrothers == null);
+				}
 
 				best = Math.max(alpha, value);
 				alpha = Math.max(alpha, best);
@@ -375,6 +823,45 @@ public abstract class DefaultMinimax implements Minimax {
 			gameState.gameStats.registerBranchingFactor(i, currentDepth + 1);
 			// Save the best results if hashing is enabled.
 			saveResults(originalAlpha, originalBeta, entry, depthLimit, currentDepth, best);
+		} else if (bestReplySearch) {
+			best = Integer.MAX_VALUE;
+			
+			// Recursion for all legal moves of all opponents, which pass until it is their turn.
+			int opponentPasses = 0;
+			int searchedMoves = 0;
+			searchOpponents:
+			while (true) {
+				for (int i = 0; i < legalMoves.size(); i++) {
+					searchedMoves++;
+					PlayableMove childMove = legalMoves.get(i);
+					int value = minimax(depthLimit, currentDepth + 1, alpha, beta, childMove);
+					if (stopped) {
+						undoPasses(opponentPasses);
+						undoMove();
+						return 0;
+					}
+					if (value < beta) {
+						updatePv(currentDepth, childMove, true);
+					}
+					
+					best = Math.min(best, value);
+					beta = Math.min(beta, best);
+					
+					if (alpha >= beta) {
+						historyTable.incrementKills(move, depthLimit - currentDepth);
+						break searchOpponents;
+					}
+				}
+				gameState.passTurn();
+				opponentPasses++;
+				if (gameState.getCurrentTeam().equals(optimizingTeam)) {
+					break;
+				}
+				legalMoves = orderMoves(currentDepth + 1);
+			}
+			undoPasses(opponentPasses);
+			gameState.gameStats.registerBranchingFactor(searchedMoves, currentDepth + 1);
+			saveResults(originalAlpha, originalBeta, entry, depthLimit, currentDepth, best);
 		} else {
 			best = Integer.MAX_VALUE;
 			
@@ -382,7 +869,24 @@ public abstract class DefaultMinimax implements Minimax {
 			int i;
 			for (i = 0; i < legalMoves.size(); i++) {
 				PlayableMove childMove = legalMoves.get(i);
-				int value = minimax(depthLimit, currentDepth + 1, alpha, beta, childMove);
+				// Once the eldest brother is searched, the younger brothers are searched in parallel.
+				if (i == 1 && isSplitPoint) {
+					youngerBrothers = youngBrothersWait.searchYoungerBrothers(
+							this, legalMoves, depthLimit, currentDepth + 1, alpha, beta, false);
+				}
+				Integer value = youngerBrothers == null
+						? Integer.valueOf(minimax(depthLimit, currentDepth + 1, alpha, beta, childMove))
+						: youngerBrothers.get(i - 1);
+				if (stopped) {
+					undoMove();
+					return 0;
+				}
+				if (value == null) { // Aborted because a younger brother caused a cutoff.
+					continue;
+				}
+				if (value < beta) {
+					updatePv(currentDepth, childMove, youngerBrothers == null);
+				}
 
 				best = Math.min(best, value);
 				beta = Math.min(beta, best);
@@ -397,10 +901,73 @@ public abstract class DefaultMinimax implements Minimax {
 			//Save the best results if hashing is enabled and the results are deeper than the previous entry
 			saveResults(originalAlpha, originalBeta, entry, depthLimit, currentDepth, best);
 		}
-		gameState.makeMove(history.removeLast());
+		undoMove();
 		return best;
 	}
 	
+	/**
+	 * Applies the move to the gameState and pushes its undo on the history. With Best-Reply Search,
+	 * the opponents that follow the move of an opponent pass, so that it is the turn of the optimizing
+	 * team again.
+	 * @param move The move of the current player of the gameState.
+	 */
+	private void makeMove(PlayableMove move) {
+		if (features != null) {
+			features.beforeMove(move);
+		}
+		history.addLast(gameState.makeMove(move));
+		if (features != null) {
+			features.afterMove();
+		}
+		if (bestReplySearch) {
+			int nrOfPasses = 0;
+			if (!move.getInitiator().getTeam().equals(optimizingTeam)) {
+				while (!gameState.getCurrentTeam().equals(optimizingTeam)) {
+					gameState.passTurn();
+					nrOfPasses++;
+				}
+			}
+			passes.addLast(nrOfPasses);
+		}
+	}
+	
+	/**
+	 * Undoes the last move that was applied by makeMove, including the passes that followed it.
+	 */
+	private void undoMove() {
+		if (bestReplySearch) {
+			undoPasses(passes.removeLast());
+		}
+		gameState.makeMove(history.removeLast());
+		if (features != null) {
+			features.undoMove();
+		}
+	}
+	
+	/**
+	 * Recomputes the running totals of the features of the evaluator if the gameState changed
+	 * since the previous search. Must be called before a search that starts at the actual gameState.
+	 */
+	void synchronizeFeatures() {
+		if (features == null || !features.isSynchronized()) {
+			features = evaluator.newFeatures(gameState);
+		}
+	}
+	
+	private void undoPasses(int nrOfPasses) {
+		for (int i = 0; i < nrOfPasses; i++) {
+			gameState.undoPassTurn();
+		}
+	}
+	
+	/**
+	 * Returns the number of plies after which it is the turn of the optimizing team again.
+	 * @return 2 with Best-Reply Search, the number of teams otherwise.
+	 */
+	int getPliesPerRound() {
+		return bestReplySearch ? Math.min(2, gameState.getTeams().size()) : gameState.getTeams().size();
+	}
+	
 	private void saveResults(int originalAlpha, int beta, TranspositionValue entry, 
 			int depthLimit, int currentDepth, int best) {
 		if (evaluator.isHashingEnabled()) {
@@ -30,14 +30,23 @@ public class DepthBoundIterativeDeepeningDfs extends DefaultMinimax {
 	public PlayableMove iterativeDeepeningDepthFirstSearch(int depthLimit) {
 		assert (depthLimit > 0);
 		PlayableMove bestMove = null;
+		int startDepth = 1;
 		
-		// While the time limit has not been reached, increase depth:
-		for (int depth = 1; depth <= depthLimit; depth++) {
-			try {
-				bestMove = minimax(depth);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
+		// On a ponder hit, continue from the depth that the ponder search completed.
+		Ponder.Result ponderHit = stopPondering();
+		PlayableMove forcedWin = solveEndgame();
+		if (forcedWin != null) {
+			return forcedWin;
+		}
+		if (ponderHit != null) {
+			bestMove = ponderHit.move;
+			startDepth = ponderHit.depth + 1;
+		}
+		
+		// While the depth limit has not been reached, increase depth:
+		startSearch(Long.MAX_VALUE);
+		for (int depth = startDepth; depth <= depthLimit; depth++) {
+			bestMove = minimax(depth);
 		}
 		if (bestMove == null) {
 			System.err.println("TimeBoundIterativeDeepeningDfs was unable "
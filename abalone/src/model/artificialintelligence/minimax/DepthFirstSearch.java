@@ -15,13 +15,22 @@ public class DepthFirstSearch extends DefaultMinimax {
 	
 	@Override
 	public PlayableMove getBestMove() {
-		try {
-			return minimax(depth);
-		} catch (InterruptedException e) {
+		Ponder.Result ponderHit = stopPondering();
+		if (ponderHit != null && ponderHit.depth >= depth) {
+			return ponderHit.move;
+		}
+		PlayableMove forcedWin = solveEndgame();
+		if (forcedWin != null) {
+			return forcedWin;
+		}
+		startSearch(Long.MAX_VALUE);
+		PlayableMove bestMove = minimax(depth);
+		if (bestMove == null) {
 			System.err.println("DepthFirstSearch was unable to supply a move before "
-					+ "it got interrupted, supplying a random move instead.");
+					+ "it got stopped, supplying a random move instead.");
 			return new RandomStrategy().determineMove(gameState);
 		}
+		return bestMove;
 	}
 
 }
@@ -0,0 +1,69 @@
+package model.artificialintelligence.minimax;
+
+/**
+ * A fixed-size cache of the static ratings of gameStates, kept apart from the transposition table
+ * so that the ratings of leaves and the results of searches do not evict each other.
+ * Entries are keyed by the full board hash and the number of the optimizing team. A new entry
+ * replaces whichever entry is stored in its slot.
+ * The cache is shared by the threads of a search without locking: every entry is stored as its
+ * data and its key xor'ed with its data, so that an entry that was torn by simultaneous writes
+ * does not verify and is treated as a miss.
+ */
+class EvaluationCache {
+	//
+	static final int DEFAULT_KEY_SIZE = 18;
+	// Spreads the entries of the teams of the same board over the slots.
+	private static final long TEAM_MULTIPLIER = 0x9E3779B97F4A7C15L;
+	
+	private final long[] entries;
+	private final int keySize;
+	
+	/**
+	 * Creates an empty cache of 2^DEFAULT_KEY_SIZE entries.
+	 */
+	EvaluationCache() {
+		this(DEFAULT_KEY_SIZE);
+	}
+	
+	/**
+	 * Creates an empty cache.
+	 * @param keySize The number of bits of the slot index, the cache has 2^keySize entries.
+	 */
+	EvaluationCache(int keySize) {
+		this.keySize = keySize;
+		this.entries = new long[2 << keySize];
+	}
+	
+	private int slotOf(long boardHash, int team) {
+		return 2 * (int) ((boardHash + team * TEAM_MULTIPLIER) >>> (Long.SIZE - keySize));
+	}
+	
+	/**
+	 * Returns the stored rating.
+	 * @param boardHash The board hash of the gameState.
+	 * @param team The number of the optimizing team, which is at least 1.
+	 * @return The rating, or null if it is not in the cache.
+	 */
+	Integer get(long boardHash, int team) {
+		int slot = slotOf(boardHash, team);
+		long data = entries[slot + 1];
+		if ((entries[slot] ^ data) != boardHash || (int) (data >>> Integer.SIZE) != team) {
+			return null;
+		}
+		return (int) data;
+	}
+	
+	/**
+	 * Stores the rating, replacing the entry in its slot.
+	 * @param boardHash The board hash of the gameState.
+	 * @param team The number of the optimizing team, which is at least 1.
+	 * @param rating The rating of the gameState for the team.
+	 */
+	void put(long boardHash, int team, int rating) {
+		assert (team >= 1);
+		int slot = slotOf(boardHash, team);
+		long data = ((long) team << Integer.SIZE) | (rating & 0xFFFFFFFFL);
+		entries[slot] = boardHash ^ data;
+		entries[slot + 1] = data;
+	}
+}
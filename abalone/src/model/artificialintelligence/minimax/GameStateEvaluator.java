@@ -2,14 +2,17 @@ package model.artificialintelligence.minimax;
 
 import com.owlike.genson.annotation.JsonProperty;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.ThreadLocalRandom;
 
 import model.artificialintelligence.minimax.TranspositionTable.TranspositionValue;
 import model.artificialintelligence.minimax.TranspositionTable.TranspositionValue.Flag;
@@ -17,6 +20,7 @@ import model.gamelogic.Board;
 import model.gamelogic.GameState;
 import model.gamelogic.Marble;
 import model.gamelogic.Move;
+import model.gamelogic.MoveSumito;
 import model.gamelogic.MoveUndo;
 import model.gamelogic.PlayableMove;
 import model.gamelogic.Player;
@@ -28,20 +32,32 @@ public class GameStateEvaluator {
 	//
 	
 	public static final int MAX_WEIGHT = 10000;
+	/**
+	 * The seed of the Zobrist keys. The keys are the same in every run, so that board hashes can be
+	 * stored in files, such as the opening book.
+	 */
+	static final long ZOBRIST_SEED = 0x5EED_AB41_0E5EL;
 	static final Map<MarbleOracleEntry, Long> marblePositionOracle = initZobrist();
+	/**
+	 * The number of terms of the Papadopoulos rating, see computeTerms.
+	 */
+	static final int NR_OF_TERMS = 7;
 	
 	/**
 	 * Used to generate an immutable map of all possible MarbleOracleEntries going to random longs.
+	 * The entries are drawn in a fixed order from a generator with a fixed seed.
 	 * @return An immutable map of all possible marble hashes.
 	 */
 	private static Map<MarbleOracleEntry, Long> initZobrist() {
 		Map<MarbleOracleEntry, Long> result = new HashMap<>();
+		Set<Long> used = new HashSet<>();
+		Random random = new Random(ZOBRIST_SEED);
 		for (MarbleOracleEntry key : MarbleOracleEntry.allPossibleEntries()) {
-			long random;
+			long value;
 			do {
-				random = ThreadLocalRandom.current().nextLong();
-			} while (result.containsValue(random));
-			result.put(key, random);
+				value = random.nextLong();
+			} while (!used.add(value));
+			result.put(key, value);
 		}
 		return Collections.unmodifiableMap(result);
 	}
@@ -92,16 +108,42 @@ public class GameStateEvaluator {
 	static long hashOfMove(Move move) {
 		long hash = 0;
 		for (Marble marble : move.getMarbles()) {
-			MarbleOracleEntry entry = new MarbleOracleEntry(marble);
-			
-			// Add the hash of the current position.
-			hash ^= hashOfMarble(entry);
-			
-			// Shift the marble to the move direction and add that hash.
-			entry = entry.shift(move.getDirection());
-			hash ^= hashOfMarble(entry);
+			hash ^= hashOfMarbleMove(marble, move.getDirection());
 		}
+		return hash;
+	}
+	
+	/**
+	 * Returns the part of the Zobrist hash of a move that concerns one of its marbles, which is
+	 * the same for the hash of the board and the hash of the team of the marble.
+	 * @param marble A marble of the move, on the field from which it moves.
+	 * @param direction The direction of the move.
+	 * @return semi-random long.
+	 */
+	public static long hashOfMarbleMove(Marble marble, Direction direction) {
+		MarbleOracleEntry entry = new MarbleOracleEntry(marble);
 		
+		// Add the hash of the current position.
+		long hash = hashOfMarble(entry);
+		
+		// Shift the marble to the move direction and add that hash.
+		entry = entry.shift(direction);
+		return hash ^ hashOfMarble(entry);
+	}
+	
+	/**
+	 * Returns a Zobrist hash of the marbles of the team on the board, which is the part of the hash
+	 * of the board that concerns the team.
+	 * @param team The team whose marbles are hashed.
+	 * @return semi-random long.
+	 */
+	public static long hashOfTeam(Team team) {
+		long hash = 0;
+		for (Player player : team.players) {
+			for (Marble marble : player.getMarbles()) {
+				hash ^= hashOfMarble(marble);
+			}
+		}
 		return hash;
 	}
 	
@@ -116,6 +158,11 @@ public class GameStateEvaluator {
 	}
 	
 	@JsonProperty("abaPro") private boolean abaPro;
+	// The path of the network file of the NNUE rating, or null for the other ratings.
+	@JsonProperty("network") private String network;
+	// Read once by getNetwork, after which it is read without locking.
+	private transient volatile NeuralNetwork loadedNetwork = null;
+	@JsonProperty("bitboards") private boolean bitboards;
 	@JsonProperty("considerEnemyPosition") private boolean considerEnemyPosition;
 	@JsonProperty("marblesConqueredWeight") private int marblesConqueredWeight; 
 	@JsonProperty("distanceFromCenterWeight") private int distanceFromCenterWeight; 
@@ -126,7 +173,13 @@ public class GameStateEvaluator {
 	@JsonProperty("doubleMarbleCapWeight") private int doubleMarbleCapWeight;
 	private int ratingLowerBound;
 	private int ratingUpperBound;
+	// The Papadopoulos rating compiled from the weights and the bounds, see getCompiledRating.
+	private transient CompiledRating compiledRating = null;
     TranspositionTable transpositionTable;
+    // The static ratings, which are kept out of the transposition table. Created once hashing is enabled.
+    EvaluationCache evaluationCache;
+    // The coherence and distance from the center of single teams. Created once hashing is enabled.
+    TeamFeatureCache teamFeatureCache;
     int gameScoreHashes;
 	
     private boolean hashing;
@@ -145,6 +198,10 @@ public class GameStateEvaluator {
 	 * Enables hashing of gameState ratings.
 	 */
 	public void enableHashing() {
+		if (evaluationCache == null) {
+			evaluationCache = new EvaluationCache();
+			teamFeatureCache = new TeamFeatureCache();
+		}
 		this.hashing = true;
 	}
 	
@@ -152,6 +209,39 @@ public class GameStateEvaluator {
 		return hashing;
 	}
 	
+	/**
+	 * Returns whether this evaluator rates gameStates with the weighted Papadopoulos features.
+	 * @return False if it uses the ABA-PRO or the NNUE rating, true otherwise.
+	 */
+	boolean hasWeights() {
+		return !abaPro && getNetwork() == null;
+	}
+	
+	/**
+	 * Returns the network of the network file, which is read once. Only the first calls, until the
+	 * network has been read, lock this evaluator, so the threads of a search do not wait on each other.
+	 * @return The network, or null if there is no network file or it cannot be read.
+	 */
+	private NeuralNetwork getNetwork() {
+		NeuralNetwork result = loadedNetwork;
+		if (result == null && network != null) {
+			synchronized (this) {
+				result = loadedNetwork;
+				if (result == null && network != null) {
+					try {
+						result = NeuralNetwork.read(new File(network));
+						loadedNetwork = result;
+					} catch (IOException e) {
+						System.err.println("Warning: The network could not be read: " + e.getMessage() 
+								+ " Continuing program execution with the Papadopoulos rating.");
+						network = null;
+					}
+				}
+			}
+		}
+		return result;
+	}
+	
 	/**
 	 * Initializes the rating bounds using the weights of this.
 	 */
@@ -166,6 +256,21 @@ public class GameStateEvaluator {
 						 + 4 * 14 * singleMarbleCapWeight
 						 + 4 * 14 * doubleMarbleCapWeight;
 		ratingLowerBound = -ratingUpperBound;
+		compiledRating = new CompiledRating(getWeights(), considerEnemyPosition, ratingLowerBound, ratingUpperBound);
+	}
+	
+	/**
+	 * Returns the Papadopoulos rating compiled from the weights and the rating bounds. It is compiled when
+	 * the bounds are set, or on first use for an evaluator without bounds, such as one that is read from a
+	 * player file; compiling it twice at once does no harm.
+	 * @return The compiled rating.
+	 */
+	private CompiledRating getCompiledRating() {
+		if (compiledRating == null) {
+			compiledRating = new CompiledRating(getWeights(), considerEnemyPosition, 
+					ratingLowerBound, ratingUpperBound);
+		}
+		return compiledRating;
 	}
 	
 	/**
@@ -174,7 +279,7 @@ public class GameStateEvaluator {
 	 * @param optimizingTeam The team for which the gameState is being optimized.
 	 * @return an integer describing the strength of the gameState for optimizingTeam.
 	 */
-	int rateGameState(GameState gameState, Team optimizingTeam) {
+	public int rateGameState(GameState gameState, Team optimizingTeam) {
 		return rateGameState(gameState, optimizingTeam, false);
 	}
 	
@@ -187,21 +292,69 @@ public class GameStateEvaluator {
 	 * @return an integer describing the strength of the gameState for optimizingTeam.
 	 */
 	int rateGameState(GameState gameState, Team optimizingTeam, boolean disableHashing) {
+		return rateGameState(gameState, optimizingTeam, disableHashing, null, 
+				Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Rates the current gameState like rateGameState, but takes the features from the given
+	 * running totals instead of computing them from scratch.
+	 * @param gameState The gameState which is rated.
+	 * @param optimizingTeam The team for which the gameState is being optimized.
+	 * @param features The running totals of the features of the gameState, see newFeatures, or null.
+	 * @return an integer describing the strength of the gameState for optimizingTeam.
+	 */
+	int rateGameState(GameState gameState, Team optimizingTeam, IncrementalFeatures features) {
+		return rateGameState(gameState, optimizingTeam, false, features, Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Rates the current gameState like rateGameState, but lazily: if the marbles conquered and the
+	 * distance from the center already put the rating outside of the window, whatever the other
+	 * features are, they are not computed and a bound on the rating is returned instead.
+	 * @param gameState The gameState which is rated.
+	 * @param optimizingTeam The team for which the gameState is being optimized.
+	 * @param features The running totals of the features of the gameState, see newFeatures, or null.
+	 *     With running totals, every feature is cheap, so the rating is never lazy.
+	 * @param alpha The rating below which the exact rating does not matter.
+	 * @param beta The rating above which the exact rating does not matter.
+	 * @return The rating if it is between alpha and beta, an upper bound on the rating that is at most
+	 *     alpha or a lower bound on the rating that is at least beta otherwise.
+	 */
+	int rateGameState(GameState gameState, Team optimizingTeam, IncrementalFeatures features, 
+			int alpha, int beta) {
+		return rateGameState(gameState, optimizingTeam, false, features, alpha, beta);
+	}
+	
+	private int rateGameState(GameState gameState, Team optimizingTeam, boolean disableHashing, 
+			IncrementalFeatures features, int alpha, int beta) {
 		boolean useHashing = hashing && !disableHashing;
 		
-		// Attempts to use the transposition table.
+		// Attempts to use the evaluation cache.
 		if (useHashing) {
-			TranspositionValue val = transpositionTable.get(gameState, optimizingTeam);
-			if (val != null) {
-				return val.value; 
+			Integer cachedRating = evaluationCache.get(
+					gameState.getBoard().getBoardHash(), gameState.getTeamNumber(optimizingTeam));
+			if (cachedRating != null) {
+				gameState.gameStats.addEvaluationCacheHit();
+				return cachedRating; 
 			}
+			gameState.gameStats.addEvaluationCacheMiss();
 		}
 		
-		final Board board = gameState.getBoard();
+		if (features != null && !features.isSynchronized()) {
+			features = null;
+		}
+		// A bound is not a rating, so it is not cached.
+		boolean lazy = !abaPro && network == null && features == null && !gameState.isFinished()
+				&& (alpha != Integer.MIN_VALUE || beta != Integer.MAX_VALUE);
+		if (lazy) {
+			Integer bound = computeLazyBound(gameState, optimizingTeam, alpha, beta);
+			if (bound != null) {
+				return bound;
+			}
+		}
 		
-		int result = abaPro 
-				? computeRatingAbaPro(gameState, optimizingTeam, board) 
-				: computeRatingPapadopoulos(gameState, optimizingTeam, board);
+		int result = computeRating(gameState, optimizingTeam, features);
 		// If this is a final state, override the result.
 		if (gameState.isFinished()) {
 			if (gameState.getWinner() == optimizingTeam) {
@@ -213,11 +366,37 @@ public class GameStateEvaluator {
 			}
 		}
 		if (useHashing) {
-			createTranspositionTableEntry(gameState, optimizingTeam, 0, result, Flag.EXACT);
+			evaluationCache.put(
+					gameState.getBoard().getBoardHash(), gameState.getTeamNumber(optimizingTeam), result);
+			gameScoreHashes++;
 		}
 		return result;
 	}
 	
+	/**
+	 * Computes the rating, taking the features from the given running totals if there are any.
+	 * The totals are those of the board to rate, which is that of the gameState unless a move
+	 * is simulated, see rateMoves.
+	 */
+	private int computeRating(GameState gameState, Team optimizingTeam, IncrementalFeatures features) {
+		final Board board = gameState.getBoard();
+		if (features instanceof NnueFeatures) {
+			return ((NnueFeatures) features).rate(optimizingTeam);
+		} else if (network != null) {
+			NeuralNetwork loaded = getNetwork();
+			if (loaded != null) {
+				return NnueFeatures.rate(gameState, loaded, optimizingTeam);
+			}
+		}
+		if (abaPro) {
+			return features instanceof AbaProFeatures
+					? ((AbaProFeatures) features).rate(optimizingTeam)
+					: computeRatingAbaPro(gameState, optimizingTeam, board);
+		}
+		return computeRatingPapadopoulos(gameState, optimizingTeam, board, 
+				features instanceof PapadopoulosFeatures ? (PapadopoulosFeatures) features : null);
+	}
+	
 	private int computeRatingAbaPro(GameState gameState, Team optimizingTeam, final Board board) {
 		// 2. Take a weighted average of these centers and the center of the game board (which gets weighted
 		//    with a factor below one). Call this reference point R.
@@ -241,51 +420,205 @@ public class GameStateEvaluator {
 		return score;
 	}
 
-	private int computeRatingPapadopoulos(GameState gameState, Team optimizingTeam, final Board board) {
+	/**
+	 * Creates the running totals of the features of the gameState, which are updated by every move
+	 * that is passed to them instead of being computed from scratch for every rating.
+	 * @param gameState The gameState of which the features are computed.
+	 * @return The NnueFeatures for the NNUE rating, the AbaProFeatures for the ABA-PRO rating, the
+	 *     PapadopoulosFeatures for the Papadopoulos rating, or null if this evaluator computes the
+	 *     Papadopoulos features with bitboards.
+	 */
+	IncrementalFeatures newFeatures(GameState gameState) {
+		NeuralNetwork loaded = getNetwork();
+		if (loaded != null) {
+			return new NnueFeatures(gameState, loaded);
+		}
+		if (abaPro) {
+			return new AbaProFeatures(gameState);
+		}
+		return bitboards ? null : new PapadopoulosFeatures(gameState, immediateMarbleCapWeight != 0);
+	}
+	
+	/**
+	 * Computes the Papadopoulos features of the team from scratch. With hashing, the coherence and the
+	 * distance from the center, which only depend on the marbles of the team, are looked up in the
+	 * team feature cache first.
+	 * @param team The team.
+	 * @param board The board for which the features are computed.
+	 * @return The features, indexed like PapadopoulosFeatures.get.
+	 */
+	private int[] computeFeatures(Team team, final Board board) {
+		int[] result = new int[PapadopoulosFeatures.NR_OF_FEATURES];
+		TeamFeatureCache cache = hashing ? teamFeatureCache : null;
+		long teamHash = 0;
+		int nrOfMarbles = 0;
+		if (cache != null) {
+			teamHash = board.getTeamHash(team);
+			for (Player player : team.players) {
+				nrOfMarbles += player.getMarbles().size();
+			}
+		}
+		if (cache == null || !cache.get(teamHash, nrOfMarbles, result)) {
+			result[PapadopoulosFeatures.COHERENCE] = team.computeCoherence(board);
+			result[PapadopoulosFeatures.DISTANCE] = team.computeDistanceFromCenter();
+			if (cache != null) {
+				cache.put(teamHash, nrOfMarbles, result);
+			}
+		}
+		result[PapadopoulosFeatures.FORMATION_BREAK] = team.computeFormationBreak(board);
+		result[PapadopoulosFeatures.IMMEDIATE_DANGER] = immediateMarbleCapWeight == 0 ? 0 
+				: team.computeImmediateMarbleCapturingDanger(board);
+		result[PapadopoulosFeatures.SINGLE_DANGER] = singleMarbleCapWeight == 0 ? 0 
+				: team.computeSingleMarbleCapturingDanger(board);
+		result[PapadopoulosFeatures.DOUBLE_DANGER] = doubleMarbleCapWeight == 0 ? 0 
+				: team.computeDoubleMarbleCapturingDanger(board);
+		return result;
+	}
+	
+	/**
+	 * Computes the Papadopoulos rating with the compiled rating, which only uses the features whose
+	 * weights are not 0. The features are those of the running totals if there are any, and are computed
+	 * from scratch otherwise, only for the teams that the rating uses.
+	 */
+	private int computeRatingPapadopoulos(GameState gameState, Team optimizingTeam, final Board board,
+			PapadopoulosFeatures features) {
+		CompiledRating compiled = getCompiledRating();
+		int marblesConqueredRating = 2 * optimizingTeam.getConqueredMarbles().size() 
+				- gameState.getTotalNrOfConqueredMarbles();
+		int optimizingTeamNr = gameState.getTeamNumber(optimizingTeam);
+		if (features != null) {
+			return compiled.rate(features.totals, optimizingTeamNr, marblesConqueredRating);
+		}
+		List<Team> teams = gameState.getTeams();
+		int[][] teamFeatures = new int[teams.size() + 1][];
+		if (compiled.hasFeatures()) {
+			PapadopoulosBitboards bitboardFeatures = bitboards ? new PapadopoulosBitboards(gameState) : null;
+			for (Team team : considerEnemyPosition ? teams : Arrays.asList(optimizingTeam)) {
+				teamFeatures[gameState.getTeamNumber(team)] = bitboardFeatures != null 
+						? bitboardFeatures.get(team, immediateMarbleCapWeight != 0, 
+								singleMarbleCapWeight != 0, doubleMarbleCapWeight != 0)
+						: computeFeatures(team, board);
+			}
+		}
+		return compiled.rate(teamFeatures, optimizingTeamNr, marblesConqueredRating);
+	}
+	
+	/**
+	 * Computes the terms of the Papadopoulos rating from scratch, of which the rating before normalization
+	 * is the sum weighted by getWeights: the marbles conquered, the coherence, the distance from the center,
+	 * the formation break and the immediate, single and double marble capturing danger, each with the sign
+	 * with which computeRatingPapadopoulos adds it. The terms are computed whatever their weights are.
+	 * @param gameState The gameState which is rated, which is not finished.
+	 * @param optimizingTeam The team for which the gameState is being optimized.
+	 * @return The NR_OF_TERMS terms.
+	 */
+	int[] computeTerms(GameState gameState, Team optimizingTeam) {
+		PapadopoulosBitboards bitboardFeatures = new PapadopoulosBitboards(gameState);
+		int[] result = new int[NR_OF_TERMS];
+		result[0] = 2 * optimizingTeam.getConqueredMarbles().size() - gameState.getTotalNrOfConqueredMarbles();
+		List<Team> teams = considerEnemyPosition ? gameState.getTeams() : Arrays.asList(optimizingTeam);
+		for (Team team : teams) {
+			int sign = team.equals(optimizingTeam) ? 1 : -1;
+			int[] teamFeatures = bitboardFeatures.get(team, true, true, true);
+			result[1] += sign * teamFeatures[PapadopoulosFeatures.COHERENCE];
+			result[2] -= sign * teamFeatures[PapadopoulosFeatures.DISTANCE];
+			// Only the last team counts for these terms, like in computeRatingPapadopoulos.
+			result[3] = sign * teamFeatures[PapadopoulosFeatures.FORMATION_BREAK];
+			result[4] = -sign * teamFeatures[PapadopoulosFeatures.IMMEDIATE_DANGER];
+			result[5] = -sign * teamFeatures[PapadopoulosFeatures.SINGLE_DANGER];
+			result[6] = -sign * teamFeatures[PapadopoulosFeatures.DOUBLE_DANGER];
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the weights of the terms of computeTerms.
+	 * @return The NR_OF_TERMS weights, in the order of the terms.
+	 */
+	int[] getWeights() {
+		return new int[] {marblesConqueredWeight, coherenceWeight, distanceFromCenterWeight, formationBreakWeight,
+				immediateMarbleCapWeight, singleMarbleCapWeight, doubleMarbleCapWeight};
+	}
+	
+	/**
+	 * Creates an evaluator that rates like this one, but with other weights. Like an evaluator that is
+	 * read from a player file, it does not normalize its ratings, so that every rating is the weighted
+	 * sum of the terms of computeTerms.
+	 * @param weights The NR_OF_TERMS weights, in the order of the terms.
+	 * @return The new evaluator.
+	 */
+	GameStateEvaluator withWeights(int[] weights) {
+		assert (weights.length == NR_OF_TERMS);
+		GameStateEvaluator evaluator = new GameStateEvaluator();
+		evaluator.abaPro = abaPro;
+		evaluator.network = network;
+		evaluator.bitboards = bitboards;
+		evaluator.considerEnemyPosition = considerEnemyPosition;
+		evaluator.marblesConqueredWeight = weights[0];
+		evaluator.coherenceWeight = weights[1];
+		evaluator.distanceFromCenterWeight = weights[2];
+		evaluator.formationBreakWeight = weights[3];
+		evaluator.immediateMarbleCapWeight = weights[4];
+		evaluator.singleMarbleCapWeight = weights[5];
+		evaluator.doubleMarbleCapWeight = weights[6];
+		return evaluator;
+	}
+	
+	/**
+	 * Normalizes the weighted sum of the features, which keeps the order of the ratings.
+	 * @param result The weighted sum of the features.
+	 * @return The normalized rating.
+	 */
+	private int normalize(int result) {
+		return getCompiledRating().normalize(result);
+	}
+	
+	/**
+	 * Computes the Papadopoulos rating from the marbles conquered and the distance from the center only,
+	 * with a margin for the other features that is derived from their weights and the number of
+	 * marbles on the board.
+	 * @param gameState The gameState which is rated.
+	 * @param optimizingTeam The team for which the gameState is being optimized.
+	 * @param alpha The rating below which the exact rating does not matter.
+	 * @param beta The rating above which the exact rating does not matter.
+	 * @return An upper bound on the rating that is at most alpha, a lower bound on the rating that is
+	 *     at least beta, or null if the other features are needed to tell.
+	 */
+	private Integer computeLazyBound(GameState gameState, Team optimizingTeam, int alpha, int beta) {
 		int marblesConqueredRating = 2 * optimizingTeam.getConqueredMarbles().size() 
 				- gameState.getTotalNrOfConqueredMarbles();
-		int coherence = 0;
 		int distance = 0;
-		int formationBreak = 0;
-		int immediateMarbleCapturingDanger = 0;
-		int singleMarbleCapturingDanger = 0;
-		int doubleMarbleCapturingDanger = 0;
+		int marblesOnBoard = 0;
 		List<Team> teams = considerEnemyPosition ? gameState.getTeams() : Arrays.asList(optimizingTeam);
 		for (Team team : teams) {
-			boolean isOptimizingTeam = team.equals(optimizingTeam);
-			coherence += isOptimizingTeam
-					?  team.computeCoherence(board) 
-					: -team.computeCoherence(board);
-			distance += isOptimizingTeam
-					?  team.computeDistanceFromCenter()
+			distance += team.equals(optimizingTeam) 
+					?  team.computeDistanceFromCenter() 
 					: -team.computeDistanceFromCenter();
-			formationBreak = isOptimizingTeam
-					?  team.computeFormationBreak(board)
-					: -team.computeFormationBreak(board);
-			immediateMarbleCapturingDanger = immediateMarbleCapWeight == 0 ? 0 : isOptimizingTeam
-					?  team.computeImmediateMarbleCapturingDanger(board)
-					: -team.computeImmediateMarbleCapturingDanger(board);
-			singleMarbleCapturingDanger = singleMarbleCapWeight == 0 ? 0 : isOptimizingTeam
-					?  team.computeSingleMarbleCapturingDanger(board)
-					: -team.computeSingleMarbleCapturingDanger(board);
-			doubleMarbleCapturingDanger = doubleMarbleCapWeight == 0 ? 0 : isOptimizingTeam
-					?  team.computeDoubleMarbleCapturingDanger(board)
-					: -team.computeDoubleMarbleCapturingDanger(board);
-		}
-		int result = marblesConqueredRating * marblesConqueredWeight
-				+ coherence * coherenceWeight
-				- distance * distanceFromCenterWeight
-				+ formationBreak * formationBreakWeight
-				- immediateMarbleCapturingDanger * immediateMarbleCapWeight
-				- singleMarbleCapturingDanger * singleMarbleCapWeight
-				- doubleMarbleCapturingDanger * doubleMarbleCapWeight;
-		// Normalize result
-		if (ratingLowerBound != 0 && result < 0) {
-			result = result * (-MAX_WEIGHT / ratingLowerBound);
-		} else if (ratingUpperBound != 0 && result > 0) {
-			result = result * (MAX_WEIGHT / ratingUpperBound);
+			for (Player player : team.players) {
+				for (Marble marble : player.getMarbles()) {
+					if (!marble.isCaptured()) {
+						marblesOnBoard++;
+					}
+				}
+			}
 		}
-		return result;
+		int partial = marblesConqueredRating * marblesConqueredWeight - distance * distanceFromCenterWeight;
+		// Per marble, the coherence is at most 12, the formation break and the immediate danger 1 and
+		// the single and double danger 6, as a marble has 6 neighbours.
+		int margin = marblesOnBoard * (12 * Math.abs(coherenceWeight) 
+				+ Math.abs(formationBreakWeight) 
+				+ Math.abs(immediateMarbleCapWeight) 
+				+ 6 * Math.abs(singleMarbleCapWeight) 
+				+ 6 * Math.abs(doubleMarbleCapWeight));
+		int upperBound = normalize(partial + margin);
+		if (upperBound <= alpha) {
+			return upperBound;
+		}
+		int lowerBound = normalize(partial - margin);
+		if (lowerBound >= beta) {
+			return lowerBound;
+		}
+		return null;
 	}
 
 	/**
@@ -296,10 +629,14 @@ public class GameStateEvaluator {
 	 * @return The score of the gameState that results from applying the move.
 	 */
 	public int rateMove(GameState gameState, Team optimizingTeam, PlayableMove move) {
-		// Attempts to use the hashing table
-		Integer hashedRating = getStoredMoveRating(gameState, optimizingTeam, move);
-		if (hashedRating != null) {
-			return hashedRating;
+		// Attempts to use the evaluation cache
+		if (hashing) {
+			Integer cachedRating = evaluationCache.get(hashOfBoard(gameState.getBoard().getBoardHash(), move), 
+					gameState.getTeamNumber(optimizingTeam));
+			if (cachedRating != null) {
+				gameState.gameStats.addEvaluationCacheHit();
+				return cachedRating;
+			}
 		}
 		
 		// Hashing failed, so we apply the move, rate the gameState (which hashes the result if it's allowed),
@@ -310,9 +647,58 @@ public class GameStateEvaluator {
 		
 		return rating;
 	}
+	
+	/**
+	 * Rates the gameStates that would result from applying each of the moves to the current gameState,
+	 * like rateMove, in a single pass. The moves are not made: every move is simulated on the running
+	 * totals of the features, which only updates the features of the marbles that it affects, and
+	 * the totals are restored right after the rating.
+	 * Moves that capture a marble change the conquered marbles and can end the game, so they are
+	 * made and rated like rateMove, as are all moves if there are no synchronized running totals.
+	 * @param gameState The current gameState.
+	 * @param optimizingTeam The team for which to score the gameStates resulting from the moves.
+	 * @param moves The legal moves of the current gameState.
+	 * @param features The running totals of the features of the gameState, see newFeatures, or null.
+	 * @return The ratings of the moves, in the order of the moves.
+	 */
+	int[] rateMoves(GameState gameState, Team optimizingTeam, List<PlayableMove> moves, 
+			IncrementalFeatures features) {
+		int[] ratings = new int[moves.size()];
+		// A move only ends the game without a capture if it reaches the turn limit.
+		boolean simulate = features != null && features.isSynchronized() && !gameState.isFinished()
+				&& gameState.getTurn() < GameState.TURN_LIMIT - 1;
+		long boardHash = gameState.getBoard().getBoardHash();
+		int teamNumber = gameState.getTeamNumber(optimizingTeam);
+		for (int i = 0; i < moves.size(); i++) {
+			PlayableMove move = moves.get(i);
+			if (!simulate || move instanceof MoveSumito && ((MoveSumito) move).isCapture()) {
+				ratings[i] = rateMove(gameState, optimizingTeam, move);
+				continue;
+			}
+			long childHash = hashOfBoard(boardHash, move);
+			if (hashing) {
+				Integer cachedRating = evaluationCache.get(childHash, teamNumber);
+				if (cachedRating != null) {
+					gameState.gameStats.addEvaluationCacheHit();
+					ratings[i] = cachedRating;
+					continue;
+				}
+				gameState.gameStats.addEvaluationCacheMiss();
+			}
+			features.simulateMove(move);
+			ratings[i] = computeRating(gameState, optimizingTeam, features);
+			features.undoMove();
+			if (hashing) {
+				evaluationCache.put(childHash, teamNumber, ratings[i]);
+				gameScoreHashes++;
+			}
+		}
+		return ratings;
+	}
 
 	/**
-	 * Retrieves the stored rating for a move if one exists. If one doesn't exist, null.
+	 * Retrieves the stored search result for a move if one exists. If one doesn't exist, null.
+	 * Static ratings are not stored in the transposition table, see rateGameState.
 	 * @param gameState The current gameState, whose hash will be combined with the move's hash to retrieve 
 	 *     the rating.
 	 * @param optimizingTeam The team to optimize for.
@@ -323,6 +709,7 @@ public class GameStateEvaluator {
 		if (hashing) {
 			long boardHash = hashOfBoard(gameState.getBoard().getBoardHash(), move); 
 			TranspositionValue val = transpositionTable.get( 
+					gameState,
 					boardHash,
 					optimizingTeam);
 			if (val != null) {
@@ -342,9 +729,11 @@ public class GameStateEvaluator {
 		Hex hex;
 		String color;
 		
-		private static Set<MarbleOracleEntry> allPossibleEntries() {
-			Set<MarbleOracleEntry> result = new HashSet<>();
-			for (Hex hex : Hex.build(Board.BOARD_RADIUS)) {
+		private static List<MarbleOracleEntry> allPossibleEntries() {
+			List<Hex> hexes = new ArrayList<>(Hex.build(Board.BOARD_RADIUS));
+			Collections.sort(hexes);
+			List<MarbleOracleEntry> result = new ArrayList<>();
+			for (Hex hex : hexes) {
 				for (String color : Player.COLORS) {
 					result.add(new MarbleOracleEntry(hex, color));
 				}
@@ -392,6 +781,8 @@ public class GameStateEvaluator {
 		private int doubleMarbleCapWeight		= 0;
 		private int immediateMarbleCapWeight	= 0;
 		private boolean abaPro					= false;
+		private String network					= null;
+		private boolean bitboards				= false;
 		private boolean hashing 				= false;
 		private boolean considerEnemyPosition	= false;
 		
@@ -451,6 +842,36 @@ public class GameStateEvaluator {
 			return this;
 		}
 		
+		/**
+		 * Computes the features of the marbles with shifted occupancy masks of the board instead of
+		 * walking their neighbours one by one, which replaces the incremental features of the search.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enableBitboards() {
+			this.bitboards = true;
+			return this;
+		}
+		
+		/**
+		 * Rates gameStates by the distances of the marbles to the weighted center of mass of
+		 * all teams, like ABA-PRO, instead of with the Papadopoulos features and their weights.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enableAbaPro() {
+			this.abaPro = true;
+			return this;
+		}
+		
+		/**
+		 * Rates gameStates with an efficiently updatable neural network instead of the other ratings.
+		 * @param network The path of the network file, see NeuralNetwork.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withNetwork(String network) {
+			this.network = network;
+			return this;
+		}
+		
 		/**
 		 * Builds the GameStateEvaluator with the provided arguments.
 		 * Untouched variables are initialized with 0 or false.
@@ -459,6 +880,8 @@ public class GameStateEvaluator {
 		public GameStateEvaluator build() {
 			GameStateEvaluator evaluator = new GameStateEvaluator();
 			evaluator.abaPro = this.abaPro;
+			evaluator.network = this.network;
+			evaluator.bitboards = this.bitboards;
 			evaluator.marblesConqueredWeight = this.marblesConqueredWeight;
 			evaluator.distanceFromCenterWeight = this.distanceFromCenterWeight;
 			evaluator.coherenceWeight = this.coherenceWeight;
@@ -466,7 +889,9 @@ public class GameStateEvaluator {
 			evaluator.singleMarbleCapWeight = this.singleMarbleCapWeight;
 			evaluator.doubleMarbleCapWeight = this.doubleMarbleCapWeight;
 			evaluator.immediateMarbleCapWeight = this.immediateMarbleCapWeight;
-			evaluator.hashing = this.hashing;
+			if (this.hashing) {
+				evaluator.enableHashing();
+			}
 			evaluator.considerEnemyPosition = this.considerEnemyPosition;
 			evaluator.setRatingBounds();
 			return evaluator;
@@ -3,17 +3,25 @@ package model.artificialintelligence.minimax;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import model.gamelogic.Board;
 import model.gamelogic.GameState;
+import model.gamelogic.Marble;
 import model.gamelogic.Move;
 import model.gamelogic.MoveUndo;
 import model.gamelogic.PlayableMove;
 import model.gamelogic.Player;
+import model.gamelogic.Team;
 import model.hex.Direction;
 import model.hex.FractionalHex;
 import model.hex.Hex;
@@ -126,6 +134,47 @@ class GameStateEvaluatorTest {
 		assertEquals(hashOfSidestepMove, hashOfSidestepUndo);
 	}
 	
+	@Test
+	void testTeamHashesFollowTheMarblesOfTheirTeams() {
+		GameState gameState = new GameState(Arrays.asList(
+				Player.newPlayer("x", "random"), 
+				Player.newPlayer("y", "random"), 
+				Player.newPlayer("z", "random")));
+		Random random = new Random(13);
+		Deque<MoveUndo> undos = new ArrayDeque<>();
+		for (int turn = 0; turn < 120 && !gameState.isFinished(); turn++) {
+			assertTeamHashesAreExact(gameState);
+			assertTeamHashesAreExact(gameState.copy());
+			PlayableMove move = chooseCaptureOrRandomMove(gameState, random);
+			Map<Team, Long> teamHashes = new HashMap<>();
+			for (Team team : gameState.getTeams()) {
+				teamHashes.put(team, gameState.getBoard().getTeamHash(team));
+			}
+			for (Marble marble : move.getMarbles()) {
+				teamHashes.remove(marble.getTeam());
+			}
+			undos.push(gameState.makeMove(move));
+			// Only the teams with marbles in the move have another hash.
+			for (Map.Entry<Team, Long> entry : teamHashes.entrySet()) {
+				assertEquals(entry.getValue(), gameState.getBoard().getTeamHash(entry.getKey()));
+			}
+		}
+		assertTrue(gameState.getTotalNrOfConqueredMarbles() > 0);
+		while (!undos.isEmpty()) {
+			gameState.makeMove(undos.pop());
+			assertTeamHashesAreExact(gameState);
+		}
+	}
+	
+	private static void assertTeamHashesAreExact(GameState gameState) {
+		long boardHash = 0;
+		for (Team team : gameState.getTeams()) {
+			assertEquals(GameStateEvaluator.hashOfTeam(team), gameState.getBoard().getTeamHash(team));
+			boardHash ^= gameState.getBoard().getTeamHash(team);
+		}
+		assertEquals(gameState.getBoard().getBoardHash(), boardHash);
+	}
+	
 	@Test
 	void testHashOfMarbleIsInversible() {
 		
@@ -249,6 +298,30 @@ class GameStateEvaluatorTest {
 		assertEquals(0, evaluator.gameScoreHashes);
 	}
 	
+	@Test
+	void testRatingsAreCachedApartFromTheTranspositionTable() {
+		evaluator.enableHashing();
+		gameState.gameStats.initializeTurn();
+		int rating = evaluator.rateGameState(gameState, player1.getTeam());
+		assertEquals(0, evaluator.transpositionTable.size());
+		long boardHash = board.getBoardHash();
+		assertEquals(Integer.valueOf(rating), 
+				evaluator.evaluationCache.get(boardHash, gameState.getTeamNumber(player1.getTeam())));
+		assertNull(evaluator.evaluationCache.get(boardHash, gameState.getTeamNumber(player2.getTeam())));
+		assertNull(evaluator.evaluationCache.get(boardHash + 1, gameState.getTeamNumber(player1.getTeam())));
+		
+		// The second rating is found in the cache, even by rating the move that leads to the position.
+		assertEquals(rating, evaluator.rateGameState(gameState, player1.getTeam()));
+		PlayableMove move = Move.allLegalMoves(gameState).iterator().next();
+		MoveUndo undo = gameState.makeMove(move);
+		int moveRating = evaluator.rateGameState(gameState, player1.getTeam());
+		gameState.makeMove(undo);
+		assertEquals(moveRating, evaluator.rateMove(gameState, player1.getTeam(), move));
+		gameState.gameStats.commitDepth();
+		assertEquals(2, gameState.gameStats.currentTurnCommittedDepth.evaluationCacheHits);
+		assertEquals(2, gameState.gameStats.currentTurnCommittedDepth.evaluationCacheMisses);
+	}
+	
 	@Test
 	void testConsiderEnemyPosition() throws Exception {
 		// If the enemy position is not considered, then in the first gameState, 
@@ -310,6 +383,285 @@ class GameStateEvaluatorTest {
 				-p2Evaluator.rateGameState(gameState, player2.getTeam()));
 	}
 	
+	@Test
+	void testIncrementalAndBitboardFeaturesAreEqualToTheFeaturesComputedFromScratch() {
+		for (boolean considerEnemyPosition : new boolean[] {false, true}) {
+			assertIncrementalFeaturesAreExact(considerEnemyPosition, gameState);
+			assertIncrementalFeaturesAreExact(considerEnemyPosition, new GameState(Arrays.asList(
+					Player.newPlayer("x", "random"), 
+					Player.newPlayer("y", "random"), 
+					Player.newPlayer("z", "random"))));
+		}
+	}
+	
+	private static GameStateEvaluator.Builder newBuilderWithAllWeights(boolean considerEnemyPosition) {
+		GameStateEvaluator.Builder builder = new GameStateEvaluator.Builder()
+				.withMarbleConqueredWeight(100)
+				.withDistanceFromCenterWeight(8)
+				.withCoherenceWeight(3)
+				.withFormationBreakWeight(20)
+				.withImmediateMarbleCapWeight(30)
+				.withSingleMarbleCapWeight(5)
+				.withDoubleMarbleCapWeight(7);
+		return considerEnemyPosition ? builder.considerEnemyPosition() : builder;
+	}
+	
+	/**
+	 * Plays a game in which the moves that capture a marble are preferred, while comparing the 
+	 * incremental features with the features computed from scratch and with bitboards after every 
+	 * move and every undo.
+	 */
+	private void assertIncrementalFeaturesAreExact(boolean considerEnemyPosition, GameState gameState) {
+		GameStateEvaluator evaluator = newBuilderWithAllWeights(considerEnemyPosition).build();
+		GameStateEvaluator bitboardEvaluator = newBuilderWithAllWeights(considerEnemyPosition)
+				.enableBitboards()
+				.build();
+		assertNull(bitboardEvaluator.newFeatures(gameState));
+		Random random = new Random(42);
+		IncrementalFeatures features = evaluator.newFeatures(gameState);
+		Deque<MoveUndo> undos = new ArrayDeque<>();
+		List<Integer> ratings = new ArrayList<>();
+		for (int turn = 0; turn < 120 && !gameState.isFinished(); turn++) {
+			PlayableMove move = chooseCaptureOrRandomMove(gameState, random);
+			ratings.add(assertFeaturesAreExact(evaluator, gameState, features));
+			assertEquals(ratings.get(ratings.size() - 1), 
+					bitboardEvaluator.rateGameState(gameState, gameState.getCurrentTeam()));
+			features.beforeMove(move);
+			undos.push(gameState.makeMove(move));
+			features.afterMove();
+		}
+		assertTrue(gameState.getTotalNrOfConqueredMarbles() > 0);
+		assertFeaturesAreExact(evaluator, gameState, features);
+		while (!undos.isEmpty()) {
+			gameState.makeMove(undos.pop());
+			features.undoMove();
+			assertEquals(ratings.remove(ratings.size() - 1), 
+					assertFeaturesAreExact(evaluator, gameState, features));
+		}
+	}
+	
+	/**
+	 * Returns the first move that captures a marble, or a random move if there is none.
+	 */
+	private static PlayableMove chooseCaptureOrRandomMove(GameState gameState, Random random) {
+		List<PlayableMove> moves = new ArrayList<>(Move.allLegalMoves(gameState));
+		moves.sort(Comparator.comparing(PlayableMove::getMoveNotation));
+		for (PlayableMove move : moves) {
+			int conquered = gameState.getTotalNrOfConqueredMarbles();
+			MoveUndo undo = gameState.makeMove(move);
+			boolean captures = gameState.getTotalNrOfConqueredMarbles() > conquered;
+			gameState.makeMove(undo);
+			if (captures) {
+				return move;
+			}
+		}
+		return moves.get(random.nextInt(moves.size()));
+	}
+	
+	@Test
+	void testIncrementalAbaProRatingIsEqualToTheRatingComputedFromScratch() {
+		for (GameState gameState : Arrays.asList(this.gameState, new GameState(Arrays.asList(
+				Player.newPlayer("x", "random"), 
+				Player.newPlayer("y", "random"), 
+				Player.newPlayer("z", "random"))))) {
+			GameStateEvaluator evaluator = new GameStateEvaluator.Builder().enableAbaPro().build();
+			IncrementalFeatures features = evaluator.newFeatures(gameState);
+			assertTrue(features instanceof AbaProFeatures);
+			Random random = new Random(3);
+			Deque<MoveUndo> undos = new ArrayDeque<>();
+			List<Integer> ratings = new ArrayList<>();
+			for (int turn = 0; turn < 120 && !gameState.isFinished(); turn++) {
+				ratings.add(assertAbaProRatingIsExact(evaluator, gameState, features));
+				PlayableMove move = chooseCaptureOrRandomMove(gameState, random);
+				features.beforeMove(move);
+				undos.push(gameState.makeMove(move));
+				features.afterMove();
+			}
+			assertTrue(gameState.getTotalNrOfConqueredMarbles() > 0);
+			while (!undos.isEmpty()) {
+				gameState.makeMove(undos.pop());
+				features.undoMove();
+				assertEquals(ratings.remove(ratings.size() - 1), 
+						assertAbaProRatingIsExact(evaluator, gameState, features));
+			}
+		}
+	}
+	
+	private static int assertAbaProRatingIsExact(GameStateEvaluator evaluator, GameState gameState, 
+			IncrementalFeatures features) {
+		int rating = 0;
+		for (Team team : gameState.getTeams()) {
+			rating = evaluator.rateGameState(gameState, team, features);
+			assertEquals(evaluator.rateGameState(gameState, team), rating);
+		}
+		return rating;
+	}
+	
+	@Test
+	void testBatchRatingsAreEqualToTheRatingsOfTheMoves() {
+		for (boolean abaPro : new boolean[] {false, true}) {
+			GameState gameState = new GameState(Arrays.asList(
+					Player.newPlayer("x", "random"), 
+					Player.newPlayer("y", "random"), 
+					Player.newPlayer("z", "random")));
+			for (GameState game : Arrays.asList(this.gameState, gameState)) {
+				GameStateEvaluator.Builder builder = newBuilderWithAllWeights(true);
+				GameStateEvaluator.Builder hashingBuilder = newBuilderWithAllWeights(true).enableHashing();
+				GameStateEvaluator evaluator = abaPro ? builder.enableAbaPro().build() : builder.build();
+				GameStateEvaluator batchEvaluator = abaPro 
+						? hashingBuilder.enableAbaPro().build() 
+						: hashingBuilder.build();
+				assertBatchRatingsAreExact(evaluator, batchEvaluator, game);
+			}
+		}
+	}
+	
+	/**
+	 * Plays a game in which the moves that capture a marble are preferred, while comparing the batch
+	 * ratings of all moves with their ratings by rateMove, both with and without running totals.
+	 */
+	private static void assertBatchRatingsAreExact(GameStateEvaluator evaluator, 
+			GameStateEvaluator batchEvaluator, GameState gameState) {
+		Random random = new Random(5);
+		for (int turn = 0; turn < 60 && !gameState.isFinished(); turn++) {
+			IncrementalFeatures features = batchEvaluator.newFeatures(gameState);
+			List<PlayableMove> moves = new ArrayList<>(Move.allLegalMoves(gameState));
+			int[] batchRatings = batchEvaluator.rateMoves(gameState, gameState.getCurrentTeam(), moves, features);
+			int[] cachedRatings = batchEvaluator.rateMoves(gameState, gameState.getCurrentTeam(), moves, null);
+			for (int i = 0; i < moves.size(); i++) {
+				int rating = evaluator.rateMove(gameState, gameState.getCurrentTeam(), moves.get(i));
+				assertEquals(rating, batchRatings[i]);
+				assertEquals(rating, cachedRatings[i]);
+			}
+			assertTrue(features.isSynchronized());
+			assertArrayEquals(batchEvaluator.newFeatures(gameState).get(gameState.getCurrentTeam()),
+					features.get(gameState.getCurrentTeam()));
+			gameState.makeMove(chooseCaptureOrRandomMove(gameState, random));
+		}
+		assertTrue(gameState.getTotalNrOfConqueredMarbles() > 0);
+	}
+	
+	@Test
+	void testLazyRatingIsExactInsideTheWindowAndABoundOutsideOfIt() {
+		GameStateEvaluator evaluator = newBuilderWithAllWeights(true).build();
+		Random random = new Random(7);
+		int bounds = 0;
+		for (int turn = 0; turn < 80 && !gameState.isFinished(); turn++) {
+			int rating = evaluator.rateGameState(gameState, player1.getTeam());
+			for (int i = 0; i < 20; i++) {
+				int alpha = rating + random.nextInt(40000) - 20000;
+				int beta = alpha + random.nextInt(200) + 1;
+				int lazyRating = evaluator.rateGameState(gameState, player1.getTeam(), null, alpha, beta);
+				if (alpha < rating && rating < beta) {
+					assertEquals(rating, lazyRating);
+				} else if (lazyRating <= alpha) {
+					assertTrue(rating <= lazyRating);
+				} else {
+					assertTrue(lazyRating >= beta && rating >= lazyRating);
+				}
+				bounds += lazyRating == rating ? 0 : 1;
+			}
+			gameState.makeMove(chooseCaptureOrRandomMove(gameState, random));
+		}
+		assertTrue(bounds > 0);
+	}
+	
+	@Test
+	void testTeamFeatureCacheGivesTheRatingsComputedFromScratch() {
+		GameStateEvaluator evaluator = newBuilderWithAllWeights(true).build();
+		GameStateEvaluator cachingEvaluator = newBuilderWithAllWeights(true).enableHashing().build();
+		Random random = new Random(15);
+		for (int turn = 0; turn < 80 && !gameState.isFinished(); turn++) {
+			for (Team team : gameState.getTeams()) {
+				assertEquals(evaluator.rateGameState(gameState, team), 
+						cachingEvaluator.rateGameState(gameState, team, true));
+			}
+			for (Team team : gameState.getTeams()) {
+				int nrOfMarbles = 0;
+				for (Player player : team.players) {
+					nrOfMarbles += player.getMarbles().size();
+				}
+				int[] features = new int[PapadopoulosFeatures.NR_OF_FEATURES];
+				assertTrue(cachingEvaluator.teamFeatureCache.get(
+						gameState.getBoard().getTeamHash(team), nrOfMarbles, features));
+				assertEquals(team.computeCoherence(gameState.getBoard()), 
+						features[PapadopoulosFeatures.COHERENCE]);
+				assertEquals(team.computeDistanceFromCenter(), features[PapadopoulosFeatures.DISTANCE]);
+			}
+			gameState.makeMove(chooseCaptureOrRandomMove(gameState, random));
+		}
+		assertTrue(gameState.getTotalNrOfConqueredMarbles() > 0);
+	}
+	
+	@Test
+	void testCompiledRatingIsTheWeightedSumOfTheTerms() {
+		Random random = new Random(9);
+		for (boolean considerEnemyPosition : new boolean[] {false, true}) {
+			for (GameState gameState : Arrays.asList(
+					new GameState(Arrays.asList(Player.newPlayer("x", "random"), Player.newPlayer("y", "random"))),
+					new GameState(Arrays.asList(
+							Player.newPlayer("x", "random"), 
+							Player.newPlayer("y", "random"), 
+							Player.newPlayer("z", "random"))))) {
+				GameStateEvaluator normalized = newBuilderWithAllWeights(considerEnemyPosition).build();
+				GameStateEvaluator unnormalized = normalized.withWeights(normalized.getWeights());
+				int factor = 0;
+				for (int turn = 0; turn < 60 && !gameState.isFinished(); turn++) {
+					// Random weights, of which about half are 0 and are left out of the compiled rating.
+					int[] weights = new int[GameStateEvaluator.NR_OF_TERMS];
+					for (int i = 0; i < weights.length; i++) {
+						weights[i] = random.nextBoolean() ? 0 : random.nextInt(41) - 20;
+					}
+					GameStateEvaluator evaluator = normalized.withWeights(weights);
+					IncrementalFeatures features = evaluator.newFeatures(gameState);
+					for (Team team : gameState.getTeams()) {
+						int[] terms = normalized.computeTerms(gameState, team);
+						int rating = 0;
+						for (int i = 0; i < terms.length; i++) {
+							rating += weights[i] * terms[i];
+						}
+						assertEquals(rating, evaluator.rateGameState(gameState, team));
+						assertEquals(rating, evaluator.rateGameState(gameState, team, features));
+						// The normalization multiplies the weighted sum of the terms by a constant factor.
+						int sum = unnormalized.rateGameState(gameState, team);
+						if (factor == 0 && sum != 0) {
+							factor = normalized.rateGameState(gameState, team) / sum;
+							assertTrue(factor > 0);
+						}
+						assertEquals(sum * factor, normalized.rateGameState(gameState, team));
+					}
+					gameState.makeMove(chooseCaptureOrRandomMove(gameState, random));
+				}
+				assertTrue(gameState.getTotalNrOfConqueredMarbles() > 0);
+			}
+		}
+	}
+	
+	private int assertFeaturesAreExact(GameStateEvaluator evaluator, GameState gameState, 
+			IncrementalFeatures features) {
+		IncrementalFeatures fromScratch = evaluator.newFeatures(gameState);
+		PapadopoulosBitboards bitboards = new PapadopoulosBitboards(gameState);
+		for (Team team : gameState.getTeams()) {
+			assertArrayEquals(fromScratch.get(team), features.get(team));
+			assertArrayEquals(features.get(team), bitboards.get(team, true, true, true));
+			assertEquals(team.computeFormationBreak(gameState.getBoard()), 
+					features.get(team)[PapadopoulosFeatures.FORMATION_BREAK]);
+			assertEquals(team.computeSingleMarbleCapturingDanger(gameState.getBoard()), 
+					features.get(team)[PapadopoulosFeatures.SINGLE_DANGER]);
+			assertEquals(team.computeCoherence(gameState.getBoard()), 
+					features.get(team)[PapadopoulosFeatures.COHERENCE]);
+			assertEquals(team.computeDistanceFromCenter(), 
+					features.get(team)[PapadopoulosFeatures.DISTANCE]);
+			assertEquals(team.computeImmediateMarbleCapturingDanger(gameState.getBoard()), 
+					features.get(team)[PapadopoulosFeatures.IMMEDIATE_DANGER]);
+			assertEquals(team.computeDoubleMarbleCapturingDanger(gameState.getBoard()), 
+					features.get(team)[PapadopoulosFeatures.DOUBLE_DANGER]);
+		}
+		int rating = evaluator.rateGameState(gameState, gameState.getCurrentTeam(), features);
+		assertEquals(evaluator.rateGameState(gameState, gameState.getCurrentTeam()), rating);
+		return rating;
+	}
+	
 	@Test
 	void testRevertingToPreviousGameStateDoesNotCreateMoreHashes() {
 		evaluator.enableHashing();
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import model.gamelogic.GameState;
+import model.gamelogic.Move;
 import model.gamelogic.PlayableMove;
 import model.gamelogic.Player;
 
@@ -69,6 +70,68 @@ class IddfsTest {
 				+ (duration - time * 1000));
 	}
 
+	@Test
+	void testTimeBoundIddfsWithLazySmpAbortsTimelyAndSharesTranspositionTable() {
+		int time = 1;
+		Minimax lazySmp = new Minimax.Builder()
+				.withTimeBoundIddfs(time)
+				.enableLazySmp(3)
+				.enableMarbleOrdering(1, Integer.MAX_VALUE)
+				.build(gameState, evaluator);
+		gameState.gameStats.initializeTurn();
+		long startTime = System.nanoTime();
+		PlayableMove move = lazySmp.getBestMove();
+		long duration = (System.nanoTime() - startTime) / 1000000;
+		assertNotNull(move);
+		assertTrue(Move.allLegalMoves(gameState).contains(move));
+		assertTrue(duration < time * 1000 + 500, 
+				"getBestMove() should be supplied in the given "
+				+ "time + at maximum 500 milliseconds delay but the extra delay was: "
+				+ (duration - time * 1000));
+		// The helpers search copies of the gameState, so their entries must be usable by this gameState.
+		assertNotNull(evaluator.transpositionTable.get(gameState, gameState.getCurrentTeam()));
+	}
+	
+	@Test
+	void testTimeBoundIddfsWithTimeManagementProvidesMovesInTime() {
+		int time = 2;
+		Minimax iddfs = new Minimax.Builder()
+				.withTimeBoundIddfs(time)
+				.enableTimeManagement()
+				.enableHashing()
+				.enableMarbleOrdering(1, Integer.MAX_VALUE)
+				.build(gameState, evaluator);
+		gameState.gameStats.initializeTurn();
+		long startTime = System.nanoTime();
+		PlayableMove move = iddfs.getBestMove();
+		long duration = (System.nanoTime() - startTime) / 1000000;
+		assertTrue(Move.allLegalMoves(gameState).contains(move));
+		assertTrue(duration < time * 1000 + 100, 
+				"getBestMove() should be supplied in the given "
+				+ "time + at maximum 100 milliseconds delay but the extra delay was: "
+				+ (duration - time * 1000));
+		assertTrue(gameState.gameStats.currentTurnCommittedDepth.depth > 0);
+	}
+	
+	@Test
+	void testTimeBoundIddfsReusesItsThreadsAcrossMoves() {
+		Minimax iddfs = new Minimax.Builder()
+				.withTimeBoundIddfs(1)
+				.enableLazySmp(2)
+				.enableMarbleOrdering(1, Integer.MAX_VALUE)
+				.build(gameState, evaluator);
+		gameState.gameStats.initializeTurn();
+		PlayableMove move = iddfs.getBestMove();
+		gameState.makeMove(move);
+		int threads = Thread.activeCount();
+		for (int i = 0; i < 3; i++) {
+			move = iddfs.getBestMove();
+			assertTrue(Move.allLegalMoves(gameState).contains(move));
+			assertEquals(threads, Thread.activeCount());
+			gameState.makeMove(move);
+		}
+	}
+	
 	@Test
 	void testTimeBoundIddfsThrowsOnIllegalTime() {
 		int time = 0;
@@ -97,6 +160,39 @@ class IddfsTest {
 		assertThrows(AssertionError.class, () -> minusInfinitySecMinimax.getBestMove());
 	}
 	
+	@Test
+	void testNodeBoundIddfsIsDeterministic() {
+		Minimax.Builder builder = new Minimax.Builder()
+				.withNodeBoundIddfs(20000)
+				.enableHashing()
+				.enableMarbleOrdering(1, Integer.MAX_VALUE)
+				.enableHistoryHeuristicSorting(1, Integer.MAX_VALUE);
+		gameState.gameStats.initializeTurn();
+		PlayableMove move = builder.build(gameState, evaluator).getBestMove();
+		int nodesVisited = gameState.gameStats.currentTurnCommittedDepth.nodesVisited;
+		
+		for (int i = 0; i < 2; i++) {
+			GameState otherGameState = new GameState(Arrays.asList(
+					Player.newPlayer("x", "random"), Player.newPlayer("y", "random")));
+			GameStateEvaluator otherEvaluator = new GameStateEvaluator.Builder()
+					.withMarbleConqueredWeight(100)
+					.withDistanceFromCenterWeight(4)
+					.build();
+			otherGameState.gameStats.initializeTurn();
+			PlayableMove otherMove = builder.build(otherGameState, otherEvaluator).getBestMove();
+			assertEquals(move.getMoveNotation(), otherMove.getMoveNotation());
+			assertEquals(nodesVisited, otherGameState.gameStats.currentTurnCommittedDepth.nodesVisited);
+		}
+	}
+	
+	@Test
+	void testNodeBoundIddfsThrowsOnIllegalNodes() {
+		final Minimax zeroNodeIddfs = new Minimax.Builder()
+				.withNodeBoundIddfs(0)
+				.build(gameState, evaluator);
+		assertThrows(AssertionError.class, () -> zeroNodeIddfs.getBestMove());
+	}
+	
 	@Test
 	void testDepthBoundIddfsReachesSameConclusionAsDfs() {
 		Minimax.Builder builder = new Minimax.Builder()
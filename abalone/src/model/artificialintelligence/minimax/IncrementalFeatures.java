@@ -0,0 +1,297 @@
+package model.artificialintelligence.minimax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.gamelogic.Board;
+import model.gamelogic.Field;
+import model.gamelogic.GameState;
+import model.gamelogic.Marble;
+import model.gamelogic.Move;
+import model.gamelogic.Team;
+import model.hex.Direction;
+import model.hex.Hex;
+
+/**
+ * The running totals of features of the marbles of every team of a gameState, from which an evaluation
+ * function rates the gameState. The totals are computed once, after which every move only updates them
+ * for the marbles whose features it can change: the marbles on the fields that the move touched and on
+ * the fields in line with those, up to the distance at which a feature looks at other fields. Undoing a
+ * move restores the totals from before the move exactly.
+ * The board is mirrored in an array of the team numbers on every field, so that the features of
+ * a marble are computed without any lookups of Fields or Hexes.
+ */
+abstract class IncrementalFeatures {
+	//
+	// The fields of the board by index, with the index of the field at distance k (1 <= k <= 4) in
+	// every direction, or -1 if it is off the board.
+	static final int MAX_DISTANCE = 4;
+	static final List<Hex> HEXES = initHexes();
+	static final Map<Hex, Integer> INDICES = initIndices();
+	static final int[][][] LINES = initLines();
+	static final int[] LENGTHS = HEXES.stream().mapToInt(Hex::length).toArray();
+	
+	private final GameState gameState;
+	// The fields up to this distance in line with a changed field are affected by a move.
+	private final int reach;
+	// The team number of the marble on every field, 0 for an empty field.
+	final int[] teams;
+	// The totals by team number and feature.
+	final int[][] totals;
+	private long boardHash;
+	
+	// The totals and changed fields before every move that can be undone, by ply.
+	private int[][][] savedTotals = new int[0][][];
+	private int[][] savedChanges = new int[0][];
+	private int[] savedNrOfChanges = new int[0];
+	private long[] savedBoardHashes = new long[0];
+	private int ply = 0;
+	
+	// The fields whose marbles are updated by the current move, marked with the current stamp.
+	private int[] affected = new int[HEXES.size()];
+	private int nrOfAffected = 0;
+	private final int[] stamps = new int[HEXES.size()];
+	private int stamp = 0;
+	// The team numbers of the marbles on the changed fields of the simulated move.
+	private final int[] movingTeams = new int[6];
+	
+	private static List<Hex> initHexes() {
+		List<Hex> hexes = new ArrayList<>(Hex.build(Board.BOARD_RADIUS));
+		Collections.sort(hexes);
+		return Collections.unmodifiableList(hexes);
+	}
+	
+	private static Map<Hex, Integer> initIndices() {
+		Map<Hex, Integer> indices = new HashMap<>();
+		for (int i = 0; i < HEXES.size(); i++) {
+			indices.put(HEXES.get(i), i);
+		}
+		return indices;
+	}
+	
+	private static int[][][] initLines() {
+		List<Direction> directions = Direction.directions();
+		int[][][] lines = new int[HEXES.size()][directions.size()][MAX_DISTANCE + 1];
+		for (int i = 0; i < HEXES.size(); i++) {
+			for (int dir = 0; dir < directions.size(); dir++) {
+				lines[i][dir][0] = i;
+				for (int k = 1; k <= MAX_DISTANCE; k++) {
+					Integer index = INDICES.get(HEXES.get(i).neighbour(directions.get(dir), k));
+					lines[i][dir][k] = index == null ? -1 : index;
+				}
+			}
+		}
+		return lines;
+	}
+	
+	/**
+	 * Mirrors the board of the gameState. The subclass computes the totals with initialize.
+	 * @param gameState The gameState, whose moves must be passed to beforeMove and afterMove from now on.
+	 * @param nrOfFeatures The number of features per team.
+	 * @param reach The distance from a field within which the features of a marble look at other fields.
+	 */
+	IncrementalFeatures(GameState gameState, int nrOfFeatures, int reach) {
+		this.gameState = gameState;
+		this.reach = reach;
+		this.teams = new int[HEXES.size()];
+		this.totals = new int[gameState.getTeams().size() + 1][nrOfFeatures];
+		Board board = gameState.getBoard();
+		for (int i = 0; i < HEXES.size(); i++) {
+			teams[i] = teamOf(board.getField(HEXES.get(i)));
+		}
+	}
+	
+	/**
+	 * Adds the features of all marbles on the board to the totals.
+	 * Must be called once by the constructor of the subclass, after its own fields are initialized.
+	 */
+	void initialize() {
+		for (int i = 0; i < HEXES.size(); i++) {
+			if (teams[i] != 0) {
+				addFeatures(i, 1);
+			}
+		}
+		this.boardHash = gameState.getBoard().getBoardHash();
+	}
+	
+	/**
+	 * Adds the features of the marble on the given field to the totals of its team.
+	 * @param field The index of the field, which is not empty.
+	 * @param sign 1 to add the features, -1 to remove them.
+	 */
+	abstract void addFeatures(int field, int sign);
+	
+	private int teamOf(Field field) {
+		Marble marble = field.getMarble();
+		return marble == null ? 0 : gameState.getTeamNumber(marble.getTeam());
+	}
+	
+	GameState getGameState() {
+		return gameState;
+	}
+	
+	/**
+	 * Returns whether the totals are those of the current board of the gameState.
+	 * @return True if every move on the gameState since the totals were computed has been passed on,
+	 *     false if it has not or if a move is being simulated, see simulateMove.
+	 */
+	boolean isSynchronized() {
+		return boardHash == gameState.getBoard().getBoardHash();
+	}
+	
+	/**
+	 * Returns the totals of the features of the team, which are those of the current board of
+	 * the gameState if the totals are synchronized, or those of the board after the simulated move.
+	 * @param team The team.
+	 * @return The totals of the features over the marbles of the team, indexed by the feature
+	 *     constants of the subclass. The array is updated by later moves and must not be modified.
+	 */
+	int[] get(Team team) {
+		return totals[gameState.getTeamNumber(team)];
+	}
+	
+	/**
+	 * Removes the features of the marbles that the move affects from the totals.
+	 * Must be called right before the move is made, followed by afterMove right after it.
+	 * @param move The move that is about to be made on the gameState.
+	 */
+	void beforeMove(Move move) {
+		if (ply == savedTotals.length) {
+			int length = Math.max(8, ply * 2);
+			savedTotals = Arrays.copyOf(savedTotals, length);
+			savedChanges = Arrays.copyOf(savedChanges, length);
+			savedNrOfChanges = Arrays.copyOf(savedNrOfChanges, length);
+			savedBoardHashes = Arrays.copyOf(savedBoardHashes, length);
+		}
+		if (savedTotals[ply] == null) {
+			savedTotals[ply] = new int[totals.length][totals[0].length];
+			// A move changes at most 6 fields: a sidestep of 3 marbles, or a sumito of 5 marbles.
+			savedChanges[ply] = new int[6];
+		}
+		for (int team = 0; team < totals.length; team++) {
+			System.arraycopy(totals[team], 0, savedTotals[ply][team], 0, totals[team].length);
+		}
+		savedBoardHashes[ply] = boardHash;
+		
+		// The fields of the moving marbles change, as do the fields in their direction up to and
+		// including the first empty field, which covers the marbles that a sumito pushes.
+		int[] changes = savedChanges[ply];
+		int nrOfChanges = 0;
+		int direction = Direction.directions().indexOf(move.getDirection());
+		for (Marble marble : move.getMarbles()) {
+			int[] line = LINES[INDICES.get(marble.getHex())][direction];
+			for (int k = 0; k <= MAX_DISTANCE && line[k] != -1; k++) {
+				if (indexOf(changes, nrOfChanges, line[k]) == -1) {
+					changes[nrOfChanges++] = line[k];
+				}
+				if (teams[line[k]] == 0) {
+					break;
+				}
+			}
+		}
+		savedNrOfChanges[ply] = nrOfChanges;
+		
+		stamp++;
+		nrOfAffected = 0;
+		for (int c = 0; c < nrOfChanges; c++) {
+			for (int dir = 0; dir < LINES[0].length; dir++) {
+				for (int k = 0; k <= reach; k++) {
+					int field = LINES[changes[c]][dir][k];
+					if (field == -1) {
+						break;
+					}
+					if (stamps[field] != stamp) {
+						stamps[field] = stamp;
+						affected[nrOfAffected++] = field;
+					}
+				}
+			}
+		}
+		for (int i = 0; i < nrOfAffected; i++) {
+			if (teams[affected[i]] != 0) {
+				addFeatures(affected[i], -1);
+			}
+		}
+		ply++;
+	}
+	
+	/**
+	 * Adds the features of the marbles that the move affected to the totals.
+	 * Must be called right after the move that was passed to beforeMove has been made.
+	 */
+	void afterMove() {
+		int[] changes = savedChanges[ply - 1];
+		Board board = gameState.getBoard();
+		for (int c = 0; c < savedNrOfChanges[ply - 1]; c++) {
+			teams[changes[c]] = teamOf(board.getField(HEXES.get(changes[c])));
+		}
+		addAffectedFeatures();
+		boardHash = board.getBoardHash();
+	}
+	
+	/**
+	 * Updates the totals as if the move was made, without making it on the gameState: the marbles
+	 * on the fields that the move changes are moved one field in its direction in the mirror of the
+	 * board only. Must be followed by undoMove before the gameState changes.
+	 * @param move A legal move of the current gameState that does not capture a marble, as a captured
+	 *     marble also changes the conquered marbles of the gameState.
+	 */
+	void simulateMove(Move move) {
+		beforeMove(move);
+		int[] changes = savedChanges[ply - 1];
+		int nrOfChanges = savedNrOfChanges[ply - 1];
+		int direction = Direction.directions().indexOf(move.getDirection());
+		for (int c = 0; c < nrOfChanges; c++) {
+			movingTeams[c] = teams[changes[c]];
+			teams[changes[c]] = 0;
+		}
+		// Every changed field is either empty or followed by another changed field, see beforeMove.
+		for (int c = 0; c < nrOfChanges; c++) {
+			if (movingTeams[c] != 0) {
+				assert (LINES[changes[c]][direction][1] != -1);
+				teams[LINES[changes[c]][direction][1]] = movingTeams[c];
+			}
+		}
+		addAffectedFeatures();
+		boardHash = GameStateEvaluator.hashOfBoard(boardHash, move);
+	}
+	
+	private void addAffectedFeatures() {
+		for (int i = 0; i < nrOfAffected; i++) {
+			if (teams[affected[i]] != 0) {
+				addFeatures(affected[i], 1);
+			}
+		}
+	}
+	
+	/**
+	 * Restores the totals from before the last move that was passed to beforeMove or simulateMove.
+	 * Must be called right after that move has been undone, or right after it was simulated.
+	 */
+	void undoMove() {
+		ply--;
+		for (int team = 0; team < totals.length; team++) {
+			System.arraycopy(savedTotals[ply][team], 0, totals[team], 0, totals[team].length);
+		}
+		int[] changes = savedChanges[ply];
+		Board board = gameState.getBoard();
+		for (int c = 0; c < savedNrOfChanges[ply]; c++) {
+			teams[changes[c]] = teamOf(board.getField(HEXES.get(changes[c])));
+		}
+		boardHash = savedBoardHashes[ply];
+		assert (isSynchronized());
+	}
+	
+	private static int indexOf(int[] array, int length, int value) {
+		for (int i = 0; i < length; i++) {
+			if (array[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -14,6 +14,15 @@ public interface Minimax {
 	
 	GameState getGameState();
 	
+	/**
+	 * Returns the lines of the deepest depth that was searched completely by the last call to getBestMove,
+	 * from the best to the worst. There is a single line unless multi-PV is enabled.
+	 * A line is only as long as the search looked ahead in it without a cutoff of the transposition table.
+	 * @return The lines for the current position of the gameState, or an empty list if the last move
+	 *     was not found by searching this position, e.g. because it was a proven win.
+	 */
+	List<PrincipalVariation> getPrincipalVariations();
+	
 	/**
 	 * Returns a list of legal moves for the current gameState.
 	 * Based on the depth and active heuristics, the list will be sorted.
@@ -28,8 +37,20 @@ public interface Minimax {
 		@JsonProperty("depthBoundIddfs") private boolean depthBoundIddfs = false;
 		@JsonProperty("depth") private int depth = 0;
 		
+		@JsonProperty("nodeBoundIddfs") private boolean nodeBoundIddfs = false;
+		@JsonProperty("nodes") private int nodes = 0;
+		
 		@JsonProperty("timeBoundIddfs") private boolean timeBoundIddfs = false;
 		@JsonProperty("time") private int time = 0;
+		@JsonProperty("timeManagement") private boolean timeManagement = false;
+		@JsonProperty("clock") private int clock = 0;
+		@JsonProperty("increment") private int increment = 0;
+		@JsonProperty("lazySmpHelpers") private int lazySmpHelpers = 0;
+		@JsonProperty("youngBrothersWaitThreads") private int youngBrothersWaitThreads = 0;
+		@JsonProperty("pondering") private boolean pondering = false;
+		@JsonProperty("endgameSolverNodes") private int endgameSolverNodes = 0;
+		@JsonProperty("bestReplySearch") private boolean bestReplySearch = false;
+		@JsonProperty("multiPv") private int multiPv = 1;
 		
 		@JsonProperty("hashing") private boolean hashing = false;
 		@JsonProperty("windowNarrowing") private boolean windowNarrowing = false;
@@ -45,6 +66,8 @@ public interface Minimax {
 		@JsonProperty("iterationSorting") private boolean iterationSorting = false;
 		@JsonProperty("iterationSortingMinDepth") private int iterationSortingMinDepth = 0;
 		@JsonProperty("iterationSortingMaxDepth") private int iterationSortingMaxDepth = 0;
+		@JsonProperty("pvOrdering") private boolean pvOrdering = false;
+		@JsonProperty("lazyEvaluation") private boolean lazyEvaluation = false;
 		
 		
 		/** Creates a builder for Minimax.
@@ -64,6 +87,9 @@ public interface Minimax {
 			this.depthBoundIddfs = false;
 			this.depth = depth;
 			
+			this.nodeBoundIddfs = false;
+			this.nodes = 0;
+			
 			this.timeBoundIddfs = false;
 			this.time = 0;
 			return this;
@@ -82,6 +108,9 @@ public interface Minimax {
 			this.depthBoundIddfs = true;
 			this.depth = depth;
 			
+			this.nodeBoundIddfs = false;
+			this.nodes = 0;
+			
 			this.timeBoundIddfs = false;
 			this.time = 0;
 			return this;
@@ -99,11 +128,157 @@ public interface Minimax {
 			this.depthBoundIddfs = false;
 			this.depth = 0;
 			
+			this.nodeBoundIddfs = false;
+			this.nodes = 0;
+			
 			this.timeBoundIddfs = true;
 			this.time = time;
 			return this;
 		}
 		
+		/**
+		 * Sets the search algorithm to IDDFS with the given node limit, which is counted over all depths.
+		 * Unlike the time limit, the node limit makes the search deterministic: the same gameState 
+		 * results in the same search tree and the same move on any machine and under any load.
+		 * Cannot be used in conjunction with withDfs, withDepthBoundIddfs or withTimeBoundIddfs.
+		 * Calling this will override previously set IDDFS/DFS settings.
+		 * @param nodes The number of nodes that the IDDFS can search.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withNodeBoundIddfs(int nodes) {
+			this.dfs = false;
+			this.depthBoundIddfs = false;
+			this.depth = 0;
+			
+			this.nodeBoundIddfs = true;
+			this.nodes = nodes;
+			
+			this.timeBoundIddfs = false;
+			this.time = 0;
+			return this;
+		}
+		
+		/**
+		 * Enables adaptive time management for the time bound IDDFS: a new depth is only started if
+		 * it is predicted to finish in time, based on the effective branching factor. Positions with 
+		 * a single legal move or an obvious capture are replied to instantly.
+		 * Only has an effect in conjunction with withTimeBoundIddfs.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enableTimeManagement() {
+			this.timeManagement = true;
+			return this;
+		}
+		
+		/**
+		 * Gives the time bound IDDFS a game clock: the time per move is derived from the time left 
+		 * on the clock, and extended when the best move changes between depths. 
+		 * The time limit of withTimeBoundIddfs becomes the maximum time per move.
+		 * Also enables time management, as that is what divides the clock over the moves.
+		 * @param clock The time on the clock at the start of the game in seconds.
+		 * @param increment The time in seconds that is added to the clock after every move.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withClock(int clock, int increment) {
+			assert (clock > 0 && increment >= 0);
+			this.timeManagement = true;
+			this.clock = clock;
+			this.increment = increment;
+			return this;
+		}
+		
+		/**
+		 * Enables Lazy SMP for the time bound IDDFS: the given number of helper threads search the
+		 * same position on private copies of the gameState and share their results through the 
+		 * transposition table. Only has an effect in conjunction with withTimeBoundIddfs.
+		 * Also enables hashing, as that is how the helper threads communicate.
+		 * @param helpers The number of helper threads, usually the number of cores minus one.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enableLazySmp(int helpers) {
+			assert (helpers > 0);
+			this.hashing = true;
+			this.lazySmpHelpers = helpers;
+			return this;
+		}
+		
+		/**
+		 * Enables the parallel Young Brothers Wait search for the DFS and the depth bound IDDFS.
+		 * Every node searches its eldest child first, after which the other children are searched
+		 * in parallel by a work-stealing pool of the given number of threads.
+		 * Only has an effect in conjunction with withDfs or withDepthBoundIddfs.
+		 * @param threads The number of threads, usually the number of cores.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enableYoungBrothersWait(int threads) {
+			assert (threads > 0);
+			this.youngBrothersWaitThreads = threads;
+			return this;
+		}
+		
+		/**
+		 * Enables pondering: after a move has been determined, the reply of the opponent is predicted
+		 * and searched in the background until the next move is requested, filling the transposition
+		 * table. On a ponder hit, the search continues from the depth reached while pondering.
+		 * The ponder search is bound by the depth or the time limit of the search algorithm.
+		 * Also enables hashing, as that is how the ponder search passes on its results on a ponder miss.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enablePondering() {
+			this.hashing = true;
+			this.pondering = true;
+			return this;
+		}
+		
+		/**
+		 * Enables the endgame solver: once any team has conquered five marbles, a proof-number search 
+		 * looks for a forced win before the normal search starts. If it proves one within the given 
+		 * number of nodes, its first move is played without searching any further.
+		 * @param nodes The number of nodes that the solver may search per move.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enableEndgameSolver(int nodes) {
+			assert (nodes > 0);
+			this.endgameSolverNodes = nodes;
+			return this;
+		}
+		
+		/**
+		 * Sets the search of games with more than two teams to Paranoid search, which is the default: 
+		 * every opponent replies in turn and all of them minimize the score of the optimizing team.
+		 * A round takes as many plies as there are teams.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withParanoidSearch() {
+			this.bestReplySearch = false;
+			return this;
+		}
+		
+		/**
+		 * Sets the search of games with more than two teams to Best-Reply Search: all opponents are 
+		 * collapsed into a single layer, in which only the opponent with the best reply moves and the 
+		 * other opponents pass. A round takes two plies, so the search reaches deeper than Paranoid search.
+		 * In games of two teams, both searches are the same.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withBestReplySearch() {
+			this.bestReplySearch = true;
+			return this;
+		}
+		
+		/**
+		 * Sets the number of best root moves that are searched with an exact score and principal variation,
+		 * see getPrincipalVariations. The lines share a single search, which is slower than searching for
+		 * the best move only, as fewer root moves are cut off.
+		 * @param lines The number of lines, 1 to only search for the best move.
+		 * @return this, for argument chaining.
+		 */
+		public Builder withMultiPv(int lines) {
+			assert (lines > 0);
+			this.multiPv = lines;
+			return this;
+		}
+		
 		public Builder enableHashing() {
 			this.hashing = true;
 			return this;
@@ -177,6 +352,27 @@ public interface Minimax {
 			return this;
 		}
 		
+		/**
+		 * Enables PV ordering: at every node of the best line of the previous depth of an iterative deepening
+		 * search, the move of that line is searched first, ahead of all other move ordering heuristics.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enablePvOrdering() {
+			this.pvOrdering = true;
+			return this;
+		}
+		
+		/**
+		 * Enables lazy evaluation: the leaves are rated from the marbles conquered and the distance from 
+		 * the center first, and only if that cannot put the rating outside of the window of the search, 
+		 * from the other features as well. Only has effect if the features are not updated incrementally.
+		 * @return this, for argument chaining.
+		 */
+		public Builder enableLazyEvaluation() {
+			this.lazyEvaluation = true;
+			return this;
+		}
+		
 		/**
 		 * Builds a minimax from the given arguments.
 		 * @param gameState GameState for which the minimax will work.
@@ -193,14 +389,64 @@ public interface Minimax {
 				result = new TimeBoundIterativeDeepeningDfs(gameState, evaluator, time);
 			} else if (depthBoundIddfs) {
 				result = new DepthBoundIterativeDeepeningDfs(gameState, evaluator, depth);
+			} else if (nodeBoundIddfs) {
+				result = new NodeBoundIterativeDeepeningDfs(gameState, evaluator, nodes);
 			} else {
-				throw new IllegalBuildException("Build must use dfs or timeBoundIddfs.");
+				throw new IllegalBuildException("Build must use dfs, depthBoundIddfs, timeBoundIddfs "
+						+ "or nodeBoundIddfs.");
 			}
 			
 			if (hashing) {
 				((DefaultMinimax)result).evaluator.enableHashing();
 				((DefaultMinimax)result).enableWindowNarrowing();
 			}
+			if (timeManagement || clock > 0) {
+				if (timeBoundIddfs) {
+					((TimeBoundIterativeDeepeningDfs)result).enableTimeManagement(clock > 0 
+							? new TimeManager(time, clock, increment) 
+							: new TimeManager(time));
+				} else {
+					System.err.println("Warning: Time management requires the time bound IDDFS. "
+							+ "Continuing program execution without time management.");
+				}
+			}
+			if (lazySmpHelpers > 0) {
+				if (timeBoundIddfs && hashing) {
+					((TimeBoundIterativeDeepeningDfs)result).enableLazySmp(lazySmpHelpers);
+				} else {
+					System.err.println("Warning: Lazy SMP requires the time bound IDDFS and the "
+							+ "hashing functionality. Continuing program execution without Lazy SMP.");
+				}
+			}
+			if (youngBrothersWaitThreads > 0) {
+				if (dfs || depthBoundIddfs) {
+					((DefaultMinimax)result).enableYoungBrothersWait(youngBrothersWaitThreads);
+				} else {
+					System.err.println("Warning: The Young Brothers Wait search requires the dfs or the "
+							+ "depth bound IDDFS. Continuing program execution without it.");
+				}
+			}
+			if (pondering) {
+				if (nodeBoundIddfs) {
+					System.err.println("Warning: Pondering would make the node bound IDDFS depend on "
+							+ "the timing of the opponent. Continuing program execution without pondering.");
+				} else if (hashing) {
+					((DefaultMinimax)result).enablePondering(
+							timeBoundIddfs ? Integer.MAX_VALUE : depth, timeBoundIddfs ? time : 0);
+				} else {
+					System.err.println("Warning: Pondering requires the hashing functionality. "
+							+ "Continuing program execution without pondering.");
+				}
+			}
+			if (endgameSolverNodes > 0) {
+				((DefaultMinimax)result).enableEndgameSolver(endgameSolverNodes);
+			}
+			if (bestReplySearch) {
+				((DefaultMinimax)result).enableBestReplySearch();
+			}
+			if (multiPv > 1) {
+				((DefaultMinimax)result).enableMultiPv(multiPv);
+			}
 			if (evaluateSorting) {
 				((DefaultMinimax)result).enableEvaluateSorting(
 						evaluateSortingMinDepth, evaluateSortingMaxDepth);
@@ -213,6 +459,12 @@ public interface Minimax {
 				((DefaultMinimax)result).enableMarbleOrdering(
 						marbleOrderingMinDepth, marbleOrderingMaxDepth);
 			}
+			if (pvOrdering) {
+				((DefaultMinimax)result).enablePvOrdering();
+			}
+			if (lazyEvaluation) {
+				((DefaultMinimax)result).enableLazyEvaluation();
+			}
 			if (iterationSorting) {
 				if (hashing) {
 					((DefaultMinimax)result).enableIterationSorting(
@@ -14,6 +14,7 @@ import org.junit.jupiter.api.Test;
 
 import com.google.common.collect.Ordering;
 
+import model.artificialintelligence.RandomStrategy;
 import model.gamelogic.Board;
 import model.gamelogic.GameState;
 import model.gamelogic.Move;
@@ -174,6 +175,371 @@ class MinimaxTest {
 		
 	}
 	
+	@Test
+	void testEndgameSolverProvesOneTurnWin() {
+		prepareUnsafeOneTurnKill();
+		player1.getTeam().getConqueredMarbles().addAll(Arrays.asList(null, null, null, null, null));
+		long boardHash = board.getBoardHash();
+		
+		ProofNumberSearch solver = new ProofNumberSearch(gameState, 10000);
+		PlayableMove move = solver.solve();
+		assertEquals(boardHash, board.getBoardHash());
+		assertNotNull(move);
+		gameState.makeMove(move);
+		assertTrue(gameState.isFinished());
+		assertEquals(player1.getTeam(), gameState.getWinner());
+	}
+	
+	@Test
+	void testEndgameSolverProvesTwoTurnWin() {
+		prepareTwoTurnKill();
+		player1.getTeam().getConqueredMarbles().addAll(Arrays.asList(null, null, null, null, null));
+		long boardHash = board.getBoardHash();
+		
+		ProofNumberSearch solver = new ProofNumberSearch(gameState, 100000);
+		PlayableMove move = solver.solve();
+		assertEquals(boardHash, board.getBoardHash());
+		assertNotNull(move);
+		gameState.makeMove(move);
+		assertFalse(gameState.isFinished());
+		// A depth 3 alpha-beta search visits at least every reply to the first move.
+		assertTrue(solver.getNodes() < 20000);
+	}
+	
+	@Test
+	void testEndgameSolverDoesNotProveWinWithoutOne() {
+		player2.getTeam().getConqueredMarbles().addAll(Arrays.asList(null, null, null, null, null));
+		assertTrue(ProofNumberSearch.isEndgame(gameState));
+		long boardHash = board.getBoardHash();
+		
+		ProofNumberSearch solver = new ProofNumberSearch(gameState, 5000);
+		assertNull(solver.solve());
+		assertEquals(boardHash, board.getBoardHash());
+		assertEquals(0, gameState.getTurn());
+	}
+	
+	@Test
+	void testMinimaxWithEndgameSolverPlaysForcedWin() {
+		evaluator = new GameStateEvaluator.Builder()
+        		.withDistanceFromCenterWeight(1)
+        		.build();
+		Minimax dfsMinimax = new Minimax.Builder()
+				.withDfs(1)
+				.enableEndgameSolver(100000)
+				.build(gameState, evaluator);
+		
+		prepareTwoTurnKill();
+		player1.getTeam().getConqueredMarbles().addAll(Arrays.asList(null, null, null, null, null));
+		gameState.gameStats.initializeTurn();
+		gameState.makeMove(dfsMinimax.getBestMove());
+		assertTrue(gameState.gameStats.currentTurnCommittedDepth.nodesVisited > 0);
+		gameState.gameStats.commitTurn();
+		
+		// Whatever the reply, the next move wins.
+		gameState.gameStats.initializeTurn();
+		gameState.makeMove(new RandomStrategy().determineMove(gameState));
+		gameState.gameStats.commitTurn();
+		gameState.gameStats.initializeTurn();
+		gameState.makeMove(dfsMinimax.getBestMove());
+		assertEquals(player1.getTeam(), gameState.getWinner());
+	}
+	
+	@Test
+	void testBestReplySearchCollapsesTheOpponentsIntoOneLayer() {
+		Player player3 = Player.newPlayer("z", "random");
+		gameState = new GameState(Arrays.asList(player1, player2, player3));
+		evaluator = new GameStateEvaluator.Builder()
+				.withCoherenceWeight(1)
+				.withDistanceFromCenterWeight(3)
+				.build();
+		long boardHash = gameState.getBoard().getBoardHash();
+		GameState paranoidGameState = gameState.copy();
+		
+		// With Best-Reply Search, depth 3 ends at the second move of the optimizing team, 
+		// which Paranoid search only reaches at depth 4.
+		Minimax bestReply = new Minimax.Builder()
+				.withDfs(3)
+				.withBestReplySearch()
+				.enableMarbleOrdering(1, 3)
+				.build(gameState, evaluator);
+		gameState.gameStats.initializeTurn();
+		PlayableMove move = bestReply.getBestMove();
+		gameState.gameStats.commitDepth();
+		int bestReplyNodes = gameState.gameStats.currentTurnCommittedDepth.nodesVisited;
+		assertTrue(gameState.isLegal(move));
+		assertEquals(player1, gameState.getCurrentPlayer());
+		assertEquals(0, gameState.getTurn());
+		assertEquals(boardHash, gameState.getBoard().getBoardHash());
+		
+		Minimax paranoid = new Minimax.Builder()
+				.withDfs(4)
+				.withParanoidSearch()
+				.enableMarbleOrdering(1, 4)
+				.build(paranoidGameState, evaluator);
+		paranoid.getBestMove();
+		paranoidGameState.gameStats.commitDepth();
+		assertTrue(bestReplyNodes < paranoidGameState.gameStats.currentTurnCommittedDepth.nodesVisited);
+	}
+	
+	@Test
+	void testBestReplySearchEqualsParanoidSearchWithTwoTeams() {
+		evaluator = new GameStateEvaluator.Builder()
+				.withCoherenceWeight(1)
+				.withDistanceFromCenterWeight(3)
+				.build();
+		gameState.gameStats.initializeTurn();
+		PlayableMove paranoidMove = new Minimax.Builder()
+				.withDfs(3)
+				.build(gameState, evaluator)
+				.getBestMove();
+		PlayableMove bestReplyMove = new Minimax.Builder()
+				.withDfs(3)
+				.withBestReplySearch()
+				.build(gameState, evaluator)
+				.getBestMove();
+		assertEquals(paranoidMove, bestReplyMove);
+	}
+	
+	@Test
+	void testMultiPvSearchesTheBestLinesWithExactScores() {
+		evaluator = new GameStateEvaluator.Builder()
+				.withCoherenceWeight(1)
+				.withDistanceFromCenterWeight(3)
+				.build();
+		gameState.gameStats.initializeTurn();
+		PlayableMove bestMove = new Minimax.Builder()
+				.withDfs(3)
+				.build(gameState, evaluator)
+				.getBestMove();
+		
+		// With a line for every move, none of the root moves is cut off.
+		int nrOfMoves = Move.allLegalMoves(gameState).size();
+		Minimax allLines = new Minimax.Builder()
+				.withDfs(3)
+				.withMultiPv(nrOfMoves)
+				.build(gameState, evaluator);
+		assertEquals(bestMove, allLines.getBestMove());
+		assertEquals(nrOfMoves, allLines.getPrincipalVariations().size());
+		
+		Minimax threeLines = new Minimax.Builder()
+				.withDfs(3)
+				.withMultiPv(3)
+				.build(gameState, evaluator);
+		assertEquals(bestMove, threeLines.getBestMove());
+		List<PrincipalVariation> lines = threeLines.getPrincipalVariations();
+		assertEquals(3, lines.size());
+		assertEquals(bestMove, lines.get(0).getMove());
+		for (int i = 0; i < lines.size(); i++) {
+			assertEquals(allLines.getPrincipalVariations().get(i).getScore(), lines.get(i).getScore());
+			assertEquals(3, lines.get(i).getMoves().size());
+		}
+		assertEquals(lines.get(0).toString(), gameState.gameStats.currentTurnCommittedDepth.principalVariations.get(0));
+		
+		// The line of the best move can be played out.
+		for (PlayableMove move : lines.get(0).getMoves()) {
+			assertTrue(gameState.isLegal(move));
+			gameState.makeMove(move);
+		}
+		assertTrue(threeLines.getPrincipalVariations().isEmpty());
+	}
+	
+	@Test
+	void testYoungBrothersWaitReachesSameConclusionAsSerialDfs() {
+		evaluator = new GameStateEvaluator.Builder()
+        		.withMarbleConqueredWeight(10)
+        		.withCoherenceWeight(2)
+        		.withDistanceFromCenterWeight(1)
+        		.build();
+		prepareTwoTurnKill();
+		gameState.gameStats.initializeTurn();
+		for (int depth = 1; depth <= 3; depth++) {
+			Minimax serial = new Minimax.Builder()
+					.withDfs(depth)
+					.enableMarbleOrdering(1, Integer.MAX_VALUE)
+					.build(gameState, evaluator);
+			Minimax parallel = new Minimax.Builder()
+					.withDfs(depth)
+					.enableMarbleOrdering(1, Integer.MAX_VALUE)
+					.enableYoungBrothersWait(4)
+					.build(gameState, evaluator);
+			long hash = board.getBoardHash();
+			assertEquals(serial.getBestMove(), parallel.getBestMove());
+			assertEquals(hash, board.getBoardHash());
+		}
+	}
+	
+	@Test
+	void testYoungBrothersWaitBelowTheRootReachesSameConclusionAsSerialDfs() {
+		// Below depth 4 the only split point is the root. At depth 4 the younger brothers of the
+		// nodes below the root are searched in parallel too, with a shared bound and aborts on a cutoff.
+		evaluator = new GameStateEvaluator.Builder()
+        		.withMarbleConqueredWeight(10)
+        		.withCoherenceWeight(2)
+        		.withDistanceFromCenterWeight(1)
+        		.build();
+		prepareTwoTurnKill();
+		gameState.gameStats.initializeTurn();
+		Minimax serial = new Minimax.Builder()
+				.withDfs(4)
+				.enableMarbleOrdering(1, Integer.MAX_VALUE)
+				.build(gameState, evaluator);
+		Minimax parallel = new Minimax.Builder()
+				.withDfs(4)
+				.enableMarbleOrdering(1, Integer.MAX_VALUE)
+				.enableYoungBrothersWait(4)
+				.build(gameState, evaluator);
+		long hash = board.getBoardHash();
+		assertEquals(serial.getBestMove(), parallel.getBestMove());
+		assertEquals(serial.getPrincipalVariations().get(0).getScore(),
+				parallel.getPrincipalVariations().get(0).getScore());
+		assertEquals(hash, board.getBoardHash());
+	}
+	
+	@Test
+	void testLazyEvaluationReachesSameConclusionAsFullEvaluation() {
+		evaluator = new GameStateEvaluator.Builder()
+				.withMarbleConqueredWeight(800)
+				.withCoherenceWeight(3)
+				.withDistanceFromCenterWeight(8)
+				.withFormationBreakWeight(10)
+				.withSingleMarbleCapWeight(30)
+				.withDoubleMarbleCapWeight(50)
+				.enableBitboards()
+				.build();
+		prepareTwoTurnKill();
+		gameState.gameStats.initializeTurn();
+		for (int depth = 1; depth <= 3; depth++) {
+			Minimax full = new Minimax.Builder()
+					.withDfs(depth)
+					.enableMarbleOrdering(1, Integer.MAX_VALUE)
+					.build(gameState, evaluator);
+			Minimax lazy = new Minimax.Builder()
+					.withDfs(depth)
+					.enableMarbleOrdering(1, Integer.MAX_VALUE)
+					.enableLazyEvaluation()
+					.build(gameState, evaluator);
+			assertEquals(full.getBestMove(), lazy.getBestMove());
+			assertEquals(full.getPrincipalVariations().get(0).getScore(), 
+					lazy.getPrincipalVariations().get(0).getScore());
+		}
+	}
+	
+	@Test
+	void testStoppedSearchPublishesBestRootMoveSoFar() {
+		evaluator = new GameStateEvaluator.Builder()
+        		.withMarbleConqueredWeight(10)
+        		.withDistanceFromCenterWeight(1)
+        		.build();
+		gameState.gameStats.initializeTurn();
+		// Stops the search once three root moves have been searched.
+		DefaultMinimax minimax = new DepthFirstSearch(gameState, evaluator, 3) {
+			int searchedRootMoves = 0;
+			
+			@Override
+			protected int minimax(int depthLimit, int currentDepth, int alpha, int beta, PlayableMove move) {
+				int result = super.minimax(depthLimit, currentDepth, alpha, beta, move);
+				if (currentDepth == 1 && ++searchedRootMoves == 3) {
+					stop();
+				}
+				return result;
+			}
+		};
+		long hash = board.getBoardHash();
+		assertNull(minimax.minimax(3));
+		assertEquals(hash, board.getBoardHash());
+		assertTrue(minimax.searchedRootMoves.size() >= 3);
+		assertTrue(minimax.searchedRootMoves.size() < Move.allLegalMoves(gameState).size());
+		assertTrue(minimax.searchedRootMoves.contains(minimax.partialBestMove));
+		assertTrue(minimax.partialBestScore > Integer.MIN_VALUE);
+	}
+	
+	@Test
+	void testPonderHitContinuesFromPonderSearchAndPonderMissKeepsTranspositionTable() 
+			throws InterruptedException {
+		evaluator = new GameStateEvaluator.Builder()
+        		.withMarbleConqueredWeight(10)
+        		.withCoherenceWeight(2)
+        		.withDistanceFromCenterWeight(1)
+        		.build();
+		gameState.gameStats.initializeTurn();
+		DefaultMinimax minimax = (DefaultMinimax) new Minimax.Builder()
+				.withDepthBoundIddfs(2)
+				.enablePondering()
+				.build(gameState, evaluator);
+		
+		// Ponder hit: the opponent plays the predicted reply.
+		PlayableMove move = minimax.getBestMove();
+		List<PlayableMove> line = minimax.getPrincipalVariations().get(0).getMoves();
+		minimax.startPondering(move);
+		// The reply is the one that the search expects.
+		assertEquals(line.get(1).getMoveNotation(), minimax.ponder.predictedReply);
+		gameState.makeMove(move);
+		gameState.makeMove(Move.newMove(board, minimax.ponder.predictedReply, gameState.getCurrentPlayer()));
+		minimax.ponder.thread.join();
+		Ponder.Result ponderHit = minimax.stopPondering();
+		assertNotNull(ponderHit);
+		assertEquals(2, ponderHit.depth);
+		assertTrue(gameState.isLegal(ponderHit.move));
+		
+		// Ponder miss: the opponent plays another move.
+		minimax.startPondering(ponderHit.move);
+		gameState.makeMove(ponderHit.move);
+		String predictedReply = minimax.ponder.predictedReply;
+		PlayableMove reply = Move.allLegalMoves(gameState).stream()
+				.filter(m -> !m.getMoveNotation().equals(predictedReply))
+				.findAny().get();
+		gameState.makeMove(reply);
+		minimax.ponder.thread.join();
+		int transpositionTableSize = evaluator.transpositionTable.size();
+		assertNull(minimax.stopPondering());
+		assertEquals(transpositionTableSize, evaluator.transpositionTable.size());
+		assertTrue(gameState.isLegal(minimax.getBestMove()));
+	}
+	
+	@Test
+	void testStoppedDepthAfterPonderHitOnlyReplacesPonderMoveIfItScoresHigher() 
+			throws InterruptedException {
+		evaluator = new GameStateEvaluator.Builder()
+        		.withMarbleConqueredWeight(10)
+        		.withCoherenceWeight(2)
+        		.withDistanceFromCenterWeight(1)
+        		.build();
+		gameState.gameStats.initializeTurn();
+		// Stops the first depth after the ponder hit once its first root move has been searched.
+		DefaultMinimax minimax = new TimeBoundIterativeDeepeningDfs(gameState, evaluator, 60) {
+			@Override
+			protected int minimax(int depthLimit, int currentDepth, int alpha, int beta, PlayableMove move) {
+				int result = super.minimax(depthLimit, currentDepth, alpha, beta, move);
+				if (currentDepth == 1) {
+					stop();
+				}
+				return result;
+			}
+		};
+		minimax.enablePondering(2, 0);
+		
+		// Ponder hit on the first legal move and its predicted reply.
+		PlayableMove move = Move.allLegalMoves(gameState).iterator().next();
+		minimax.startPondering(move);
+		gameState.makeMove(move);
+		gameState.makeMove(Move.newMove(board, minimax.ponder.predictedReply, gameState.getCurrentPlayer()));
+		minimax.ponder.thread.join();
+		// The ponder search completed depth 2, like a search of the position to depth 2.
+		DefaultMinimax ponderSearch = new DepthFirstSearch(gameState.copy(), evaluator, 2);
+		String ponderMove = ponderSearch.getBestMove().getMoveNotation();
+		int ponderScore = ponderSearch.partialBestScore;
+		
+		String bestMove = minimax.getBestMove().getMoveNotation();
+		assertTrue(minimax.searchedRootMoves.size() < Move.allLegalMoves(gameState).size());
+		boolean ponderMoveSearched = minimax.searchedRootMoves.stream()
+				.anyMatch(m -> m.getMoveNotation().equals(ponderMove));
+		if (minimax.partialBestScore > ponderScore || ponderMoveSearched) {
+			assertEquals(minimax.partialBestMove.getMoveNotation(), bestMove);
+		} else {
+			assertEquals(ponderMove, bestMove);
+		}
+	}
+	
 	@Test
 	void testCombinedMoveOrderingIsAppliedAndWorksAsExpectedAtDepth4() throws Exception { 
 		// Depth 2 and 3 are not tested because set randomness is stronger than the heuristics at those depths. 
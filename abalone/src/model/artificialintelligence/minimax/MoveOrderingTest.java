@@ -271,4 +271,121 @@ class MoveOrderingTest {
 							.get(iterationSorted.size() - 1)));
 		}
 	}
+	
+	@Test
+	void testRootMoveListOrdersByScoreThenBySubtreeSize() {
+		List<PlayableMove> moves = new ArrayList<>(Move.allLegalMoves(gameState)).subList(0, 4);
+		RootMoveList rootMoves = new RootMoveList(gameState);
+		assertTrue(rootMoves.isEmpty());
+		rootMoves.record(moves.get(0), Integer.MIN_VALUE, 10);
+		rootMoves.record(moves.get(1), 7, 1);
+		rootMoves.record(moves.get(2), Integer.MIN_VALUE, 100);
+		assertEquals(Arrays.asList(moves.get(1), moves.get(2), moves.get(0), moves.get(3)), 
+				rootMoves.order(moves));
+		
+		// A later iteration replaces the record of a move.
+		rootMoves.record(moves.get(0), 8, 10);
+		assertEquals(Arrays.asList(moves.get(0), moves.get(1), moves.get(2), moves.get(3)), 
+				rootMoves.order(moves));
+	}
+	
+	@Test
+	void testRootMovesPutBestMoveFirstAndCarryOverToNextTurn() {
+		DefaultMinimax minimax = (DefaultMinimax) new Minimax.Builder()
+				.enableHashing()
+				.withDepthBoundIddfs(3)
+				.enableMarbleOrdering(1, 3)
+				.enableIterationSorting(1, 3)
+				.build(gameState, evaluator);
+		gameState.gameStats.initializeTurn();
+		PlayableMove bestMove = minimax.getBestMove();
+		assertEquals(bestMove, minimax.getAllLegalMoves(1).get(0));
+		gameState.gameStats.commitTurn();
+		
+		// The first reply to the best move is always searched, so the position after it has been recorded.
+		gameState.makeMove(bestMove);
+		gameState.makeMove(minimax.getAllLegalMoves(2).get(0));
+		minimax.selectRootMoves();
+		assertFalse(minimax.rootMoves.isEmpty());
+		assertEquals(gameState.getBoard().getBoardHash(), minimax.rootMoves.getBoardHash());
+	}
+	
+	@Test
+	void testRootMovesAreOnlyCarriedOverUnderTheFirstRootMoveAlsoFromYoungerBrothers() {
+		DefaultMinimax minimax = (DefaultMinimax) new Minimax.Builder()
+				.enableHashing()
+				.withDfs(4)
+				.enableYoungBrothersWait(2)
+				.enableMarbleOrdering(1, 4)
+				.enableIterationSorting(1, 4)
+				.build(gameState, evaluator);
+		gameState.gameStats.initializeTurn();
+		minimax.getBestMove();
+		
+		// Under the first root move, the window is open, so every reply is searched. The replies after
+		// the first are searched by the workers of the split point after the root move.
+		boolean found = false;
+		for (PlayableMove move : Move.allLegalMoves(gameState)) {
+			GameState afterMove = gameState.copy();
+			afterMove.makeMove(Move.newMove(afterMove.getBoard(), move.getMoveNotation(), 
+					afterMove.getCurrentPlayer()));
+			List<Long> replies = new ArrayList<>();
+			for (PlayableMove reply : Move.allLegalMoves(afterMove)) {
+				replies.add(GameStateEvaluator.hashOfBoard(afterMove.getBoard().getBoardHash(), reply));
+			}
+			if (minimax.nextRootMoves.keySet().containsAll(replies)) {
+				assertEquals(replies.size(), minimax.nextRootMoves.size());
+				found = true;
+			}
+		}
+		assertTrue(found);
+	}
+	
+	@Test
+	void testPvOrderingSearchesTheBestLineOfThePreviousDepthFirst() {
+		gameState.gameStats.initializeTurn();
+		Minimax withoutPvOrdering = new Minimax.Builder()
+				.withDepthBoundIddfs(3)
+				.enableMarbleOrdering(1, 3)
+				.build(gameState.copy(), evaluator);
+		withoutPvOrdering.getBestMove();
+		DefaultMinimax minimax = (DefaultMinimax) new Minimax.Builder()
+				.withDepthBoundIddfs(3)
+				.enableMarbleOrdering(1, 3)
+				.enablePvOrdering()
+				.build(gameState, evaluator);
+		minimax.getBestMove();
+		PrincipalVariation pv = minimax.getPrincipalVariations().get(0);
+		assertEquals(withoutPvOrdering.getPrincipalVariations().get(0).getScore(), pv.getScore());
+		assertEquals(3, pv.getMoves().size());
+		assertEquals(3, gameState.gameStats.currentTurnCommittedDepth.principalVariationByDepth.size());
+		
+		// Every node of the line searches the move of the line first.
+		for (int depth = 1; depth <= pv.getMoves().size(); depth++) {
+			PlayableMove first = minimax.orderMoves(depth).get(0);
+			assertEquals(pv.getMoves().get(depth - 1).getMoveNotation(), first.getMoveNotation());
+			gameState.makeMove(first);
+		}
+	}
+	
+	@Test
+	void testMovePickerWeighsTermsByPrecedence() {
+		List<PlayableMove> moves = new ArrayList<>(Move.allLegalMoves(gameState)).subList(0, 4);
+		MovePicker picker = new MovePicker();
+		// The history term outweighs any evaluation, the marble term outweighs any history.
+		picker.add(moves.get(0), MovePicker.evaluationTerm(Integer.MAX_VALUE));
+		picker.add(moves.get(1), MovePicker.historyTerm(1));
+		picker.add(moves.get(2), 
+				MovePicker.marbleTerm(6, false) + MovePicker.historyTerm(Integer.MAX_VALUE));
+		picker.add(moves.get(3), MovePicker.marbleTerm(5, false));
+		assertEquals(moves.get(3), picker.get(0));
+		assertEquals(Arrays.asList(moves.get(3), moves.get(2), moves.get(1), moves.get(0)), picker);
+		
+		// Ties keep the order in which the moves were added, and a reused picker starts over.
+		picker.clear();
+		for (PlayableMove move : moves) {
+			picker.add(move, MovePicker.historyTerm(5));
+		}
+		assertEquals(moves, picker);
+	}
 }
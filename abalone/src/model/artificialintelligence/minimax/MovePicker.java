@@ -0,0 +1,211 @@
+package model.artificialintelligence.minimax;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import model.gamelogic.PlayableMove;
+
+/**
+ * The legal moves of a node, ordered by a single combined score per move.
+ * The heuristics of the move ordering each contribute a term to the score, weighted so that the terms
+ * take precedence over each other in this order: iteration, marble group and capture, history and
+ * evaluation. Ties are broken by the order in which the moves were added.
+ * The moves are selected lazily: the best remaining move is only looked up once it is requested,
+ * so the moves after a cutoff are never ordered.
+ * A picker is meant to be reused for every node at the same depth, which keeps its arrays.
+ */
+class MovePicker extends AbstractList<PlayableMove> {
+	//
+	// The bits of the combined score, from least to most significant.
+	private static final int INDEX_BITS = 10;
+	private static final int EVALUATION_BITS = 22;
+	private static final int HISTORY_BITS = 16;
+	private static final int RANK_BITS = 9;
+	
+	private static final int EVALUATION_SHIFT = INDEX_BITS;
+	private static final int HISTORY_SHIFT = EVALUATION_SHIFT + EVALUATION_BITS;
+	private static final int CAPTURE_SHIFT = HISTORY_SHIFT + HISTORY_BITS;
+	private static final int MARBLE_SHIFT = CAPTURE_SHIFT + 1;
+	private static final int RANK_SHIFT = MARBLE_SHIFT + 3;
+	private static final int TIER_SHIFT = RANK_SHIFT + RANK_BITS;
+	
+	/**
+	 * The maximum number of moves of a picker.
+	 */
+	static final int MAX_MOVES = 1 << INDEX_BITS;
+	private static final int MAX_EVALUATION = (1 << (EVALUATION_BITS - 1)) - 1;
+	private static final int MAX_HISTORY = (1 << HISTORY_BITS) - 1;
+	private static final int MAX_RANK = (1 << RANK_BITS) - 1;
+	
+	private PlayableMove[] moves = new PlayableMove[64];
+	private long[] scores = new long[64];
+	private int size = 0;
+	// The moves before this index are selected, from best to worst.
+	private int selected = 0;
+	
+	// The stored ratings of the moves for the iteration term, see rate and rankRatings.
+	private long[] ratings = new long[64];
+	private int nrOfRatings = 0;
+	
+	/**
+	 * Removes all moves, but keeps the arrays for the next node.
+	 */
+	@Override
+	public void clear() {
+		Arrays.fill(moves, 0, size, null);
+		size = 0;
+		selected = 0;
+		nrOfRatings = 0;
+	}
+	
+	/**
+	 * Adds a move with the sum of its terms.
+	 * @param move The move.
+	 * @param score The sum of the terms of the move, without the iteration term.
+	 */
+	void add(PlayableMove move, long score) {
+		assert (size < MAX_MOVES);
+		if (size == moves.length) {
+			moves = Arrays.copyOf(moves, size * 2);
+			scores = Arrays.copyOf(scores, size * 2);
+		}
+		moves[size] = move;
+		// Earlier moves win ties.
+		scores[size] = score | (MAX_MOVES - 1 - size);
+		size++;
+	}
+	
+	/**
+	 * Records the rating of the transposition table for the move that was added last.
+	 * Once all moves are added, rankRatings turns the ratings into the iteration term.
+	 * @param rating The stored rating of the move.
+	 */
+	void rate(int rating) {
+		if (nrOfRatings == ratings.length) {
+			ratings = Arrays.copyOf(ratings, nrOfRatings * 2);
+		}
+		// Sorting the ratings with their index ranks equal ratings in the order of the moves.
+		ratings[nrOfRatings++] = ((long) rating - Integer.MIN_VALUE) << INDEX_BITS
+				| (MAX_MOVES - size);
+	}
+	
+	/**
+	 * Adds the iteration term to the rated moves. As per the paper, the best third of the rated moves
+	 * are searched first and the worst sixth last, both in order of their ratings.
+	 * The other moves are left to the other terms.
+	 */
+	void rankRatings() {
+		// The unrated moves and the middle of the rated moves are in between.
+		long middle = iterationTerm(1, 0);
+		for (int i = 0; i < size; i++) {
+			scores[i] += middle;
+		}
+		Arrays.sort(ratings, 0, nrOfRatings);
+		for (int rank = 0; rank < nrOfRatings; rank++) {
+			int index = MAX_MOVES - 1 - (int) (ratings[nrOfRatings - 1 - rank] & (MAX_MOVES - 1));
+			if (rank < nrOfRatings / 3) {
+				scores[index] += iterationTerm(2, rank) - middle;
+			} else if (rank >= nrOfRatings * 5 / 6) {
+				scores[index] += iterationTerm(0, rank - nrOfRatings * 5 / 6) - middle;
+			}
+		}
+	}
+	
+	/**
+	 * Makes the given move the first move to be selected, whatever its score.
+	 * @param move One of the moves of this picker, none of which have been selected yet.
+	 */
+	void moveToFront(PlayableMove move) {
+		assert (selected == 0);
+		for (int i = 0; i < size; i++) {
+			if (moves[i] == move) {
+				scores[i] = Long.MAX_VALUE;
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Replaces the order of the moves by the given order.
+	 * @param orderedMoves The moves of this picker in the order in which they are to be selected.
+	 */
+	void reorder(List<PlayableMove> orderedMoves) {
+		assert (orderedMoves.size() == size);
+		clear();
+		for (PlayableMove move : orderedMoves) {
+			add(move, 0);
+		}
+	}
+	
+	/**
+	 * Returns the iteration term.
+	 * @param tier 2 for the best third of the rated moves, 0 for the worst sixth and 1 otherwise.
+	 * @param rank The position of the rating within its tier, from best to worst.
+	 */
+	static long iterationTerm(int tier, int rank) {
+		return (long) tier << TIER_SHIFT | (long) (MAX_RANK - Math.min(rank, MAX_RANK)) << RANK_SHIFT;
+	}
+	
+	/**
+	 * Returns the marble term, which replaces marble ordering.
+	 * @param moveGroup The group of the move, see DefaultMinimax.moveGroup.
+	 * @param capture Whether the move pushes a marble off the board, which goes first within its group.
+	 */
+	static long marbleTerm(int moveGroup, boolean capture) {
+		return (long) (6 - moveGroup) << MARBLE_SHIFT | (capture ? 1L : 0L) << CAPTURE_SHIFT;
+	}
+	
+	/**
+	 * Returns the history term, saturating for moves with a lot of kills.
+	 * @param kills The kills of the move in the history table.
+	 */
+	static long historyTerm(int kills) {
+		return (long) Math.min(kills, MAX_HISTORY) << HISTORY_SHIFT;
+	}
+	
+	/**
+	 * Returns the evaluation term, saturating for ratings that exceed the range of the term,
+	 * such as those of won or lost games.
+	 * @param rating The rating of the gameState after the move.
+	 */
+	static long evaluationTerm(int rating) {
+		int clamped = Math.max(-MAX_EVALUATION - 1, Math.min(MAX_EVALUATION, rating));
+		return (long) (clamped + MAX_EVALUATION + 1) << EVALUATION_SHIFT;
+	}
+	
+	/**
+	 * Returns the move at the given position, selecting the best remaining moves up to it if needed.
+	 */
+	@Override
+	public PlayableMove get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+		while (selected <= index) {
+			int best = selected;
+			for (int i = selected + 1; i < size; i++) {
+				if (scores[i] > scores[best]) {
+					best = i;
+				}
+			}
+			swap(selected, best);
+			selected++;
+		}
+		return moves[index];
+	}
+	
+	private void swap(int i, int j) {
+		PlayableMove move = moves[i];
+		moves[i] = moves[j];
+		moves[j] = move;
+		long score = scores[i];
+		scores[i] = scores[j];
+		scores[j] = score;
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,184 @@
+package model.artificialintelligence.minimax;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * A small quantized network that rates a gameState from the perspective of a team, in the style of an
+ * efficiently updatable neural network (NNUE): a sparse input layer with an input for every field and
+ * every team relative to that perspective, a hidden layer with 16-bit weights whose clipped activations
+ * are weighted by 8-bit output weights.
+ * The hidden layer is kept as an accumulator of the weights of the active inputs, so that a move only
+ * adds and subtracts the weights of the few inputs that it changes, see NnueFeatures. The loops over
+ * the hidden layer are plain loops over primitive arrays, which the JIT compiler vectorizes.
+ * The network is stored as a binary file: the magic number and version, the number of inputs and the
+ * size of the hidden layer, the input weights by input, the hidden biases, the output weights, and the
+ * output bias and divisor, all big-endian.
+ */
+public class NeuralNetwork {
+	//
+	/**
+	 * The number of teams for which the network has inputs, which is the maximum number of teams.
+	 */
+	static final int MAX_TEAMS = 3;
+	/**
+	 * The number of inputs: one for every field of the board and every team relative to the perspective.
+	 */
+	static final int NR_OF_INPUTS = IncrementalFeatures.HEXES.size() * MAX_TEAMS;
+	/**
+	 * The activation of a hidden node is clipped to between 0 and this value.
+	 */
+	static final int MAX_ACTIVATION = 127;
+	// "ABNN", the first bytes of a network file.
+	private static final int MAGIC = 0x41424E4E;
+	private static final int VERSION = 1;
+	
+	private final int hiddenSize;
+	// The weights of every input to the hidden layer, hiddenSize per input.
+	private final short[] inputWeights;
+	private final short[] hiddenBiases;
+	private final byte[] outputWeights;
+	private final int outputBias;
+	private final int outputDivisor;
+	
+	/**
+	 * Creates a network from its weights.
+	 * @param inputWeights The weights of every input to the hidden layer, hiddenBiases.length per input.
+	 * @param hiddenBiases The biases of the hidden layer.
+	 * @param outputWeights The weights of the clipped activations of the hidden layer.
+	 * @param outputBias The bias of the output.
+	 * @param outputDivisor The divisor of the weighted sum of the output, which is positive.
+	 */
+	NeuralNetwork(short[] inputWeights, short[] hiddenBiases, byte[] outputWeights, int outputBias,
+			int outputDivisor) {
+		if (inputWeights.length != NR_OF_INPUTS * hiddenBiases.length
+				|| outputWeights.length != hiddenBiases.length || outputDivisor <= 0) {
+			throw new IllegalArgumentException("The weights do not fit a network with " + NR_OF_INPUTS
+					+ " inputs and " + hiddenBiases.length + " hidden nodes.");
+		}
+		this.hiddenSize = hiddenBiases.length;
+		this.inputWeights = inputWeights;
+		this.hiddenBiases = hiddenBiases;
+		this.outputWeights = outputWeights;
+		this.outputBias = outputBias;
+		this.outputDivisor = outputDivisor;
+	}
+	
+	/**
+	 * Reads a network from the given file.
+	 * @param file The network file.
+	 * @return The network.
+	 * @throws IOException If the file cannot be read or is not a network file of this version.
+	 */
+	public static NeuralNetwork read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(file + " is not a network of version " + VERSION + ".");
+			}
+			if (in.readInt() != NR_OF_INPUTS) {
+				throw new IOException(file + " is not a network with " + NR_OF_INPUTS + " inputs.");
+			}
+			int hiddenSize = in.readInt();
+			short[] inputWeights = new short[NR_OF_INPUTS * hiddenSize];
+			for (int i = 0; i < inputWeights.length; i++) {
+				inputWeights[i] = in.readShort();
+			}
+			short[] hiddenBiases = new short[hiddenSize];
+			for (int i = 0; i < hiddenSize; i++) {
+				hiddenBiases[i] = in.readShort();
+			}
+			byte[] outputWeights = new byte[hiddenSize];
+			in.readFully(outputWeights);
+			int outputBias = in.readInt();
+			int outputDivisor = in.readInt();
+			try {
+				return new NeuralNetwork(inputWeights, hiddenBiases, outputWeights, outputBias, outputDivisor);
+			} catch (IllegalArgumentException e) {
+				throw new IOException(file + " is not a valid network: " + e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Writes this network to the given file.
+	 * @param file The file to write to, which is overwritten.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void write(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(NR_OF_INPUTS);
+			out.writeInt(hiddenSize);
+			for (short weight : inputWeights) {
+				out.writeShort(weight);
+			}
+			for (short bias : hiddenBiases) {
+				out.writeShort(bias);
+			}
+			out.write(outputWeights);
+			out.writeInt(outputBias);
+			out.writeInt(outputDivisor);
+		}
+	}
+	
+	int getHiddenSize() {
+		return hiddenSize;
+	}
+	
+	/**
+	 * Returns the input of a marble.
+	 * @param field The index of the field of the marble, see IncrementalFeatures.HEXES.
+	 * @param team The number of the team of the marble.
+	 * @param perspective The number of the team from whose perspective the gameState is rated.
+	 * @param nrOfTeams The number of teams of the gameState.
+	 * @return The index of the input.
+	 */
+	static int inputOf(int field, int team, int perspective, int nrOfTeams) {
+		return field * MAX_TEAMS + (team - perspective + nrOfTeams) % nrOfTeams;
+	}
+	
+	/**
+	 * Sets the accumulator to the biases of the hidden layer, which is the accumulator without inputs.
+	 * @param accumulator The accumulator of hiddenSize values.
+	 */
+	void reset(int[] accumulator) {
+		for (int i = 0; i < hiddenSize; i++) {
+			accumulator[i] = hiddenBiases[i];
+		}
+	}
+	
+	/**
+	 * Adds the weights of the input to the accumulator.
+	 * @param accumulator The accumulator of hiddenSize values.
+	 * @param input The index of the input.
+	 * @param sign 1 to add the weights, -1 to subtract them.
+	 */
+	void addInput(int[] accumulator, int input, int sign) {
+		int offset = input * hiddenSize;
+		for (int i = 0; i < hiddenSize; i++) {
+			accumulator[i] += sign * inputWeights[offset + i];
+		}
+	}
+	
+	/**
+	 * Computes the output of the network from the accumulator.
+	 * @param accumulator The accumulator of hiddenSize values.
+	 * @return The rating.
+	 */
+	int evaluate(int[] accumulator) {
+		int sum = 0;
+		for (int i = 0; i < hiddenSize; i++) {
+			sum += Math.min(MAX_ACTIVATION, Math.max(0, accumulator[i])) * outputWeights[i];
+		}
+		return (sum + outputBias) / outputDivisor;
+	}
+}
@@ -0,0 +1,142 @@
+package model.artificialintelligence.minimax;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.gamelogic.GameState;
+import model.gamelogic.Marble;
+import model.gamelogic.Move;
+import model.gamelogic.MoveSumito;
+import model.gamelogic.MoveUndo;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Player;
+import model.gamelogic.Team;
+
+class NeuralNetworkTest {
+	//
+	static final int HIDDEN_SIZE = 16;
+	short[] inputWeights;
+	short[] hiddenBiases;
+	byte[] outputWeights;
+	File file;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		Random random = new Random(13);
+		inputWeights = new short[NeuralNetwork.NR_OF_INPUTS * HIDDEN_SIZE];
+		for (int i = 0; i < inputWeights.length; i++) {
+			inputWeights[i] = (short) (random.nextInt(129) - 64);
+		}
+		hiddenBiases = new short[HIDDEN_SIZE];
+		outputWeights = new byte[HIDDEN_SIZE];
+		for (int i = 0; i < HIDDEN_SIZE; i++) {
+			hiddenBiases[i] = (short) (random.nextInt(65) - 32);
+			outputWeights[i] = (byte) (random.nextInt(255) - 127);
+		}
+		file = File.createTempFile("abalone", ".nnue");
+		file.deleteOnExit();
+		new NeuralNetwork(inputWeights, hiddenBiases, outputWeights, 5, 4).write(file);
+	}
+	
+	/**
+	 * Computes the output of the network for the gameState from scratch, without accumulators.
+	 */
+	private int rate(GameState gameState, Team optimizingTeam) {
+		int nrOfTeams = gameState.getTeams().size();
+		int perspective = gameState.getTeamNumber(optimizingTeam);
+		int sum = 0;
+		for (int hidden = 0; hidden < HIDDEN_SIZE; hidden++) {
+			int activation = hiddenBiases[hidden];
+			for (Marble marble : gameState.getBoard().getMarbles()) {
+				if (marble.isCaptured()) {
+					continue;
+				}
+				int field = IncrementalFeatures.INDICES.get(marble.getHex());
+				int team = gameState.getTeamNumber(marble.getTeam());
+				int relativeTeam = (team - perspective + nrOfTeams) % nrOfTeams;
+				activation += inputWeights[(field * NeuralNetwork.MAX_TEAMS + relativeTeam) * HIDDEN_SIZE + hidden];
+			}
+			sum += Math.min(NeuralNetwork.MAX_ACTIVATION, Math.max(0, activation)) * outputWeights[hidden];
+		}
+		return (sum + 5) / 4;
+	}
+	
+	@Test
+	void testNetworkIsWrittenAndRead() throws Exception {
+		File copy = File.createTempFile("abalone", ".nnue");
+		copy.deleteOnExit();
+		NeuralNetwork.read(file).write(copy);
+		assertArrayEquals(Files.readAllBytes(file.toPath()), Files.readAllBytes(copy.toPath()));
+		
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(copy))) {
+			out.writeInt(42);
+		}
+		assertThrows(IOException.class, () -> NeuralNetwork.read(copy));
+	}
+	
+	@Test
+	void testIncrementalRatingIsEqualToTheRatingComputedFromScratch() {
+		GameStateEvaluator evaluator = new GameStateEvaluator.Builder().withNetwork(file.getPath()).build();
+		assertFalse(evaluator.hasWeights());
+		for (GameState gameState : Arrays.asList(
+				new GameState(Arrays.asList(Player.newPlayer("x", "random"), Player.newPlayer("y", "random"))),
+				new GameState(Arrays.asList(Player.newPlayer("x", "random"), Player.newPlayer("y", "random"), 
+						Player.newPlayer("z", "random"))))) {
+			IncrementalFeatures features = evaluator.newFeatures(gameState);
+			assertTrue(features instanceof NnueFeatures);
+			Random random = new Random(17);
+			Deque<MoveUndo> undos = new ArrayDeque<>();
+			List<Integer> ratings = new ArrayList<>();
+			for (int turn = 0; turn < 100 && !gameState.isFinished(); turn++) {
+				ratings.add(assertRatingIsExact(evaluator, gameState, features));
+				List<PlayableMove> moves = new ArrayList<>(Move.allLegalMoves(gameState));
+				moves.sort(Comparator.comparing(PlayableMove::getMoveNotation));
+				int[] batchRatings = evaluator.rateMoves(gameState, gameState.getCurrentTeam(), moves, features);
+				PlayableMove chosen = moves.get(random.nextInt(moves.size()));
+				for (int i = 0; i < moves.size(); i++) {
+					assertEquals(evaluator.rateMove(gameState, gameState.getCurrentTeam(), moves.get(i)), 
+							batchRatings[i]);
+					if (moves.get(i) instanceof MoveSumito && ((MoveSumito) moves.get(i)).isCapture()) {
+						chosen = moves.get(i);
+					}
+				}
+				features.beforeMove(chosen);
+				undos.push(gameState.makeMove(chosen));
+				features.afterMove();
+			}
+			assertTrue(gameState.getTotalNrOfConqueredMarbles() > 0);
+			while (!undos.isEmpty()) {
+				gameState.makeMove(undos.pop());
+				features.undoMove();
+				assertEquals(ratings.remove(ratings.size() - 1), 
+						assertRatingIsExact(evaluator, gameState, features));
+			}
+		}
+	}
+	
+	private int assertRatingIsExact(GameStateEvaluator evaluator, GameState gameState, 
+			IncrementalFeatures features) {
+		int rating = 0;
+		for (Team team : gameState.getTeams()) {
+			rating = evaluator.rateGameState(gameState, team, features);
+			assertEquals(rate(gameState, team), rating);
+			assertEquals(evaluator.rateGameState(gameState, team), rating);
+		}
+		return rating;
+	}
+}
@@ -0,0 +1,82 @@
+package model.artificialintelligence.minimax;
+
+import model.gamelogic.Board;
+import model.gamelogic.GameState;
+import model.gamelogic.Marble;
+import model.gamelogic.Team;
+
+/**
+ * The accumulators of the hidden layer of a NeuralNetwork for every team of a gameState, from whose
+ * perspective the gameState is rated. The input of a marble only depends on its own field, so a move
+ * only updates the accumulators for the fields that it changes, see IncrementalFeatures.
+ * The totals of a team are its accumulator.
+ */
+class NnueFeatures extends IncrementalFeatures {
+	//
+	private final NeuralNetwork network;
+	private final int nrOfTeams;
+	
+	/**
+	 * Computes the accumulators of the current gameState from scratch.
+	 * @param gameState The gameState, whose moves must be passed to beforeMove and afterMove from now on.
+	 * @param network The network.
+	 */
+	NnueFeatures(GameState gameState, NeuralNetwork network) {
+		super(gameState, network.getHiddenSize(), 0);
+		this.network = network;
+		this.nrOfTeams = gameState.getTeams().size();
+		if (nrOfTeams > NeuralNetwork.MAX_TEAMS) {
+			throw new IllegalArgumentException("The network supports at most " + NeuralNetwork.MAX_TEAMS
+					+ " teams.");
+		}
+		for (int perspective = 1; perspective <= nrOfTeams; perspective++) {
+			network.reset(totals[perspective]);
+		}
+		initialize();
+	}
+	
+	@Override
+	void addFeatures(int field, int sign) {
+		for (int perspective = 1; perspective <= nrOfTeams; perspective++) {
+			network.addInput(totals[perspective],
+					NeuralNetwork.inputOf(field, teams[field], perspective, nrOfTeams), sign);
+		}
+	}
+	
+	/**
+	 * Rates the board of the accumulators with the network, see get.
+	 * @param optimizingTeam The team for which the gameState is being optimized.
+	 * @return The output of the network from the perspective of the team.
+	 */
+	int rate(Team optimizingTeam) {
+		return network.evaluate(get(optimizingTeam));
+	}
+	
+	/**
+	 * Rates the gameState with the network from scratch, without running totals. Only the accumulator
+	 * of the optimizing team is computed, instead of one for every team.
+	 * @param gameState The gameState.
+	 * @param network The network.
+	 * @param optimizingTeam The team for which the gameState is being optimized.
+	 * @return The output of the network from the perspective of the team, as rate would return it.
+	 */
+	static int rate(GameState gameState, NeuralNetwork network, Team optimizingTeam) {
+		int nrOfTeams = gameState.getTeams().size();
+		if (nrOfTeams > NeuralNetwork.MAX_TEAMS) {
+			throw new IllegalArgumentException("The network supports at most " + NeuralNetwork.MAX_TEAMS
+					+ " teams.");
+		}
+		int perspective = gameState.getTeamNumber(optimizingTeam);
+		int[] accumulator = new int[network.getHiddenSize()];
+		network.reset(accumulator);
+		Board board = gameState.getBoard();
+		for (int field = 0; field < HEXES.size(); field++) {
+			Marble marble = board.getField(HEXES.get(field)).getMarble();
+			if (marble != null) {
+				network.addInput(accumulator, NeuralNetwork.inputOf(field, 
+						gameState.getTeamNumber(marble.getTeam()), perspective, nrOfTeams), 1);
+			}
+		}
+		return network.evaluate(accumulator);
+	}
+}
@@ -0,0 +1,59 @@
+package model.artificialintelligence.minimax;
+
+import model.artificialintelligence.RandomStrategy;
+import model.gamelogic.GameState;
+import model.gamelogic.PlayableMove;
+
+public class NodeBoundIterativeDeepeningDfs extends DefaultMinimax {
+	//
+	private int nodes;
+	
+	/**
+	 * Creates a new minimax for the current player of the given GameState.
+	 * As the search is bound by the number of nodes instead of by time, the same gameState always 
+	 * results in the same search tree, regardless of the machine or its load.
+	 */
+	public NodeBoundIterativeDeepeningDfs(
+			GameState gameState, GameStateEvaluator evaluator, int nodes) {
+		super(gameState, evaluator);
+		this.nodes = nodes;
+	}
+	
+	public PlayableMove getBestMove() {
+		return iterativeDeepeningDepthFirstSearch(nodes);
+	}
+	
+	/**
+	 * Returns the best rating of the gameState possible for gameState.currentPlayer().getTeam(),
+	 * optimized for this.optimizingTeam
+	 * @param nodes How many nodes the IDDFS may search over all depths.
+	 * @return The best move that can be applied to the gameState for gameState.currentPlayer().
+	 */
+	public PlayableMove iterativeDeepeningDepthFirstSearch(int nodes) {
+		assert (nodes > 0);
+		PlayableMove bestMove = solveEndgame();
+		if (bestMove != null) {
+			return bestMove;
+		}
+		int bestScore = Integer.MIN_VALUE;
+		startSearch(Long.MAX_VALUE, nodes);
+		
+		// While the node limit has not been reached, increase depth:
+		for (int depth = 1; !isStopRequested(); depth++) {
+			PlayableMove move = minimax(depth);
+			if (move == null) {
+				bestMove = bestMoveAfterStoppedDepth(bestMove, bestScore);
+				break;
+			}
+			bestMove = move;
+			bestScore = partialBestScore;
+		}
+		if (bestMove == null) {
+			System.err.println("NodeBoundIterativeDeepeningDfs was unable "
+					+ "to supply a move within its node limit, "
+					+ "supplying a random move instead.");
+			return new RandomStrategy().determineMove(gameState);
+		}
+		return bestMove;
+	}
+}
@@ -0,0 +1,201 @@
+package model.artificialintelligence.minimax;
+
+import java.util.List;
+
+import model.gamelogic.Board;
+import model.gamelogic.GameState;
+import model.gamelogic.Marble;
+import model.gamelogic.Player;
+import model.gamelogic.Team;
+import model.hex.Direction;
+import model.hex.Hex;
+
+/**
+ * Computes the features of computeRatingPapadopoulos for all marbles of a team at once, with
+ * occupancy masks of the board that are shifted to their neighbours and counted with Long.bitCount,
+ * instead of walking the neighbours of every marble one Field at a time.
+ * The hex at axial coordinates (q, r) is bit q + 9r + 36 of the masks, so that the neighbour in
+ * every direction is at a fixed distance in bits. As that takes 73 bits, the masks consist of
+ * two longs, see Bits.
+ */
+class PapadopoulosBitboards {
+	//
+	private static final int RADIUS = Board.BOARD_RADIUS - 1;
+	private static final int STRIDE = 2 * RADIUS + 1;
+	
+	// The mask of every ring of the board, the last of which is the edge.
+	private static final Bits[] RINGS = new Bits[RADIUS + 1];
+	// The distance in bits to the neighbour in every direction of Direction.directions().
+	private static final int[] SHIFTS = new int[Direction.directions().size()];
+	// The mask of the hexes that have a neighbour on the board in every direction.
+	private static final Bits[] HAS_NEIGHBOUR = new Bits[Direction.directions().size()];
+	
+	static {
+		long[][] rings = new long[RADIUS + 1][2];
+		long[][] hasNeighbour = new long[SHIFTS.length][2];
+		for (Hex hex : Hex.build(Board.BOARD_RADIUS)) {
+			set(rings[hex.length()], indexOf(hex));
+			for (int dir = 0; dir < SHIFTS.length; dir++) {
+				if (hex.neighbour(Direction.directions().get(dir)).length() <= RADIUS) {
+					set(hasNeighbour[dir], indexOf(hex));
+				}
+			}
+		}
+		for (int ring = 0; ring <= RADIUS; ring++) {
+			RINGS[ring] = new Bits(rings[ring][0], rings[ring][1]);
+		}
+		for (int dir = 0; dir < SHIFTS.length; dir++) {
+			SHIFTS[dir] = indexOf(Hex.direction(Direction.directions().get(dir))) 
+					- indexOf(new Hex(0, 0, 0));
+			HAS_NEIGHBOUR[dir] = new Bits(hasNeighbour[dir][0], hasNeighbour[dir][1]);
+		}
+	}
+	
+	private static int indexOf(Hex hex) {
+		return hex.coordQ + STRIDE * hex.coordR + STRIDE * RADIUS;
+	}
+	
+	private static void set(long[] bits, int index) {
+		bits[index / Long.SIZE] |= 1L << (index % Long.SIZE);
+	}
+	
+	private final GameState gameState;
+	// The marbles on the board by team number, and the marbles of all teams.
+	private final Bits[] teams;
+	private final Bits all;
+	
+	/**
+	 * Creates the occupancy masks of the board of the gameState.
+	 * @param gameState The gameState of which the features are computed.
+	 */
+	PapadopoulosBitboards(GameState gameState) {
+		this.gameState = gameState;
+		List<Team> gameTeams = gameState.getTeams();
+		this.teams = new Bits[gameTeams.size() + 1];
+		long[] allBits = new long[2];
+		for (Team team : gameTeams) {
+			long[] bits = new long[2];
+			for (Player player : team.players) {
+				for (Marble marble : player.getMarbles()) {
+					if (!marble.isCaptured()) {
+						set(bits, indexOf(marble.getHex()));
+					}
+				}
+			}
+			teams[gameState.getTeamNumber(team)] = new Bits(bits[0], bits[1]);
+			allBits[0] |= bits[0];
+			allBits[1] |= bits[1];
+		}
+		this.all = new Bits(allBits[0], allBits[1]);
+	}
+	
+	/**
+	 * Computes the features of the team, which are equal to those that the Team methods of
+	 * the features compute.
+	 * @param team The team.
+	 * @param immediateDanger Whether the immediate marble capturing danger is computed, 0 otherwise.
+	 * @param singleDanger Whether the single marble capturing danger is computed, 0 otherwise.
+	 * @param doubleDanger Whether the double marble capturing danger is computed, 0 otherwise.
+	 * @return The features, indexed by the feature constants of PapadopoulosFeatures.
+	 */
+	int[] get(Team team, boolean immediateDanger, boolean singleDanger, boolean doubleDanger) {
+		Bits allies = teams[gameState.getTeamNumber(team)];
+		Bits enemies = all.andNot(allies);
+		Bits edge = allies.and(RINGS[RADIUS]);
+		int[] result = new int[PapadopoulosFeatures.NR_OF_FEATURES];
+		
+		// Captured marbles count as 4 for the distance from the center.
+		int nrOfMarbles = 0;
+		for (Player player : team.players) {
+			nrOfMarbles += player.getMarbles().size();
+		}
+		result[PapadopoulosFeatures.DISTANCE] = RADIUS * (nrOfMarbles - allies.bitCount());
+		for (int ring = 1; ring <= RADIUS; ring++) {
+			result[PapadopoulosFeatures.DISTANCE] += ring * allies.and(RINGS[ring]).bitCount();
+		}
+		
+		Bits formationBreak = Bits.EMPTY;
+		Bits edgeWithEdgeAlly = Bits.EMPTY;
+		Bits inDanger = Bits.EMPTY;
+		for (int dir = 0; dir < SHIFTS.length; dir++) {
+			Bits allied1 = allies.neighbours(dir);
+			Bits allied2 = allied1.neighbours(dir);
+			result[PapadopoulosFeatures.COHERENCE] += allies.and(allied1).bitCount()
+					+ allies.and(allied1).and(allied2).bitCount();
+			if (dir < SHIFTS.length / 2) {
+				formationBreak = formationBreak.or(
+						enemies.neighbours(dir).and(enemies.neighbours(dir + SHIFTS.length / 2)));
+			}
+			edgeWithEdgeAlly = edgeWithEdgeAlly.or(edge.neighbours(dir));
+			if (immediateDanger) {
+				// Two enemies in a row, or an ally followed by three enemies in a row.
+				Bits enemy1 = enemies.neighbours(dir);
+				Bits enemy2 = enemy1.neighbours(dir);
+				Bits enemy3 = enemy2.neighbours(dir);
+				Bits enemy4 = enemy3.neighbours(dir);
+				inDanger = inDanger.or(enemy1.and(enemy2))
+						.or(allied1.and(enemy2).and(enemy3).and(enemy4));
+			}
+		}
+		result[PapadopoulosFeatures.FORMATION_BREAK] = allies.and(formationBreak).bitCount();
+		result[PapadopoulosFeatures.IMMEDIATE_DANGER] = edge.and(inDanger).bitCount();
+		
+		edgeWithEdgeAlly = edge.and(edgeWithEdgeAlly);
+		for (int dir = 0; dir < SHIFTS.length && (singleDanger || doubleDanger); dir++) {
+			Bits enemy1 = enemies.neighbours(dir);
+			if (singleDanger) {
+				result[PapadopoulosFeatures.SINGLE_DANGER] += edge.and(enemy1).bitCount();
+			}
+			if (doubleDanger) {
+				result[PapadopoulosFeatures.DOUBLE_DANGER] += edgeWithEdgeAlly.and(enemy1).bitCount();
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * A mask of the 73 bits of the board: the first 64 in low, the others in high.
+	 */
+	private static final class Bits {
+		//
+		static final Bits EMPTY = new Bits(0, 0);
+		
+		final long low;
+		final long high;
+		
+		Bits(long low, long high) {
+			this.low = low;
+			this.high = high;
+		}
+		
+		Bits and(Bits other) {
+			return new Bits(low & other.low, high & other.high);
+		}
+		
+		Bits or(Bits other) {
+			return new Bits(low | other.low, high | other.high);
+		}
+		
+		Bits andNot(Bits other) {
+			return new Bits(low & ~other.low, high & ~other.high);
+		}
+		
+		int bitCount() {
+			return Long.bitCount(low) + Long.bitCount(high);
+		}
+		
+		/**
+		 * Returns the hexes whose neighbour in the direction is in this mask.
+		 * @param dir The index of the direction in Direction.directions().
+		 * @return The mask of those hexes.
+		 */
+		Bits neighbours(int dir) {
+			int shift = SHIFTS[dir];
+			Bits shifted = shift > 0
+					? new Bits((low >>> shift) | (high << (Long.SIZE - shift)), high >>> shift)
+					: new Bits(low << -shift, (high << -shift) | (low >>> (Long.SIZE + shift)));
+			// The shift wraps hexes on one side of the board around to the other side.
+			return shifted.and(HAS_NEIGHBOUR[dir]);
+		}
+	}
+}
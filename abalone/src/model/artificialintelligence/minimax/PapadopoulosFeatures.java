@@ -0,0 +1,134 @@
+package model.artificialintelligence.minimax;
+
+import model.gamelogic.Board;
+import model.gamelogic.GameState;
+import model.gamelogic.Player;
+import model.gamelogic.Team;
+
+/**
+ * The running totals of the features of computeRatingPapadopoulos for every team of a gameState,
+ * see IncrementalFeatures.
+ */
+class PapadopoulosFeatures extends IncrementalFeatures {
+	//
+	static final int COHERENCE = 0;
+	static final int DISTANCE = 1;
+	static final int FORMATION_BREAK = 2;
+	static final int IMMEDIATE_DANGER = 3;
+	static final int SINGLE_DANGER = 4;
+	static final int DOUBLE_DANGER = 5;
+	static final int NR_OF_FEATURES = 6;
+	private static final int EDGE = Board.BOARD_RADIUS - 1;
+	
+	private final boolean immediateDanger;
+	
+	/**
+	 * Computes the totals of the current gameState from scratch.
+	 * @param gameState The gameState, whose moves must be passed to beforeMove and afterMove from now on.
+	 * @param immediateDanger Whether the immediate marble capturing danger is kept up to date,
+	 *     which requires updating the marbles up to four fields away from every changed field.
+	 */
+	PapadopoulosFeatures(GameState gameState, boolean immediateDanger) {
+		super(gameState, NR_OF_FEATURES, immediateDanger ? MAX_DISTANCE : 2);
+		this.immediateDanger = immediateDanger;
+		for (Team team : gameState.getTeams()) {
+			// Captured marbles count as 4 for the distance from the center, see addFeatures.
+			for (Player player : team.players) {
+				totals[gameState.getTeamNumber(team)][DISTANCE] += 4 * player.getMarbles().size();
+			}
+		}
+		initialize();
+	}
+	
+	/**
+	 * Adds the features of the marble on the given field to the totals of its team,
+	 * following the Marble methods of the features.
+	 * As a captured marble counts as 4 for the distance and as 0 for the other features,
+	 * the distance of a marble on the board is counted relative to 4.
+	 * @param field The index of the field, which is not empty.
+	 * @param sign 1 to add the features, -1 to remove them.
+	 */
+	@Override
+	void addFeatures(int field, int sign) {
+		int team = teams[field];
+		int[] total = totals[team];
+		int[][] lines = LINES[field];
+		int coherence = 0;
+		int enemies = 0;
+		boolean edgeAlly = false;
+		for (int dir = 0; dir < lines.length; dir++) {
+			int neighbour = lines[dir][1];
+			if (neighbour == -1 || teams[neighbour] == 0) {
+				continue;
+			}
+			if (teams[neighbour] == team) {
+				coherence++;
+				int neighbourOfNeighbour = lines[dir][2];
+				if (neighbourOfNeighbour != -1 && teams[neighbourOfNeighbour] == team) {
+					coherence++;
+				}
+				edgeAlly |= LENGTHS[neighbour] == EDGE;
+			} else {
+				enemies++;
+			}
+		}
+		total[COHERENCE] += sign * coherence;
+		total[DISTANCE] += sign * (Math.min(4, LENGTHS[field]) - 4);
+		if (isFormationBreak(field, team)) {
+			total[FORMATION_BREAK] += sign;
+		}
+		if (LENGTHS[field] == EDGE) {
+			total[SINGLE_DANGER] += sign * enemies;
+			if (edgeAlly) {
+				total[DOUBLE_DANGER] += sign * enemies;
+			}
+			if (immediateDanger && isInImmediateDanger(field, team)) {
+				total[IMMEDIATE_DANGER] += sign;
+			}
+		}
+	}
+	
+	private boolean isFormationBreak(int field, int team) {
+		int[][] lines = LINES[field];
+		// The first half of the directions, of which the opposite directions are the second half.
+		for (int dir = 0; dir < lines.length / 2; dir++) {
+			int neighbour = lines[dir][1];
+			int opposingNeighbour = lines[dir + lines.length / 2][1];
+			if (isEnemy(neighbour, team) && isEnemy(opposingNeighbour, team)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private boolean isInImmediateDanger(int field, int team) {
+		for (int[] line : LINES[field]) {
+			// At least two marbles must be in one direction to push the marble off.
+			if (isEmpty(line[1]) || isEmpty(line[2])) {
+				continue;
+			}
+			if (teams[line[1]] != team) {
+				if (teams[line[2]] != team) {
+					return true;
+				}
+				continue;
+			}
+			if (teams[line[2]] == team) {
+				continue;
+			}
+			// An ally followed by two enemies is pushed by three enemies.
+			if (isEnemy(line[3], team) && isEnemy(line[4], team)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private boolean isEmpty(int field) {
+		return field == -1 || teams[field] == 0;
+	}
+	
+	private boolean isEnemy(int field, int team) {
+		return field != -1 && teams[field] != 0 && teams[field] != team;
+	}
+}
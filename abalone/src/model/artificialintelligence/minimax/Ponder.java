@@ -0,0 +1,178 @@
+package model.artificialintelligence.minimax;
+
+import java.util.List;
+
+import model.gamelogic.GameState;
+import model.gamelogic.Move;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Player;
+import model.gamelogic.Team;
+
+/**
+ * Pondering: searching on the time of the opponent.
+ * Once a move has been determined, the reply of the opponent is taken from the principal variation,
+ * or predicted if the line ends before it, and the gameState that results from both moves is searched
+ * in the background, on a private copy of the gameState.
+ * The ponder search shares the transposition table of the evaluator with the minimax.
+ * On a ponder hit, the minimax continues from the deepest move found by the ponder search.
+ * On a ponder miss, only the transposition table entries remain.
+ */
+class Ponder {
+	//
+	private final DefaultMinimax owner;
+	private final int maxDepth;
+	private final int time;
+	
+	Thread thread = null;
+	private DefaultMinimax searcher = null;
+	private long expectedBoardHash;
+	private int expectedTurn;
+	String predictedReply = null;
+	private String bestMoveNotation = null;
+	private int completedDepth = 0;
+	private int completedScore = Integer.MIN_VALUE;
+	
+	/**
+	 * Creates a ponder search for the given minimax.
+	 * @param owner The minimax whose gameState and evaluator are used.
+	 * @param maxDepth The depth at which the ponder search stops deepening.
+	 * @param time The number of seconds after which the ponder search stops deepening,
+	 *     or 0 if it is only bound by maxDepth.
+	 */
+	Ponder(DefaultMinimax owner, int maxDepth, int time) {
+		assert (maxDepth > 0);
+		this.owner = owner;
+		this.maxDepth = maxDepth;
+		this.time = time;
+	}
+	
+	/**
+	 * Starts pondering on the predicted reply to the given move.
+	 * Nothing is pondered if the game ends before it is the turn of the current player again.
+	 * @param move The move that the current player of the gameState of the owner is about to make.
+	 */
+	void start(PlayableMove move) {
+		stop();
+		String expectedReply = expectedReply(move);
+		GameState gameState = owner.gameState.copy();
+		Player player = gameState.getCurrentPlayer();
+		gameState.makeMove(Move.newMove(gameState.getBoard(), move.getMoveNotation(), player));
+		if (gameState.isFinished()) {
+			return;
+		}
+		PlayableMove reply = expectedReply != null 
+				? Move.newMove(gameState.getBoard(), expectedReply, gameState.getCurrentPlayer())
+				: predictReply(gameState, player.getTeam());
+		gameState.makeMove(reply);
+		// With more than two players, the position after the reply is not ours to move in.
+		if (gameState.isFinished() || gameState.getCurrentPlayer() != player) {
+			return;
+		}
+		
+		predictedReply = reply.getMoveNotation();
+		expectedBoardHash = gameState.getBoard().getBoardHash();
+		expectedTurn = gameState.getTurn();
+		bestMoveNotation = null;
+		completedDepth = 0;
+		completedScore = Integer.MIN_VALUE;
+		searcher = new DepthFirstSearch(gameState, owner.evaluator, 0);
+		owner.copyHeuristicsTo(searcher);
+		searcher.startSearch(time == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + time * 1000L);
+		thread = new Thread(this::search, "ponder");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Returns the reply that the search of the owner expects to the given move: the second move of the
+	 * best principal variation, if that line starts with the move and is long enough.
+	 * @param move The move that the current player of the gameState of the owner is about to make.
+	 * @return The notation of the reply, or null if the principal variation does not tell.
+	 */
+	private String expectedReply(PlayableMove move) {
+		List<PrincipalVariation> lines = owner.getPrincipalVariations();
+		if (lines.isEmpty() || lines.get(0).getMoves().size() < 2
+				|| !lines.get(0).getMove().getMoveNotation().equals(move.getMoveNotation())) {
+			return null;
+		}
+		return lines.get(0).getMoves().get(1).getMoveNotation();
+	}
+	
+	/**
+	 * Predicts the reply of the current player of the given gameState as the move that is rated worst
+	 * for the optimizing team, for when the principal variation has no reply. Ratings of the previous
+	 * search are taken from the evaluation cache.
+	 * @param gameState The gameState in which the opponent of optimizingTeam is to move.
+	 * @param optimizingTeam The team that is pondering.
+	 * @return The predicted reply.
+	 */
+	private PlayableMove predictReply(GameState gameState, Team optimizingTeam) {
+		PlayableMove reply = null;
+		int worstRating = Integer.MAX_VALUE;
+		for (PlayableMove move : Move.allLegalMoves(gameState)) {
+			int rating = owner.evaluator.rateMove(gameState, optimizingTeam, move);
+			if (reply == null || rating < worstRating) {
+				reply = move;
+				worstRating = rating;
+			}
+		}
+		return reply;
+	}
+	
+	private void search() {
+		for (int depth = 1; depth <= maxDepth; depth++) {
+			PlayableMove move = searcher.minimax(depth);
+			if (move == null) {
+				// The stopped depth is discarded, its entries in the transposition table remain.
+				return;
+			}
+			bestMoveNotation = move.getMoveNotation();
+			completedDepth = depth;
+			completedScore = searcher.partialBestScore;
+		}
+	}
+	
+	/**
+	 * Stops the ponder search if it is running.
+	 * @return The result of the ponder search if the gameState of the owner is the one that was
+	 *     pondered on and at least one depth was completed, null otherwise.
+	 */
+	Result stop() {
+		if (thread == null) {
+			return null;
+		}
+		searcher.stop();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+		searcher = null;
+		
+		GameState gameState = owner.gameState;
+		if (bestMoveNotation == null
+				|| gameState.getTurn() != expectedTurn
+				|| gameState.getBoard().getBoardHash() != expectedBoardHash) {
+			return null;
+		}
+		return new Result(completedDepth, completedScore,
+				Move.newMove(gameState.getBoard(), bestMoveNotation, gameState.getCurrentPlayer()));
+	}
+	
+	/**
+	 * The deepest completed result of a ponder search.
+	 */
+	static class Result {
+		final int depth;
+		// The score of the move at that depth, for the team of the owner.
+		final int score;
+		final PlayableMove move;
+		
+		Result(int depth, int score, PlayableMove move) {
+			this.depth = depth;
+			this.score = score;
+			this.move = move;
+		}
+	}
+}
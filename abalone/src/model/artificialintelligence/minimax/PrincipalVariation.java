@@ -0,0 +1,72 @@
+package model.artificialintelligence.minimax;
+
+import java.util.Collections;
+import java.util.List;
+
+import model.gamelogic.PlayableMove;
+
+/**
+ * A line of the search: a root move with its exact score and the moves that the search expects
+ * to follow it, as far as the search looked ahead.
+ */
+public class PrincipalVariation {
+	//
+	private final int score;
+	private final List<PlayableMove> moves;
+	private final long[] boardHashes;
+	
+	/**
+	 * Creates a principal variation.
+	 * @param score The score of the line for the optimizing team.
+	 * @param moves The moves of the line, starting with the root move.
+	 * @param boardHashes The board hashes of the positions of the line, starting with the root.
+	 */
+	PrincipalVariation(int score, List<PlayableMove> moves, long[] boardHashes) {
+		assert (!moves.isEmpty());
+		assert (boardHashes.length == moves.size() + 1);
+		this.score = score;
+		this.moves = Collections.unmodifiableList(moves);
+		this.boardHashes = boardHashes;
+	}
+	
+	public int getScore() {
+		return score;
+	}
+	
+	/**
+	 * Returns the root move of the line.
+	 * @return The first move of the line.
+	 */
+	public PlayableMove getMove() {
+		return moves.get(0);
+	}
+	
+	/**
+	 * Returns the moves of the line.
+	 * @return An unmodifiable list of moves, starting with the root move.
+	 */
+	public List<PlayableMove> getMoves() {
+		return moves;
+	}
+	
+	/**
+	 * Returns the board hash of a position of the line.
+	 * @param ply 0 for the root, i for the position after the first i moves of the line.
+	 * @return The board hash of the position.
+	 */
+	long getBoardHash(int ply) {
+		return boardHashes[ply];
+	}
+	
+	/**
+	 * Returns the score followed by the notations of the moves, e.g. "42 a1b2 i9h8".
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder(String.valueOf(score));
+		for (PlayableMove move : moves) {
+			result.append(' ').append(move.getMoveNotation());
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,210 @@
+package model.artificialintelligence.minimax;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.gamelogic.GameState;
+import model.gamelogic.Move;
+import model.gamelogic.MoveUndo;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Team;
+
+/**
+ * Proof-number search for a forced win: a sequence of moves after which the team that is to move
+ * conquers its sixth marble, whatever the other teams reply.
+ * The search grows a tree in which the nodes of the team to move need one winning move and the nodes
+ * of the other teams need every move to be winning. Every iteration expands the most-proving node:
+ * the leaf that contributes most to proving or disproving the win, so forcing lines with few replies
+ * are searched far deeper than full-width alpha-beta would get with the same number of nodes.
+ * Positions without legal moves count as not winning.
+ * The search is repeated with a depth limit that grows by one move of the team per iteration, 
+ * as the most-proving node of a deep tree is often in a line that is too long to be forced. 
+ * Positions at the depth limit count as not winning, until the next iteration.
+ */
+class ProofNumberSearch {
+	//
+	/**
+	 * The number of conquered marbles of any team from which on the endgame is solved.
+	 */
+	static final int ENDGAME_MARBLES = 5;
+	/**
+	 * The depth limit in plies after which the iterations stop.
+	 */
+	static final int MAX_DEPTH = 11;
+	private static final int INFINITY = Integer.MAX_VALUE;
+	
+	private final GameState gameState;
+	private final int maxNodes;
+	private int nodes = 0;
+	private int depthLimit;
+	private boolean depthLimitReached;
+	
+	/**
+	 * Creates a proof-number search for the current team of the given gameState.
+	 * @param gameState The gameState that is solved, which is returned to its original state afterwards.
+	 * @param maxNodes The number of nodes after which the search gives up.
+	 */
+	ProofNumberSearch(GameState gameState, int maxNodes) {
+		assert (maxNodes > 0);
+		this.gameState = gameState;
+		this.maxNodes = maxNodes;
+	}
+	
+	/**
+	 * Returns whether the gameState is in the endgame: any team has conquered ENDGAME_MARBLES marbles.
+	 * @param gameState The gameState that is checked.
+	 * @return True if the endgame should be solved, false otherwise.
+	 */
+	static boolean isEndgame(GameState gameState) {
+		return gameState.getTeams().stream()
+				.anyMatch(team -> team.getConqueredMarbles().size() >= ENDGAME_MARBLES);
+	}
+	
+	/**
+	 * Searches for a forced win of the current team until it is proven, disproven or the number
+	 * of nodes runs out.
+	 * @return The first move of the forced win if it has been proven, null otherwise.
+	 */
+	PlayableMove solve() {
+		nodes = 0;
+		int teams = gameState.getTeams().size();
+		for (depthLimit = 1; depthLimit <= MAX_DEPTH && nodes < maxNodes; depthLimit += teams) {
+			depthLimitReached = false;
+			PlayableMove result = search();
+			// Without positions at the depth limit, a deeper search cannot find a win either.
+			if (result != null || !depthLimitReached) {
+				return result;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Searches for a forced win of the current team within the depth limit.
+	 * @return The first move of the forced win if it has been proven, null otherwise.
+	 */
+	private PlayableMove search() {
+		Team team = gameState.getCurrentTeam();
+		Node root = new Node(null, null, true);
+		nodes++;
+		List<MoveUndo> undos = new ArrayList<>();
+		while (root.proof != 0 && root.disproof != 0 && nodes < maxNodes) {
+			Node node = root;
+			while (node.children != null) {
+				node = node.mostProvingChild();
+				undos.add(gameState.makeMove(node.move));
+			}
+			expand(node, team, undos.size());
+			for (; node != null; node = node.parent) {
+				node.update();
+			}
+			for (int i = undos.size() - 1; i >= 0; i--) {
+				gameState.makeMove(undos.get(i));
+			}
+			undos.clear();
+		}
+		if (root.proof == 0) {
+			for (Node child : root.children) {
+				if (child.proof == 0) {
+					return child.move;
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the number of nodes of the last search.
+	 * @return The number of nodes that were created by the last call to solve, over all iterations.
+	 */
+	int getNodes() {
+		return nodes;
+	}
+	
+	/**
+	 * Creates a child for every legal move of the given leaf. Children that end the game are proven
+	 * or disproven right away, just like children at the depth limit.
+	 * @param node The leaf to expand, whose gameState is the current gameState.
+	 * @param team The team for which the win is searched.
+	 * @param depth The number of plies between the root and the leaf.
+	 */
+	private void expand(Node node, Team team, int depth) {
+		List<PlayableMove> moves = new ArrayList<>(Move.allLegalMoves(gameState));
+		node.children = new Node[moves.size()];
+		for (int i = 0; i < moves.size(); i++) {
+			MoveUndo undo = gameState.makeMove(moves.get(i));
+			Node child = new Node(node, moves.get(i), gameState.getCurrentTeam() == team);
+			if (gameState.isFinished()) {
+				child.setWin(gameState.getWinner() == team);
+			} else if (depth + 1 >= depthLimit) {
+				child.setWin(false);
+				depthLimitReached = true;
+			}
+			gameState.makeMove(undo);
+			node.children[i] = child;
+		}
+		nodes += moves.size();
+	}
+	
+	private static class Node {
+		final Node parent;
+		final PlayableMove move;
+		// Whether the team for which the win is searched is to move.
+		final boolean or;
+		Node[] children = null;
+		int proof = 1;
+		int disproof = 1;
+		
+		Node(Node parent, PlayableMove move, boolean or) {
+			this.parent = parent;
+			this.move = move;
+			this.or = or;
+		}
+		
+		void setWin(boolean win) {
+			proof = win ? 0 : INFINITY;
+			disproof = win ? INFINITY : 0;
+		}
+		
+		/**
+		 * Returns the child that determines the proof number of an or node, 
+		 * or the disproof number of an and node.
+		 * @return The child through which the most-proving node is reached.
+		 */
+		Node mostProvingChild() {
+			Node result = children[0];
+			for (Node child : children) {
+				if (or ? child.proof < result.proof : child.disproof < result.disproof) {
+					result = child;
+				}
+			}
+			return result;
+		}
+		
+		/**
+		 * Recomputes the proof and disproof number from the children. 
+		 * The children of a solved node are discarded, except those of the root, which hold the move.
+		 */
+		void update() {
+			if (children == null) {
+				return;
+			}
+			if (children.length == 0) {
+				setWin(false);
+				return;
+			}
+			int min = INFINITY;
+			long sum = 0;
+			for (Node child : children) {
+				min = Math.min(min, or ? child.proof : child.disproof);
+				sum += or ? child.disproof : child.proof;
+			}
+			int cappedSum = (int) Math.min(INFINITY, sum);
+			proof = or ? min : cappedSum;
+			disproof = or ? cappedSum : min;
+			if ((proof == 0 || disproof == 0) && parent != null) {
+				children = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package model.artificialintelligence.minimax;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.gamelogic.GameState;
+import model.gamelogic.PlayableMove;
+
+/**
+ * The moves of a root position with the score and the number of nodes of their subtree in the 
+ * latest iteration that searched them. Moves are identified by the hash of the board they result in,
+ * so the list remains valid for later searches of the same position, even on another gameState object.
+ * Before the next depth, the moves are ordered by score, with ties broken by the size of their subtree:
+ * a move that took many nodes to refute is more likely to become the best move.
+ */
+class RootMoveList {
+	//
+	private final long boardHash;
+	private final Map<Long, RootMove> moves = new HashMap<>();
+	
+	/**
+	 * Creates an empty root move list for the current position of the given gameState.
+	 * @param gameState The gameState whose current position is the root.
+	 */
+	RootMoveList(GameState gameState) {
+		this.boardHash = gameState.getBoard().getBoardHash();
+	}
+	
+	long getBoardHash() {
+		return boardHash;
+	}
+	
+	boolean isEmpty() {
+		return moves.isEmpty();
+	}
+	
+	/**
+	 * Records the result of searching the given move, replacing that of a previous iteration.
+	 * @param move The move of the root position.
+	 * @param score The score that the search returned for the move, or Integer.MIN_VALUE if the move
+	 *     failed low, in which case only the number of nodes sets it apart from the other moves that did.
+	 * @param nodes The number of nodes of the subtree of the move.
+	 */
+	void record(PlayableMove move, int score, long nodes) {
+		moves.put(GameStateEvaluator.hashOfBoard(boardHash, move), new RootMove(score, nodes));
+	}
+	
+	/**
+	 * Orders the given moves by the recorded scores and numbers of nodes, from best to worst.
+	 * Moves without a record follow in their original order.
+	 * @param legalMoves The legal moves of the root position.
+	 * @return The ordered moves.
+	 */
+	List<PlayableMove> order(List<PlayableMove> legalMoves) {
+		List<OrderedMove> recorded = new ArrayList<>();
+		List<PlayableMove> result = new ArrayList<>(legalMoves.size());
+		List<PlayableMove> unrecorded = new ArrayList<>();
+		for (PlayableMove move : legalMoves) {
+			RootMove rootMove = moves.get(GameStateEvaluator.hashOfBoard(boardHash, move));
+			if (rootMove != null) {
+				recorded.add(new OrderedMove(move, rootMove));
+			} else {
+				unrecorded.add(move);
+			}
+		}
+		recorded.sort(null);
+		for (OrderedMove orderedMove : recorded) {
+			result.add(orderedMove.move);
+		}
+		result.addAll(unrecorded);
+		return result;
+	}
+	
+	private static class RootMove {
+		final int score;
+		final long nodes;
+		
+		RootMove(int score, long nodes) {
+			this.score = score;
+			this.nodes = nodes;
+		}
+	}
+	
+	private static class OrderedMove implements Comparable<OrderedMove> {
+		final PlayableMove move;
+		final RootMove rootMove;
+		
+		OrderedMove(PlayableMove move, RootMove rootMove) {
+			this.move = move;
+			this.rootMove = rootMove;
+		}
+		
+		@Override
+		public int compareTo(OrderedMove o) {
+			if (rootMove.score != o.rootMove.score) {
+				return Integer.compare(o.rootMove.score, rootMove.score);
+			}
+			return Long.compare(o.rootMove.nodes, rootMove.nodes);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package model.artificialintelligence.minimax;
+
+/**
+ * A fixed-size cache of the features of a team that only depend on the marbles of that team: the
+ * coherence and the distance from the center, like the pawn hash table of a chess engine. A move
+ * usually only moves the marbles of one team, so the features of the other teams are found in the
+ * cache when the gameState after the move is rated from scratch by the Team methods. The leaves of
+ * a search use the running totals of PapadopoulosFeatures instead, and the bitboards compute these
+ * features with a few shifts, so the cache only serves the ratings from scratch outside of those:
+ * the root, the captures in rateMoves and the prediction of a reply.
+ * Entries are keyed by the team hash of the board, see GameStateEvaluator.hashOfTeam, and the
+ * number of marbles of the team. That number is the same throughout a game, but an evaluator and
+ * its cache can be used for games in which the teams have another number of marbles, such as games
+ * with 2 and 3 players. The same marbles on the board then have another number of captured marbles,
+ * which count for the distance from the center but are not part of the team hash.
+ * A new entry replaces whichever entry is stored in its slot.
+ * Like the EvaluationCache, the cache is shared by the threads of a search without locking: an
+ * entry that was torn by simultaneous writes does not verify and is treated as a miss.
+ */
+class TeamFeatureCache {
+	//
+	static final int DEFAULT_KEY_SIZE = 16;
+	
+	private final long[] entries;
+	private final int keySize;
+	
+	/**
+	 * Creates an empty cache of 2^DEFAULT_KEY_SIZE entries.
+	 */
+	TeamFeatureCache() {
+		this(DEFAULT_KEY_SIZE);
+	}
+	
+	/**
+	 * Creates an empty cache.
+	 * @param keySize The number of bits of the slot index, the cache has 2^keySize entries.
+	 */
+	TeamFeatureCache(int keySize) {
+		this.keySize = keySize;
+		this.entries = new long[2 << keySize];
+	}
+	
+	private int slotOf(long teamHash) {
+		return 2 * (int) (teamHash >>> (Long.SIZE - keySize));
+	}
+	
+	/**
+	 * Copies the stored coherence and distance from the center into the features.
+	 * @param teamHash The team hash of the board.
+	 * @param nrOfMarbles The number of marbles of the team, on the board or captured.
+	 * @param features The features of the team, indexed like PapadopoulosFeatures.get.
+	 * @return Whether the features were in the cache; the features are left as they are if not.
+	 */
+	boolean get(long teamHash, int nrOfMarbles, int[] features) {
+		int slot = slotOf(teamHash);
+		long data = entries[slot + 1];
+		if ((entries[slot] ^ data) != teamHash || (int) (data >>> 48) != nrOfMarbles) {
+			return false;
+		}
+		features[PapadopoulosFeatures.COHERENCE] = (int) (data >>> 24) & 0xFFFFFF;
+		features[PapadopoulosFeatures.DISTANCE] = (int) data & 0xFFFFFF;
+		return true;
+	}
+	
+	/**
+	 * Stores the coherence and distance from the center of the features, replacing the entry in its slot.
+	 * @param teamHash The team hash of the board.
+	 * @param nrOfMarbles The number of marbles of the team, on the board or captured.
+	 * @param features The features of the team, indexed like PapadopoulosFeatures.get, whose coherence
+	 *     and distance from the center are not negative.
+	 */
+	void put(long teamHash, int nrOfMarbles, int[] features) {
+		assert (features[PapadopoulosFeatures.COHERENCE] >= 0 && features[PapadopoulosFeatures.DISTANCE] >= 0);
+		int slot = slotOf(teamHash);
+		long data = ((long) nrOfMarbles << 48)
+				| ((long) features[PapadopoulosFeatures.COHERENCE] << 24)
+				| features[PapadopoulosFeatures.DISTANCE];
+		entries[slot] = teamHash ^ data;
+		entries[slot + 1] = data;
+	}
+}
@@ -0,0 +1,237 @@
+package model.artificialintelligence.minimax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import model.gamelogic.GameState;
+import model.gamelogic.GameState.Game;
+import model.gamelogic.Move;
+import model.gamelogic.MoveSumito;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Team;
+
+/**
+ * Tunes the weights of the Papadopoulos rating of a GameStateEvaluator to the results of recorded games,
+ * like Texel's tuning method: the rating of every position is mapped to an expected result with a sigmoid,
+ * and the weights are changed one step at a time for as long as that lowers the mean squared error
+ * between the expected and the actual results.
+ * The terms of the rating are computed only once per position, when the games are added, and are kept in
+ * a flat array of shorts, so that the error of a set of weights is a sum of dot products. The error is
+ * computed by all cores at once, in fixed chunks so that it does not depend on the number of cores.
+ */
+public class TexelTuner {
+	//
+	/**
+	 * The number of turns at the start of every game that are not used by default.
+	 */
+	public static final int DEFAULT_SKIPPED_TURNS = 4;
+	// The number of positions of which the error is summed by one task.
+	private static final int CHUNK_SIZE = 1 << 14;
+	
+	private final GameStateEvaluator evaluator;
+	private final int skippedTurns;
+	// The terms of computeTerms of every position, NR_OF_TERMS per position.
+	private short[] terms = new short[1024 * GameStateEvaluator.NR_OF_TERMS];
+	// The result of every position for the team to move: 0 for a loss, 1 for a draw, 2 for a win.
+	private byte[] results = new byte[1024];
+	private int size = 0;
+	
+	/**
+	 * Creates a tuner without positions.
+	 * @param evaluator The evaluator whose weights are tuned, which must use the Papadopoulos rating.
+	 * @param skippedTurns The number of turns at the start of every game that are not used, as the
+	 *     openings of the games say little about their results.
+	 */
+	public TexelTuner(GameStateEvaluator evaluator, int skippedTurns) {
+		if (!evaluator.hasWeights()) {
+			throw new IllegalArgumentException("Only the weights of the Papadopoulos rating can be tuned.");
+		}
+		this.evaluator = evaluator;
+		this.skippedTurns = skippedTurns;
+	}
+	
+	/**
+	 * Adds the positions of the games, which are replayed by all cores at once.
+	 * Only the quiet positions are used: those in which the team to move cannot push a marble off the
+	 * board, as the rating of a position with a capture ahead is off by a marble.
+	 * @param games The recorded games, which are decided by the conquered marbles if they did not finish.
+	 */
+	public void addGames(List<Game> games) {
+		List<int[]> gameTerms = new ArrayList<>(games.size());
+		List<byte[]> gameResults = new ArrayList<>(games.size());
+		for (int i = 0; i < games.size(); i++) {
+			gameTerms.add(null);
+			gameResults.add(null);
+		}
+		IntStream.range(0, games.size()).parallel().forEach(i -> {
+			List<int[]> positions = new ArrayList<>();
+			List<Team> movers = new ArrayList<>();
+			Team winner = Game.getLeadingTeam(games.get(i).replay((gameState, move) -> {
+				if (gameState.getTurn() >= skippedTurns && isQuiet(gameState)) {
+					positions.add(evaluator.computeTerms(gameState, gameState.getCurrentTeam()));
+					movers.add(gameState.getCurrentTeam());
+				}
+			}));
+			byte[] positionResults = new byte[movers.size()];
+			for (int p = 0; p < movers.size(); p++) {
+				positionResults[p] = (byte) (winner == null ? 1 : winner == movers.get(p) ? 2 : 0);
+			}
+			gameTerms.set(i, positions.stream().flatMapToInt(Arrays::stream).toArray());
+			gameResults.set(i, positionResults);
+		});
+		// The positions are added in the order of the games, so that the result does not depend on timing.
+		for (int i = 0; i < games.size(); i++) {
+			add(gameTerms.get(i), gameResults.get(i));
+		}
+	}
+	
+	private static boolean isQuiet(GameState gameState) {
+		for (PlayableMove move : Move.allLegalMoves(gameState)) {
+			if (move instanceof MoveSumito && ((MoveSumito) move).isCapture()) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private void add(int[] positionTerms, byte[] positionResults) {
+		int newSize = size + positionResults.length;
+		if (newSize > results.length) {
+			int capacity = Math.max(newSize, 2 * results.length);
+			results = Arrays.copyOf(results, capacity);
+			terms = Arrays.copyOf(terms, capacity * GameStateEvaluator.NR_OF_TERMS);
+		}
+		for (int i = 0; i < positionTerms.length; i++) {
+			terms[size * GameStateEvaluator.NR_OF_TERMS + i] = (short) positionTerms[i];
+		}
+		System.arraycopy(positionResults, 0, results, size, positionResults.length);
+		size = newSize;
+	}
+	
+	/**
+	 * Returns the number of positions.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Computes the mean squared error between the expected and the actual results of the positions.
+	 * @param weights The weights of the terms, see GameStateEvaluator.getWeights.
+	 * @param scale The factor by which a rating is multiplied before the sigmoid.
+	 * @return The error, between 0 and 1.
+	 */
+	double computeError(int[] weights, double scale) {
+		if (size == 0) {
+			return 0;
+		}
+		double[] errors = new double[(size + CHUNK_SIZE - 1) / CHUNK_SIZE];
+		IntStream.range(0, errors.length).parallel().forEach(chunk -> {
+			double error = 0;
+			int end = Math.min(size, (chunk + 1) * CHUNK_SIZE);
+			for (int position = chunk * CHUNK_SIZE; position < end; position++) {
+				long rating = 0;
+				int offset = position * GameStateEvaluator.NR_OF_TERMS;
+				for (int term = 0; term < GameStateEvaluator.NR_OF_TERMS; term++) {
+					rating += (long) weights[term] * terms[offset + term];
+				}
+				double difference = results[position] / 2.0 - 1 / (1 + Math.exp(-scale * rating));
+				error += difference * difference;
+			}
+			errors[chunk] = error;
+		});
+		double error = 0;
+		for (double chunkError : errors) {
+			error += chunkError;
+		}
+		return error / size;
+	}
+	
+	/**
+	 * Finds the scale of the sigmoid for which the weights have the lowest error, with a ternary search
+	 * over the logarithm of the scale. The scale is fitted once, before the weights are tuned, as it
+	 * fixes the magnitude of the weights.
+	 * @param weights The weights of the terms.
+	 * @return The scale.
+	 */
+	double fitScale(int[] weights) {
+		double low = -8;
+		double high = 0;
+		for (int i = 0; i < 60; i++) {
+			double third = (high - low) / 3;
+			if (computeError(weights, Math.pow(10, low + third))
+					< computeError(weights, Math.pow(10, high - third))) {
+				high -= third;
+			} else {
+				low += third;
+			}
+		}
+		return Math.pow(10, (low + high) / 2);
+	}
+	
+	/**
+	 * Tunes the weights with a local search: every weight is increased or decreased by the step for as
+	 * long as that lowers the error, after which the step is halved, down to 1.
+	 * @param weights The initial weights of the terms.
+	 * @param scale The scale of the sigmoid, see fitScale.
+	 * @param maxRounds The maximum number of rounds over all weights.
+	 * @return The tuned weights.
+	 */
+	int[] tune(int[] weights, double scale, int maxRounds) {
+		int[] best = weights.clone();
+		double bestError = computeError(best, scale);
+		int step = Integer.highestOneBit(Math.max(1, Arrays.stream(best).map(Math::abs).max().orElse(0) / 4));
+		for (int round = 0; round < maxRounds && step > 0; round++) {
+			boolean improved = false;
+			for (int term = 0; term < best.length; term++) {
+				for (int delta : new int[] {step, -step}) {
+					int[] candidate = best.clone();
+					candidate[term] += delta;
+					double error = computeError(candidate, scale);
+					if (error < bestError) {
+						best = candidate;
+						bestError = error;
+						improved = true;
+						break;
+					}
+				}
+			}
+			if (!improved) {
+				step /= 2;
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Finds the scale of the sigmoid for which the current weights of the evaluator have the lowest error.
+	 * @return The scale.
+	 */
+	public double fitScale() {
+		return fitScale(evaluator.getWeights());
+	}
+	
+	/**
+	 * Computes the mean squared error between the expected and the actual results of the positions.
+	 * @param rated The evaluator whose weights rate the positions, such as the evaluator of this tuner
+	 *     or an evaluator returned by tune.
+	 * @param scale The factor by which a rating is multiplied before the sigmoid.
+	 * @return The error, between 0 and 1.
+	 */
+	public double computeError(GameStateEvaluator rated, double scale) {
+		return computeError(rated.getWeights(), scale);
+	}
+	
+	/**
+	 * Tunes the weights of the evaluator to the positions, starting from its current weights.
+	 * @param scale The scale of the sigmoid, see fitScale.
+	 * @param maxRounds The maximum number of rounds over all weights.
+	 * @return An evaluator like the evaluator of this tuner with the tuned weights, see
+	 *     GameStateEvaluator.withWeights.
+	 */
+	public GameStateEvaluator tune(double scale, int maxRounds) {
+		return evaluator.withWeights(tune(evaluator.getWeights(), scale, maxRounds));
+	}
+}
@@ -0,0 +1,126 @@
+package model.artificialintelligence.minimax;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.gamelogic.GameState;
+import model.gamelogic.GameState.Game;
+import model.gamelogic.Move;
+import model.gamelogic.MoveSumito;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Player;
+
+class TexelTunerTest {
+	//
+	GameStateEvaluator evaluator;
+	List<Game> games;
+	
+	@BeforeEach
+	void setUp() throws Exception {
+		evaluator = new GameStateEvaluator.Builder()
+				.withMarbleConqueredWeight(100)
+				.withDistanceFromCenterWeight(8)
+				.withCoherenceWeight(3)
+				.withFormationBreakWeight(20)
+				.withImmediateMarbleCapWeight(30)
+				.withSingleMarbleCapWeight(5)
+				.withDoubleMarbleCapWeight(7)
+				.considerEnemyPosition()
+				.build();
+		games = new ArrayList<>();
+		Random random = new Random(11);
+		for (int i = 0; i < 6; i++) {
+			games.add(playGame(random));
+		}
+	}
+	
+	/**
+	 * Plays a game of at most 150 turns in which the moves that capture a marble are played whenever
+	 * there is one, and random moves otherwise.
+	 */
+	private static Game playGame(Random random) {
+		GameState gameState = new GameState(Arrays.asList(
+				Player.newPlayer("x", "random"), 
+				Player.newPlayer("y", "random")));
+		while (!gameState.isFinished() && gameState.getTurn() < 150) {
+			List<PlayableMove> moves = new ArrayList<>(Move.allLegalMoves(gameState));
+			moves.sort(Comparator.comparing(PlayableMove::getMoveNotation));
+			PlayableMove chosen = moves.get(random.nextInt(moves.size()));
+			for (PlayableMove move : moves) {
+				if (move instanceof MoveSumito && ((MoveSumito) move).isCapture()) {
+					chosen = move;
+				}
+			}
+			gameState.makeMove(chosen);
+		}
+		return gameState.gameHistory;
+	}
+	
+	@Test
+	void testRatingIsTheWeightedSumOfTheTerms() {
+		for (GameStateEvaluator template : Arrays.asList(evaluator, new GameStateEvaluator.Builder()
+				.withMarbleConqueredWeight(50)
+				.withCoherenceWeight(7)
+				.withSingleMarbleCapWeight(-3)
+				.build())) {
+			int[] weights = template.getWeights();
+			GameStateEvaluator unnormalized = template.withWeights(weights);
+			GameState gameState = new GameState(Arrays.asList(
+					Player.newPlayer("x", "random"), 
+					Player.newPlayer("y", "random")));
+			for (String notation : games.get(0).moves) {
+				if (gameState.isFinished()) {
+					break;
+				}
+				int[] terms = template.computeTerms(gameState, gameState.getCurrentTeam());
+				int rating = 0;
+				for (int term = 0; term < weights.length; term++) {
+					rating += weights[term] * terms[term];
+				}
+				assertEquals(unnormalized.rateGameState(gameState, gameState.getCurrentTeam()), rating);
+				gameState.makeMove(Move.newMove(gameState.getBoard(), notation, gameState.getCurrentPlayer()));
+			}
+		}
+	}
+	
+	@Test
+	void testTuningDoesNotIncreaseTheError() {
+		TexelTuner tuner = new TexelTuner(evaluator, TexelTuner.DEFAULT_SKIPPED_TURNS);
+		tuner.addGames(games);
+		assertTrue(tuner.size() > 0);
+		int[] weights = evaluator.getWeights();
+		double scale = tuner.fitScale(weights);
+		assertTrue(tuner.computeError(weights, scale) <= tuner.computeError(weights, scale * 2));
+		assertTrue(tuner.computeError(weights, scale) <= tuner.computeError(weights, scale / 2));
+		int[] tuned = tuner.tune(weights, scale, 10);
+		assertTrue(tuner.computeError(tuned, scale) <= tuner.computeError(weights, scale));
+		assertArrayEquals(tuned, tuner.tune(weights, scale, 10));
+	}
+	
+	@Test
+	void testPositionsAreAddedInTheOrderOfTheGames() {
+		TexelTuner tuner = new TexelTuner(evaluator, 0);
+		tuner.addGames(games);
+		TexelTuner sequentialTuner = new TexelTuner(evaluator, 0);
+		for (Game game : games) {
+			sequentialTuner.addGames(Arrays.asList(game));
+		}
+		assertEquals(sequentialTuner.size(), tuner.size());
+		int[] weights = evaluator.getWeights();
+		assertEquals(sequentialTuner.computeError(weights, 0.001), tuner.computeError(weights, 0.001));
+	}
+	
+	@Test
+	void testAbaProCannotBeTuned() {
+		assertThrows(IllegalArgumentException.class, 
+				() -> new TexelTuner(new GameStateEvaluator.Builder().enableAbaPro().build(), 0));
+	}
+}
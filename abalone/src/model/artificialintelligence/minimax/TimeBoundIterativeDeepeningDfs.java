@@ -1,8 +1,12 @@
 package model.artificialintelligence.minimax;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -13,6 +17,16 @@ import model.gamelogic.PlayableMove;
 public class TimeBoundIterativeDeepeningDfs extends DefaultMinimax {
 	//
 	private int time;
+	private int lazySmpHelpers = 0;
+	// The time in milliseconds that the search may take to stop after its deadline before it is stopped.
+	private static final int STOP_GRACE_PERIOD = 100;
+	// The time in seconds after which an idle search or helper thread terminates.
+	private static final int THREAD_KEEP_ALIVE = 60;
+	
+	private ExecutorService searchThread = null;
+	private ExecutorService helperThreads = null;
+	private List<DefaultMinimax> helpers = new ArrayList<>();
+	private TimeManager timeManager = null;
 	
 	/**
 	 * Creates a new minimax for the current player of the given GameState.
@@ -23,6 +37,25 @@ public class TimeBoundIterativeDeepeningDfs extends DefaultMinimax {
 		this.time = time;
 	}
 	
+	/**
+	 * Enables Lazy SMP: while this minimax searches, the given number of helper threads run the same
+	 * iterative deepening on private copies of the gameState. The helpers only communicate with this
+	 * minimax through the transposition table of the evaluator, so hashing must be enabled.
+	 * @param helpers The number of helper threads.
+	 */
+	void enableLazySmp(int helpers) {
+		assert (helpers > 0);
+		this.lazySmpHelpers = helpers;
+	}
+	
+	/**
+	 * Enables adaptive time management, see TimeManager.
+	 * @param timeManager The time manager that decides how long to search for every move.
+	 */
+	void enableTimeManagement(TimeManager timeManager) {
+		this.timeManager = timeManager;
+	}
+	
 	public PlayableMove getBestMove() {
 		return iterativeDeepeningDepthFirstSearch(time);
 	}
@@ -36,41 +69,187 @@ public class TimeBoundIterativeDeepeningDfs extends DefaultMinimax {
 	public PlayableMove iterativeDeepeningDepthFirstSearch(int time) {
 		assert (time > 0);
 		long startTime = System.currentTimeMillis();
-		PlayableMove bestMove = null;
+		long deadline = startTime + time * 1000L;
+		PlayableMove ponderMove = null;
+		int ponderScore = Integer.MIN_VALUE;
+		int startDepth = 1;
+		
+		// On a ponder hit, continue from the depth that the ponder search completed.
+		Ponder.Result ponderHit = stopPondering();
+		if (ponderHit != null) {
+			ponderMove = ponderHit.move;
+			ponderScore = ponderHit.score;
+			startDepth = ponderHit.depth + 1;
+		}
+		PlayableMove forcedWin = solveEndgame();
+		if (forcedWin != null) {
+			if (timeManager != null) {
+				timeManager.endMove(System.currentTimeMillis() - startTime);
+			}
+			return forcedWin;
+		}
+		if (timeManager != null) {
+			PlayableMove instantMove = TimeManager.getInstantMove(gameState);
+			if (instantMove != null) {
+				timeManager.endMove(System.currentTimeMillis() - startTime);
+				return instantMove;
+			}
+			timeManager.startMove(startTime);
+			deadline = timeManager.getHardDeadline();
+		}
+		startSearch(deadline);
+		List<Future<?>> helperFutures = startLazySmpHelpers(deadline);
 		
-		// While the time limit has not been reached, increase depth:
-		for (int depth = 1; startTime + time * 1000 > System.currentTimeMillis(); depth++) {
-			// Start minimax thread to generate a better move.
-			final int immutableDepth = depth;
-			Future<PlayableMove> futureMove = Executors.newCachedThreadPool()
-					.submit(() -> minimax(immutableDepth)); 
-			
-			// Retrieve the move. On timeout, interrupt the thread and wait for it to finish.
+		// The search stops by itself at the deadline. Should it fail to do so in time, stop it.
+		final int immutableStartDepth = startDepth;
+		final PlayableMove immutablePonderMove = ponderMove;
+		final int immutablePonderScore = ponderScore;
+		Future<PlayableMove> futureMove = getSearchThread()
+				.submit(() -> deepen(immutableStartDepth, immutablePonderMove, immutablePonderScore));
+		PlayableMove bestMove = null;
+		try {
 			try {
-				bestMove = futureMove.get(
-						time * 1000 - (System.currentTimeMillis() - startTime), 
+				bestMove = futureMove.get(deadline - System.currentTimeMillis() + STOP_GRACE_PERIOD, 
 						TimeUnit.MILLISECONDS);
-			} catch (InterruptedException | ExecutionException | TimeoutException e) {
-				if (e instanceof TimeoutException) {
-					futureMove.cancel(true);
-					// Wait for the futureMove thread to properly die.
-					try {
-						gameStateLock.lock();
-					} finally {
-						gameStateLock.unlock();
-					}
-				} else {
-					e.printStackTrace();
-				}
+			} catch (TimeoutException e) {
+				stop();
+				bestMove = futureMove.get();
 			}
-			
+		} catch (InterruptedException e) {
+			stop();
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			stop();
+			e.printStackTrace();
+		}
+		stopLazySmpHelpers(helperFutures);
+		if (timeManager != null) {
+			timeManager.endMove(System.currentTimeMillis() - startTime);
 		}
 		if (bestMove == null) {
 			System.err.println("TimeBoundIterativeDeepeningDfs was unable "
-					+ "to supply a move before it got interrupted, "
+					+ "to supply a move before it got stopped, "
 					+ "supplying a random move instead.");
 			return new RandomStrategy().determineMove(gameState);
 		}
 		return bestMove;
 	}
+	
+	/**
+	 * Increases the depth until the search is stopped, or until the time manager predicts
+	 * that the next depth cannot be completed in time.
+	 * The best move of a depth that was not searched completely is used if it is better than the best 
+	 * move of the previous depth, see bestMoveAfterStoppedDepth.
+	 * @param startDepth The first depth to search.
+	 * @param bestMove The move to return if not a single depth is completed, may be null.
+	 * @param bestScore The score of bestMove, which a move of a stopped first depth must beat, 
+	 *     or Integer.MIN_VALUE if bestMove is null.
+	 * @return The best move of the deepest completed depth.
+	 */
+	private PlayableMove deepen(int startDepth, PlayableMove bestMove, int bestScore) {
+		for (int depth = startDepth; !isStopRequested(); depth++) {
+			long depthStartTime = System.currentTimeMillis();
+			PlayableMove move = minimax(depth);
+			if (move == null) {
+				bestMove = bestMoveAfterStoppedDepth(bestMove, bestScore);
+				break;
+			}
+			boolean bestMoveChanged = bestMove != null && !bestMove.equals(move);
+			bestMove = move;
+			bestScore = partialBestScore;
+			if (timeManager != null && !timeManager.startNextDepth(
+					System.currentTimeMillis() - depthStartTime, 
+					gameState.gameStats.getEffectiveBranchingFactor(), 
+					bestMoveChanged)) {
+				break;
+			}
+		}
+		return bestMove;
+	}
+	
+	/**
+	 * Returns the thread on which this minimax searches. The thread is reused by all searches 
+	 * that follow within THREAD_KEEP_ALIVE seconds of each other.
+	 * @return The single thread executor of this minimax.
+	 */
+	private ExecutorService getSearchThread() {
+		if (searchThread == null) {
+			searchThread = newThreadPool(1, "search");
+		}
+		return searchThread;
+	}
+	
+	/**
+	 * Creates a pool of daemon threads that terminate once they have been idle for THREAD_KEEP_ALIVE
+	 * seconds, so that the threads of minimaxes that are no longer used do not pile up.
+	 * @param threads The number of threads of the pool.
+	 * @param name The name of the threads.
+	 * @return The pool.
+	 */
+	private static ExecutorService newThreadPool(int threads, String name) {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 
+				THREAD_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (runnable) -> {
+					Thread thread = new Thread(runnable, name);
+					thread.setDaemon(true);
+					return thread;
+				});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+	
+	/**
+	 * Starts the Lazy SMP helpers. Each helper searches a private copy of the gameState with the same
+	 * heuristics as this minimax, increasing the depth until it is stopped or reaches the deadline.
+	 * Every other helper starts one ply deeper, so that the helpers are spread over different depths
+	 * and fill the transposition table ahead of this minimax.
+	 * The helper threads are reused by all searches that follow within THREAD_KEEP_ALIVE seconds.
+	 * @param deadline The time in milliseconds since the epoch at which the helpers stop.
+	 * @return The futures of the helpers, which is empty if Lazy SMP is disabled.
+	 */
+	private List<Future<?>> startLazySmpHelpers(long deadline) {
+		List<Future<?>> helperFutures = new ArrayList<>();
+		if (lazySmpHelpers <= 0) {
+			return helperFutures;
+		}
+		if (helperThreads == null) {
+			helperThreads = newThreadPool(lazySmpHelpers, "lazy-smp");
+		}
+		helpers.clear();
+		for (int i = 0; i < lazySmpHelpers; i++) {
+			final DefaultMinimax helper = new DepthFirstSearch(gameState.copy(), evaluator, 0);
+			copyHeuristicsTo(helper);
+			helper.startSearch(deadline);
+			helpers.add(helper);
+			final int startDepth = 1 + i % 2;
+			helperFutures.add(helperThreads.submit(() -> {
+				// The results of the helper are in the shared transposition table, 
+				// so there is nothing to return.
+				int depth = startDepth;
+				while (helper.minimax(depth) != null) {
+					depth++;
+				}
+			}));
+		}
+		return helperFutures;
+	}
+	
+	/**
+	 * Stops the Lazy SMP helpers and waits for them to finish.
+	 * @param helperFutures The futures of the helpers.
+	 */
+	private void stopLazySmpHelpers(List<Future<?>> helperFutures) {
+		for (DefaultMinimax helper : helpers) {
+			helper.stop();
+		}
+		for (Future<?> helperFuture : helperFutures) {
+			try {
+				helperFuture.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+	}
 }
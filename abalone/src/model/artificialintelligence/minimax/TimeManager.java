@@ -0,0 +1,209 @@
+package model.artificialintelligence.minimax;
+
+import model.gamelogic.GameState;
+import model.gamelogic.Move;
+import model.gamelogic.MoveUndo;
+import model.gamelogic.PlayableMove;
+import model.gamelogic.Team;
+
+/**
+ * Decides how much time the time bound IDDFS spends on a move.
+ * Every move has a soft limit, after which no new depth is started, and a hard limit, at which the
+ * search is stopped. A new depth is only started if it is predicted to finish before the hard limit,
+ * based on the duration of the previous depth and the effective branching factor.
+ * When the best move changes between depths, the soft limit is extended towards the hard limit.
+ * Without a game clock, the time limit of the IDDFS is both the soft and the hard limit.
+ * With a game clock, the soft limit is an even share of the remaining time plus the increment,
+ * and the hard limit is a multiple of that, bound by a fraction of the remaining time.
+ */
+class TimeManager {
+	//
+	/**
+	 * The number of moves that the remaining time on the clock is expected to be divided over.
+	 */
+	static final int MOVES_TO_GO = 25;
+	/**
+	 * The hard limit as a multiple of the soft limit.
+	 */
+	static final int HARD_LIMIT_FACTOR = 3;
+	/**
+	 * The hard limit as a fraction of the remaining time on the clock.
+	 */
+	static final double MAX_CLOCK_FRACTION = 0.25;
+	/**
+	 * The extension of the soft limit whenever the best move changes, as a fraction of the soft limit.
+	 */
+	static final double BEST_MOVE_CHANGE_EXTENSION = 0.5;
+	/**
+	 * The minimum time in milliseconds that is spent on a move, even if the clock has run out.
+	 */
+	static final int MIN_MOVE_TIME = 50;
+	
+	private final long maxMoveTime;
+	private final boolean hasClock;
+	private long remainingTime;
+	private final long increment;
+	
+	private long startTime;
+	private long baseSoftLimit;
+	private long softLimit;
+	private long hardLimit;
+	
+	/**
+	 * Creates a time manager without a game clock.
+	 * @param time The time limit per move in seconds.
+	 */
+	TimeManager(int time) {
+		assert (time > 0);
+		this.maxMoveTime = time * 1000L;
+		this.hasClock = false;
+		this.remainingTime = 0;
+		this.increment = 0;
+	}
+	
+	/**
+	 * Creates a time manager for a game clock with an increment.
+	 * @param time The maximum time per move in seconds.
+	 * @param clock The time on the clock at the start of the game in seconds.
+	 * @param increment The time in seconds that is added to the clock after every move.
+	 */
+	TimeManager(int time, int clock, int increment) {
+		assert (time > 0 && clock > 0 && increment >= 0);
+		this.maxMoveTime = time * 1000L;
+		this.hasClock = true;
+		this.remainingTime = clock * 1000L;
+		this.increment = increment * 1000L;
+	}
+	
+	/**
+	 * Determines the limits for the move that starts at the given time.
+	 * @param startTime The time in milliseconds since the epoch at which the move started.
+	 */
+	void startMove(long startTime) {
+		this.startTime = startTime;
+		if (hasClock) {
+			softLimit = remainingTime / MOVES_TO_GO + increment;
+			hardLimit = Math.min(softLimit * HARD_LIMIT_FACTOR,
+					(long) (remainingTime * MAX_CLOCK_FRACTION) + increment);
+			hardLimit = Math.max(MIN_MOVE_TIME, Math.min(maxMoveTime, hardLimit));
+			softLimit = Math.max(MIN_MOVE_TIME, Math.min(softLimit, hardLimit));
+		} else {
+			softLimit = maxMoveTime;
+			hardLimit = maxMoveTime;
+		}
+		baseSoftLimit = softLimit;
+	}
+	
+	/**
+	 * Returns the time at which the search of the current move must stop.
+	 * @return The hard limit in milliseconds since the epoch.
+	 */
+	long getHardDeadline() {
+		return startTime + hardLimit;
+	}
+	
+	long getSoftLimit() {
+		return softLimit;
+	}
+	
+	long getHardLimit() {
+		return hardLimit;
+	}
+	
+	/**
+	 * Decides whether the next depth is started, after a depth was completed.
+	 * @param depthTime The time in milliseconds that the completed depth took.
+	 * @param effectiveBranchingFactor The effective branching factor of the search, or 0 if unknown.
+	 * @param bestMoveChanged Whether the completed depth changed the best move.
+	 * @return True if the next depth should be searched, false if the search should stop.
+	 */
+	boolean startNextDepth(long depthTime, double effectiveBranchingFactor, boolean bestMoveChanged) {
+		if (bestMoveChanged) {
+			softLimit = Math.min(hardLimit,
+					softLimit + (long) (baseSoftLimit * BEST_MOVE_CHANGE_EXTENSION));
+		}
+		long elapsed = System.currentTimeMillis() - startTime;
+		if (elapsed >= softLimit) {
+			return false;
+		}
+		// Without a prediction, the next depth is started and stopped at the hard limit if needed.
+		return effectiveBranchingFactor <= 0
+				|| elapsed + depthTime * effectiveBranchingFactor <= hardLimit;
+	}
+	
+	/**
+	 * Charges the time spent on the move to the clock and adds the increment.
+	 * @param timeSpent The time in milliseconds that the move took.
+	 */
+	void endMove(long timeSpent) {
+		if (hasClock) {
+			remainingTime = remainingTime - timeSpent + increment;
+		}
+	}
+	
+	long getRemainingTime() {
+		return remainingTime;
+	}
+	
+	/**
+	 * Returns a move that can be played without searching: the only legal move, or an obvious capture.
+	 * A capture is obvious if it wins the game, or if it is the only capture and no reply captures
+	 * a marble in return.
+	 * @param gameState The gameState for which a move is determined.
+	 * @return The move to play instantly, or null if the position has to be searched.
+	 */
+	static PlayableMove getInstantMove(GameState gameState) {
+		Team team = gameState.getCurrentTeam();
+		PlayableMove onlyMove = null;
+		PlayableMove capture = null;
+		int captures = 0;
+		int legalMoves = 0;
+		for (PlayableMove move : Move.allLegalMoves(gameState)) {
+			legalMoves++;
+			onlyMove = move;
+			int conquered = team.getConqueredMarbles().size();
+			MoveUndo undo = gameState.makeMove(move);
+			boolean isCapture = team.getConqueredMarbles().size() > conquered;
+			boolean isWin = isCapture && gameState.isFinished();
+			gameState.makeMove(undo);
+			if (isWin) {
+				return move;
+			}
+			if (isCapture) {
+				captures++;
+				capture = move;
+			}
+		}
+		if (legalMoves == 1) {
+			return onlyMove;
+		}
+		if (captures == 1 && !allowsCaptureInReturn(gameState, capture)) {
+			return capture;
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns whether any reply to the given move captures a marble.
+	 * @param gameState The gameState to which the move can be applied.
+	 * @param move The move after which the replies are checked.
+	 * @return True if a reply captures a marble, false otherwise.
+	 */
+	private static boolean allowsCaptureInReturn(GameState gameState, PlayableMove move) {
+		MoveUndo undo = gameState.makeMove(move);
+		boolean result = false;
+		if (!gameState.isFinished()) {
+			int conquered = gameState.getTotalNrOfConqueredMarbles();
+			for (PlayableMove reply : Move.allLegalMoves(gameState)) {
+				MoveUndo replyUndo = gameState.makeMove(reply);
+				result = gameState.getTotalNrOfConqueredMarbles() > conquered;
+				gameState.makeMove(replyUndo);
+				if (result) {
+					break;
+				}
+			}
+		}
+		gameState.makeMove(undo);
+		return result;
+	}
+}
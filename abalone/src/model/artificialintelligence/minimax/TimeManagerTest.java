@@ -0,0 +1,76 @@
+package model.artificialintelligence.minimax;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import model.gamelogic.GameState;
+import model.gamelogic.Player;
+
+class TimeManagerTest {
+	//
+	@Test
+	void testWithoutClockTheTimeLimitIsBothSoftAndHardLimit() {
+		TimeManager timeManager = new TimeManager(3);
+		timeManager.startMove(System.currentTimeMillis());
+		assertEquals(3000, timeManager.getSoftLimit());
+		assertEquals(3000, timeManager.getHardLimit());
+		
+		// A change of the best move cannot extend beyond the hard limit.
+		timeManager.startNextDepth(0, 0, true);
+		assertEquals(3000, timeManager.getSoftLimit());
+	}
+	
+	@Test
+	void testClockIsDividedOverTheMovesAndChargedWithIncrement() {
+		TimeManager timeManager = new TimeManager(60, 100, 2);
+		timeManager.startMove(System.currentTimeMillis());
+		assertEquals(100000 / TimeManager.MOVES_TO_GO + 2000, timeManager.getSoftLimit());
+		assertEquals(3 * (100000 / TimeManager.MOVES_TO_GO + 2000), timeManager.getHardLimit());
+		
+		timeManager.endMove(5000);
+		assertEquals(97000, timeManager.getRemainingTime());
+		
+		// The maximum time per move caps the hard limit.
+		timeManager = new TimeManager(1, 100, 2);
+		timeManager.startMove(System.currentTimeMillis());
+		assertEquals(1000, timeManager.getHardLimit());
+		assertEquals(1000, timeManager.getSoftLimit());
+	}
+	
+	@Test
+	void testBestMoveChangeExtendsSoftLimit() {
+		TimeManager timeManager = new TimeManager(60, 100, 0);
+		timeManager.startMove(System.currentTimeMillis());
+		assertEquals(4000, timeManager.getSoftLimit());
+		assertTrue(timeManager.startNextDepth(10, 0, true));
+		assertEquals(6000, timeManager.getSoftLimit());
+		assertTrue(timeManager.startNextDepth(10, 0, false));
+		assertEquals(6000, timeManager.getSoftLimit());
+	}
+	
+	@Test
+	void testNextDepthIsOnlyStartedIfPredictedToFinish() {
+		TimeManager timeManager = new TimeManager(60, 100, 0);
+		timeManager.startMove(System.currentTimeMillis());
+		// The hard limit is 12 seconds.
+		assertFalse(timeManager.startNextDepth(1000, 20, false));
+		assertTrue(timeManager.startNextDepth(1000, 5, false));
+		assertTrue(timeManager.startNextDepth(1000, 0, false));
+		
+		// Past the soft limit, no new depth is started at all.
+		timeManager.startMove(System.currentTimeMillis() - 5000);
+		assertFalse(timeManager.startNextDepth(10, 1, false));
+	}
+	
+	@Test
+	void testNoInstantMoveInOpening() {
+		GameState gameState = new GameState(Arrays.asList(
+				Player.newPlayer("x", "random"), Player.newPlayer("y", "random")));
+		long hash = gameState.getBoard().getBoardHash();
+		assertNull(TimeManager.getInstantMove(gameState));
+		assertEquals(hash, gameState.getBoard().getBoardHash());
+	}
+}
@@ -1,8 +1,8 @@
 package model.artificialintelligence.minimax;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import model.artificialintelligence.minimax.TranspositionTable.TranspositionValue.Flag;
 import model.gamelogic.GameState;
@@ -17,13 +17,18 @@ public class TranspositionTable {
 	
 	private Map<TranspositionKey, TranspositionValue> table;
 	
+	/**
+	 * Creates an empty transposition table. 
+	 * The table can be shared by searches that run on copies of the same gameState at the same time,
+	 * which is why teams are identified by their number instead of by the Team itself.
+	 */
 	TranspositionTable() {
-		table = new HashMap<>();
+		table = new ConcurrentHashMap<>();
 	}
 	
 	private static TranspositionKey getKey(GameState gameState, Team team) {
 		return new TranspositionKey(
-				team,  
+				gameState.getTeamNumber(team),  
 				gameState.getBoard().getBoardHash());
 	}
 	
@@ -33,11 +38,11 @@ public class TranspositionTable {
 	}
 	
 	TranspositionValue get(GameState gameState, Team team) {
-		return get(gameState.getBoard().getBoardHash(), team);
+		return get(gameState, gameState.getBoard().getBoardHash(), team);
 	}
 	
-	TranspositionValue get(long boardHash, Team team) {
-		TranspositionValue val = table.get(new TranspositionKey(team, boardHash));
+	TranspositionValue get(GameState gameState, long boardHash, Team team) {
+		TranspositionValue val = table.get(new TranspositionKey(gameState.getTeamNumber(team), boardHash));
 		if (val == null || val.boardHash != boardHash) {
 			return null;
 		}
@@ -50,10 +55,10 @@ public class TranspositionTable {
 	
 	
 	static class TranspositionKey {
-		Team team;
+		int team;
 		long partialBoardHash;
 		
-		TranspositionKey(Team team, long boardHash) {
+		TranspositionKey(int team, long boardHash) {
 			this.team = team;
 			this.partialBoardHash = boardHash >>> (NUMBER_SIZE - KEY_SIZE);
 		}
@@ -72,7 +77,7 @@ public class TranspositionTable {
 				return false;
 			}
 			TranspositionKey other = (TranspositionKey) obj;
-			return partialBoardHash == other.partialBoardHash && Objects.equals(team, other.team);
+			return partialBoardHash == other.partialBoardHash && team == other.team;
 		}
 
 
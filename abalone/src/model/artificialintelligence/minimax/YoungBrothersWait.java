@@ -0,0 +1,207 @@
+package model.artificialintelligence.minimax;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.gamelogic.GameState;
+import model.gamelogic.Move;
+import model.gamelogic.PlayableMove;
+
+/**
+ * Parallel alpha-beta search following the Young Brothers Wait Concept.
+ * A node searches its eldest child on its own. Only once that child has been searched,
+ * the younger brothers are offered to the idle threads of a work-stealing pool.
+ * Every younger brother is searched on a private copy of the gameState and all of them share the
+ * transposition table of the evaluator. When a younger brother causes a cutoff, the brothers
+ * that are still being searched, including their own younger brothers, are aborted.
+ */
+class YoungBrothersWait {
+	//
+	/**
+	 * The minimum number of plies that have to be left below a node before its younger brothers are
+	 * searched in parallel. Splitting nodes closer to the leaves costs more than it gains,
+	 * as every younger brother requires a copy of the gameState.
+	 */
+	static final int MIN_SPLIT_DEPTH = 3;
+	
+	private ForkJoinPool pool;
+	
+	/**
+	 * Creates a Young Brothers Wait search that uses the given number of threads.
+	 * @param threads The number of threads of the work-stealing pool.
+	 */
+	YoungBrothersWait(int threads) {
+		assert (threads > 0);
+		this.pool = new ForkJoinPool(threads);
+	}
+	
+	/**
+	 * Returns whether the younger brothers of a node at currentDepth are searched in parallel.
+	 * @param depthLimit The maximum depth that can be reached by the DFS.
+	 * @param currentDepth The depth of the node whose children are searched.
+	 * @return True if enough plies are left below the node, false otherwise.
+	 */
+	boolean isSplitPoint(int depthLimit, int currentDepth) {
+		return depthLimit - currentDepth >= MIN_SPLIT_DEPTH;
+	}
+	
+	/**
+	 * Searches all but the first of the given moves in parallel with the same window.
+	 * Blocks until all younger brothers are searched or aborted.
+	 * @param parent The minimax that reached the node, whose gameState is not modified.
+	 * @param moves The legal moves of the node, of which the first has already been searched.
+	 * @param depthLimit The maximum depth that can be reached by the DFS.
+	 * @param childDepth The depth of the children of the node.
+	 * @param alpha The minimum score that the maximizing player can guarantee.
+	 * @param beta The maximum score that the minimizing player can guarantee.
+	 * @param maximizing Whether the node belongs to the optimizing team.
+	 * @return The scores of moves.get(1) up to and including moves.get(moves.size() - 1) in that order.
+	 *     A score is null if its search was aborted because one of its brothers caused a cutoff.
+	 *     If an ancestor of the node was aborted or the search was stopped meanwhile, 
+	 *     parent.stopped is set.
+	 */
+	List<Integer> searchYoungerBrothers(DefaultMinimax parent, List<PlayableMove> moves,
+			int depthLimit, int childDepth, int alpha, int beta, boolean maximizing) {
+		// At the root, a raised bound would hide which of the brothers is the best move.
+		boolean isRoot = parent.splitPoint == null && childDepth == 1;
+		SplitPoint splitPoint = new SplitPoint(parent.splitPoint, maximizing ? alpha : beta, !isRoot);
+		List<YoungerBrother> brothers = new ArrayList<>();
+		for (PlayableMove move : moves.subList(1, moves.size())) {
+			brothers.add(new YoungerBrother(parent, splitPoint, move.getMoveNotation(),
+					depthLimit, childDepth, alpha, beta, maximizing));
+		}
+		
+		if (ForkJoinTask.getPool() == pool) {
+			ForkJoinTask.invokeAll(brothers);
+		} else {
+			// The root of the search runs outside of the pool, so it has to hand over the brothers.
+			pool.invoke(new RecursiveTask<Void>() {
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				protected Void compute() {
+					invokeAll(brothers);
+					return null;
+				}
+			});
+		}
+		
+		List<Integer> result = new ArrayList<>();
+		for (YoungerBrother brother : brothers) {
+			result.add(brother.join());
+			if (brother.worker != null) {
+				parent.gameState.gameStats.addSearchStats(brother.worker.gameState.gameStats);
+				parent.mergeNextRootMoves(brother.worker);
+			}
+		}
+		if ((splitPoint.parent != null && splitPoint.parent.isAborted()) || parent.isStopRequested()) {
+			parent.stopped = true;
+		}
+		return result;
+	}
+	
+	/**
+	 * A node whose younger brothers are being searched in parallel.
+	 * Brothers that finish early raise the bound of the node, so that the brothers that start later
+	 * search with a narrower window.
+	 */
+	static class SplitPoint {
+		final SplitPoint parent;
+		final AtomicInteger bound;
+		final boolean sharesBound;
+		volatile boolean aborted = false;
+		
+		SplitPoint(SplitPoint parent, int bound, boolean sharesBound) {
+			this.parent = parent;
+			this.bound = new AtomicInteger(bound);
+			this.sharesBound = sharesBound;
+		}
+		
+		/**
+		 * Returns whether this or any of its ancestors has been aborted.
+		 * @return True if the search below this split point is no longer needed, false otherwise.
+		 */
+		boolean isAborted() {
+			for (SplitPoint splitPoint = this; splitPoint != null; splitPoint = splitPoint.parent) {
+				if (splitPoint.aborted) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+	
+	@SuppressWarnings("serial")
+	private class YoungerBrother extends RecursiveTask<Integer> {
+		private final DefaultMinimax parent;
+		private final SplitPoint splitPoint;
+		private final String moveNotation;
+		private final int depthLimit;
+		private final int depth;
+		private final int alpha;
+		private final int beta;
+		private final boolean maximizing;
+		DefaultMinimax worker = null;
+		
+		YoungerBrother(DefaultMinimax parent, SplitPoint splitPoint, String moveNotation,
+				int depthLimit, int depth, int alpha, int beta, boolean maximizing) {
+			this.parent = parent;
+			this.splitPoint = splitPoint;
+			this.moveNotation = moveNotation;
+			this.depthLimit = depthLimit;
+			this.depth = depth;
+			this.alpha = alpha;
+			this.beta = beta;
+			this.maximizing = maximizing;
+		}
+		
+		@Override
+		protected Integer compute() {
+			if (splitPoint.isAborted()) {
+				return null;
+			}
+			// The parent is blocked until all brothers are done, so its gameState can be copied safely.
+			GameState gameState = parent.gameState.copy();
+			worker = new DepthFirstSearch(gameState, parent.evaluator, depthLimit);
+			worker.optimizingTeam = gameState.getTeamByNumber(
+					parent.gameState.getTeamNumber(parent.optimizingTeam));
+			parent.copyHeuristicsTo(worker);
+			worker.master = parent.master;
+			worker.youngBrothersWait = YoungBrothersWait.this;
+			worker.splitPoint = splitPoint;
+			// The younger brothers of the root are not the first root move, see DefaultMinimax.rootMoves.
+			worker.recordingNextRootMoves = parent.recordingNextRootMoves && depth > 1;
+			worker.resizePvTable(depthLimit);
+			worker.synchronizeFeatures();
+			
+			PlayableMove move = Move.newMove(
+					gameState.getBoard(), moveNotation, gameState.getCurrentPlayer());
+			int alpha = this.alpha;
+			int beta = this.beta;
+			if (splitPoint.sharesBound) {
+				if (maximizing) {
+					alpha = Math.max(alpha, splitPoint.bound.get());
+				} else {
+					beta = Math.min(beta, splitPoint.bound.get());
+				}
+			}
+			int value = worker.minimax(depthLimit, depth, alpha, beta, move);
+			if (worker.stopped) {
+				return null;
+			}
+			// A cutoff makes the search of the other brothers redundant.
+			if (maximizing ? value >= beta : value <= alpha) {
+				splitPoint.aborted = true;
+			} else if (maximizing) {
+				splitPoint.bound.accumulateAndGet(value, Math::max);
+			} else {
+				splitPoint.bound.accumulateAndGet(value, Math::min);
+			}
+			return value;
+		}
+	}
+}
@@ -17,6 +17,9 @@ public class Board {
 	HashMap<Hex, Field> board;
 	Set<Marble> marbles;
 	long boardHash;
+	// The teams of the marbles, and the part of the board hash that concerns each of them.
+	List<Team> teams;
+	long[] teamHashes;
 	
     public static final int BOARD_RADIUS = 5;
     
@@ -58,12 +61,64 @@ public class Board {
 		initialize(teams, layout);
 	}
 	
+	/**
+	 * Creates a copy of the original board, populated with the marbles of the given players.
+	 * @param original The board that is copied.
+	 * @param originalPlayers The players of the original board.
+	 * @param players The players of the copy, in the same order as originalPlayers.
+	 * @param teams The teams of the copy.
+	 * @requires originalPlayers.size() == players.size()
+	 * @ensures Every marble of players.get(i) is on the same hex and is captured
+	 *     in the same way as the corresponding marble of originalPlayers.get(i).
+	 */
+	Board(Board original, List<Player> originalPlayers, List<Player> players, List<Team> teams) {
+		assert (originalPlayers.size() == players.size());
+		this.startingLayout = original.startingLayout;
+		initializeGrid();
+		for (int i = 0; i < players.size(); i++) {
+			List<Marble> originalMarbles = originalPlayers.get(i).getMarbles();
+			players.get(i).createMarbles(originalMarbles.size());
+			for (int j = 0; j < originalMarbles.size(); j++) {
+				Marble originalMarble = originalMarbles.get(j);
+				Marble marble = players.get(i).getMarbles().get(j);
+				if (originalMarble.isCaptured()) {
+					marble.capture();
+					marble.setHex(originalMarble.getHex());
+				} else {
+					board.get(originalMarble.getHex()).setMarble(marble);
+				}
+			}
+		}
+		initializeMarbleSet(teams);
+		this.boardHash = original.boardHash;
+		this.teams = teams;
+		this.teamHashes = original.teamHashes.clone();
+	}
+	
 	public long getBoardHash() {
 		return this.boardHash;
 	}
 	
+	/**
+	 * Returns the Zobrist hash of the marbles of the team, which only changes with the marbles of the team.
+	 * @param team A team of this board.
+	 * @return The part of the board hash that concerns the team, see GameStateEvaluator.hashOfTeam.
+	 */
+	public long getTeamHash(Team team) {
+		return this.teamHashes[teams.indexOf(team)];
+	}
+	
+	/**
+	 * Updates the board hash and the team hashes with the move, which has not been applied yet.
+	 * The hash of every marble of the move is computed once, for both hashes.
+	 * @param move The move that will be applied.
+	 */
 	void updateBoardHash(Move move) {
-		this.boardHash = GameStateEvaluator.hashOfBoard(this.boardHash, move);
+		for (Marble marble : move.getMarbles()) {
+			long hash = GameStateEvaluator.hashOfMarbleMove(marble, move.getDirection());
+			this.boardHash ^= hash;
+			this.teamHashes[teams.indexOf(marble.getTeam())] ^= hash;
+		}
 	}
 	
     /**
@@ -115,6 +170,11 @@ public class Board {
         populate(teams, layout);
         initializeMarbleSet(teams);
         this.boardHash = GameStateEvaluator.hashOfBoard(this);
+        this.teams = teams;
+        this.teamHashes = new long[teams.size()];
+        for (int i = 0; i < teams.size(); i++) {
+        	teamHashes[i] = GameStateEvaluator.hashOfTeam(teams.get(i));
+        }
     }
 
     void determineStartingLayout(List<Team> teams, StartingLayout layout) {
@@ -8,6 +8,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import model.exceptions.GameNotOverException;
@@ -162,6 +163,68 @@ public class GameState {
         gameStats = new GameStats(this);
     }
 
+    /**
+     * Constructs a deep copy of the original gameState. The players of the copy are replay players
+     * with the same names and colors as the original players, so the copy can only be used to 
+     * apply and undo moves, not to query players for moves.
+     * @param original The gameState that is copied.
+     * @ensures The copy shares no mutable state with the original, has the same board hash,
+     *     the same turn, the same current player and the same game history.
+     */
+    private GameState(GameState original) {
+    	// Players
+    	this.players = new ArrayList<>();
+    	for (int i = 0; i < original.players.size(); i++) {
+    		Player player = new ReplayPlayer(original.players.get(i).getName());
+    		player.setColor(i);
+    		players.add(player);
+    	}
+    	
+    	// Teams
+    	this.teams = new ArrayList<>();
+    	for (Team originalTeam : original.teams) {
+    		List<Player> teamPlayers = new ArrayList<>();
+    		for (Player player : originalTeam.players) {
+    			teamPlayers.add(players.get(original.players.indexOf(player)));
+    		}
+    		Team team = new Team(teamPlayers);
+    		team.setCurrentPlayer(players.get(original.players.indexOf(originalTeam.getCurrentPlayer())));
+    		teams.add(team);
+    	}
+    	
+    	turn = original.turn;
+    	currentTeam = teams.get(original.teams.indexOf(original.currentTeam));
+    	board = new Board(original.board, original.players, players, teams);
+    	
+    	// Conquered marbles refer to the marbles of the copied players.
+    	for (int i = 0; i < teams.size(); i++) {
+    		for (Marble marble : original.teams.get(i).getConqueredMarbles()) {
+    			Player owner = players.get(original.players.indexOf(marble.getOwner()));
+    			teams.get(i).getConqueredMarbles().add(
+    					owner.getMarbles().get(marble.getOwner().getMarbles().indexOf(marble)));
+    		}
+    	}
+    	
+    	gameHistory = new Game(original.gameHistory.description, original.gameHistory.layout, 
+    			new ArrayList<>(original.gameHistory.players));
+    	gameHistory.moves.addAll(original.gameHistory.moves);
+    	gameHistory.boardHashes.addAll(original.gameHistory.boardHashes);
+    	
+    	// The copy is not part of the game's turn sequence, so its stats are only kept for this turn.
+    	gameStats = new GameStats(this);
+    	gameStats.currentTurnCurrentDepth = new GameStats.TurnStats(this, getCurrentPlayer());
+    	gameStats.currentTurnCommittedDepth = new GameStats.TurnStats(this, getCurrentPlayer());
+    }
+    
+    /**
+     * Returns a deep copy of this gameState, which can be searched independently of this gameState.
+     * @return A deep copy of this gameState.
+     * @see GameState#GameState(GameState)
+     */
+    public GameState copy() {
+    	return new GameState(this);
+    }
+
     /**
      * Returns whether it is legal to apply move to this gameState.
      * @param move The move for which legality is checked.
@@ -220,6 +283,27 @@ public class GameState {
     	return null;
     }
 
+    /**
+     * Gives the turn to the next player without making a move, as if the current player passed.
+     * The rules do not allow passing: searches that let players skip their turn, such as Best-Reply
+     * Search, use this and undo it with undoPassTurn before undoing any earlier move.
+     * @ensures getCurrentPlayer now returns the next player and turn is increased by 1.
+     */
+    public void passTurn() {
+    	nextPlayer();
+    	turn++;
+    }
+    
+    /**
+     * Undoes passTurn.
+     * @requires The last change to this gameState was a call to passTurn.
+     * @ensures getCurrentPlayer now returns the player that passed and turn is decreased by 1.
+     */
+    public void undoPassTurn() {
+    	previousPlayer();
+    	turn--;
+    }
+    
     /**
      * Sets current to the next player that should make a move.
      */
@@ -458,5 +542,49 @@ public class GameState {
 		public boolean isRepetition(Long hash) {
 			return boardHashes.contains(hash);
 		}
+		
+		/**
+		 * Replays the moves of this game from its starting layout, with a ReplayPlayer for every player,
+		 * until the moves run out or the game is finished.
+		 * @param beforeMove Called with the gameState and the move before every move is made.
+		 * @return The gameState at the end of the replayed game.
+		 */
+		public GameState replay(BiConsumer<GameState, PlayableMove> beforeMove) {
+			List<Player> replayPlayers = new ArrayList<>();
+			for (String name : players) {
+				replayPlayers.add(new ReplayPlayer(name));
+			}
+			GameState gameState = new GameState(replayPlayers, layout);
+			for (String notation : moves) {
+				if (gameState.isFinished()) {
+					break;
+				}
+				PlayableMove move = Move.newMove(gameState.getBoard(), notation, gameState.getCurrentPlayer());
+				beforeMove.accept(gameState, move);
+				gameState.makeMove(move);
+			}
+			return gameState;
+		}
+		
+		/**
+		 * Returns the team that conquered the most marbles, which decides a replayed game whether or not
+		 * it was finished.
+		 * @param gameState The gameState at the end of the replayed game.
+		 * @return The team, or null if the most marbles were conquered by more than one team.
+		 */
+		public static Team getLeadingTeam(GameState gameState) {
+			Team leader = null;
+			int most = -1;
+			for (Team team : gameState.getTeams()) {
+				int conquered = team.getConqueredMarbles().size();
+				if (conquered > most) {
+					leader = team;
+					most = conquered;
+				} else if (conquered == most) {
+					leader = null;
+				}
+			}
+			return leader;
+		}
     }
 }
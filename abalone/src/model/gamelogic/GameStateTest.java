@@ -14,6 +14,7 @@ import java.util.HashSet;
 import java.util.List;
 
 import model.artificialintelligence.RandomStrategy;
+import model.artificialintelligence.minimax.GameStateEvaluator;
 import model.exceptions.GameNotOverException;
 import model.exceptions.IllegalMoveException;
 import model.hex.Direction;
@@ -267,6 +268,52 @@ class GameStateTest {
     	assertEquals(0, gameState.gameHistory.moves.size());
     }
     
+    @Test
+    void testCopyMirrorsGameStateWithoutSharingState() {
+    	GameState gameState = new GameState(Arrays.asList(player1, player2, player3));
+    	for (int i = 0; i < 10; i++) {
+    		gameState.makeMove(gameState.getCurrentPlayer().determineMove(gameState));
+    	}
+    	GameState copy = gameState.copy();
+    	assertEquals(gameState.getBoard().getBoardHash(), copy.getBoard().getBoardHash());
+    	assertEquals(GameStateEvaluator.hashOfBoard(copy.getBoard()), copy.getBoard().getBoardHash());
+    	assertEquals(gameState.getTurn(), copy.getTurn());
+    	assertEquals(gameState.getCurrentPlayer().getName(), copy.getCurrentPlayer().getName());
+    	assertEquals(gameState.gameHistory.boardHashes, copy.gameHistory.boardHashes);
+    	
+    	// Moves made on the copy do not affect the original.
+    	long originalHash = gameState.getBoard().getBoardHash();
+    	PlayableMove move = Move.newMove(copy.getBoard(), 
+    			new RandomStrategy().determineMove(gameState).getMoveNotation(), 
+    			copy.getCurrentPlayer());
+    	MoveUndo undo = copy.makeMove(move);
+    	assertEquals(originalHash, gameState.getBoard().getBoardHash());
+    	assertEquals(originalHash, GameStateEvaluator.hashOfBoard(gameState.getBoard()));
+    	copy.makeMove(undo);
+    	assertEquals(originalHash, copy.getBoard().getBoardHash());
+    }
+    
+    @Test
+    void testGameIsReplayedFromItsHistory() {
+    	GameState gameState = new GameState(Arrays.asList(player1, player2));
+    	RandomStrategy random = new RandomStrategy();
+    	while (gameState.getTotalNrOfConqueredMarbles() == 0) {
+    		gameState.makeMove(random.determineMove(gameState));
+    	}
+    	List<Long> replayedHashes = new ArrayList<>();
+    	GameState replayed = gameState.gameHistory.replay((position, move) -> {
+    		assertEquals(gameState.gameHistory.moves.get(position.getTurn()), move.getMoveNotation());
+    		replayedHashes.add(position.getBoard().getBoardHash());
+    	});
+    	assertEquals(gameState.getTurn(), replayedHashes.size());
+    	assertEquals(gameState.getBoard().getBoardHash(), replayed.getBoard().getBoardHash());
+    	
+    	// The only conquered marble decides the game.
+    	assertEquals(gameState.getTeamNumber(GameState.Game.getLeadingTeam(gameState)),
+    			replayed.getTeamNumber(GameState.Game.getLeadingTeam(replayed)));
+    	assertNull(GameState.Game.getLeadingTeam(new GameState(Arrays.asList(player1, player2))));
+    }
+    
     void testToString() {
         GameState twoPlayerBoard = new GameState(Arrays.asList(player1, player2));
         GameState threePlayerBoard = new GameState(Arrays.asList(player1, player2, player3));
@@ -22,12 +22,15 @@ public class GameStats {
 	TurnStats currentTurnCurrentDepth;
 	// Stats that are from fully evaluated depths.
 	public TurnStats currentTurnCommittedDepth;
+	// The number of nodes visited by each of the fully evaluated depths of the current turn.
+	private List<Integer> nodesByCommittedDepth;
 	
 	GameStats(GameState gameState) {
 		this.gameState = gameState;
 		this.statsByTurn = new ArrayList<>();
 		this.currentTurnCurrentDepth = null;
 		this.currentTurnCommittedDepth = null;
+		this.nodesByCommittedDepth = new ArrayList<>();
 	}
 	
 	public void initializeTurn() {
@@ -37,12 +40,17 @@ public class GameStats {
 		
 		currentTurnCurrentDepth = new TurnStats(gameState, gameState.getCurrentPlayer());
 		currentTurnCommittedDepth = new TurnStats(gameState, gameState.getCurrentPlayer());
+		nodesByCommittedDepth = new ArrayList<>();
 	}
 	
 	public void addNodeVisited() {
 		currentTurnCurrentDepth.nodesVisited++;
 	}
 	
+	public void addNodesVisited(int nodes) {
+		currentTurnCurrentDepth.nodesVisited += nodes;
+	}
+	
 	public void addExactCut() {
 		currentTurnCurrentDepth.exactCuts++;
 	}
@@ -59,6 +67,24 @@ public class GameStats {
 		currentTurnCurrentDepth.leafNodes++;
 	}
 	
+	/**
+	 * Counts a rating that was found in the evaluation cache. Ratings outside of a turn are not counted.
+	 */
+	public void addEvaluationCacheHit() {
+		if (currentTurnCurrentDepth != null) {
+			currentTurnCurrentDepth.evaluationCacheHits++;
+		}
+	}
+	
+	/**
+	 * Counts a rating that was not found in the evaluation cache. Ratings outside of a turn are not counted.
+	 */
+	public void addEvaluationCacheMiss() {
+		if (currentTurnCurrentDepth != null) {
+			currentTurnCurrentDepth.evaluationCacheMisses++;
+		}
+	}
+	
 	public void registerTiming(long timeSpent) {
 		currentTurnCommittedDepth.timeSpent = timeSpent; // commited, not current depth else it's always 0
 	}
@@ -82,7 +108,43 @@ public class GameStats {
 		currentTurnCurrentDepth.transpositionTableSize = size;
 	}
 	
+	/**
+	 * Registers the lines that the search found for the current depth, from the best to the worst.
+	 * @param principalVariations The lines, each as a score followed by the notations of its moves.
+	 */
+	public void registerPrincipalVariations(List<String> principalVariations) {
+		currentTurnCurrentDepth.principalVariations = principalVariations;
+	}
+	
+	/**
+	 * Adds the search statistics of the current depth of other to the current depth of this.
+	 * Used to account for the nodes that were searched on a copy of the gameState.
+	 * @param other The stats of the copy of the gameState.
+	 */
+	public void addSearchStats(GameStats other) {
+		currentTurnCurrentDepth.addSearchStats(other.currentTurnCurrentDepth);
+	}
+	
+	/**
+	 * Returns the effective branching factor of the current turn: the factor by which the number of
+	 * visited nodes grows with every depth. If possible, it is taken over the last two depths
+	 * to smooth out the difference between odd and even depths that alpha-beta pruning causes.
+	 * @return The effective branching factor, or 0 if it cannot be determined from the committed depths.
+	 */
+	public double getEffectiveBranchingFactor() {
+		int depths = nodesByCommittedDepth.size();
+		if (depths >= 3 && nodesByCommittedDepth.get(depths - 3) > 0) {
+			return Math.sqrt((double) nodesByCommittedDepth.get(depths - 1) 
+					/ nodesByCommittedDepth.get(depths - 3));
+		}
+		if (depths >= 2 && nodesByCommittedDepth.get(depths - 2) > 0) {
+			return (double) nodesByCommittedDepth.get(depths - 1) / nodesByCommittedDepth.get(depths - 2);
+		}
+		return 0;
+	}
+	
 	public void commitDepth() {
+		nodesByCommittedDepth.add(currentTurnCurrentDepth.nodesVisited);
 		currentTurnCommittedDepth.merge(currentTurnCurrentDepth);
 		currentTurnCurrentDepth = new TurnStats(gameState, currentTurnCurrentDepth.player);
 	}
@@ -108,7 +170,8 @@ public class GameStats {
 			header.add("score of " + team.toString());
 		}
 		header.addAll(new ArrayList<>(Arrays.asList("time spent","nodes visited","leaf nodes","rating of game state","depth","exact cuts","window cuts",
-		   "windows narrowed","transposition table size")));
+		   "windows narrowed","transposition table size","evaluation cache hits","evaluation cache misses",
+		   "principal variations","principal variation by depth")));
 		for (int i = 1; i <= getMaxDepth(); i++) {
 			header.add("branching factor at depth " + i);
 		}
@@ -136,6 +199,11 @@ public class GameStats {
 		public int windowCuts;
 		public int windowsNarrowed;
 		public int transpositionTableSize;
+		public int evaluationCacheHits;
+		public int evaluationCacheMisses;
+		public List<String> principalVariations;
+		// The best line of every depth that was committed, preceded by the depth.
+		public List<String> principalVariationByDepth;
 		public Map<Integer, Average> branchingFactorByDepth;
 		
 		TurnStats(GameState gameState, Player player) {
@@ -151,6 +219,10 @@ public class GameStats {
 			this.windowCuts = 0;
 			this.windowsNarrowed = 0;
 			this.transpositionTableSize = 0;
+			this.evaluationCacheHits = 0;
+			this.evaluationCacheMisses = 0;
+			this.principalVariations = new ArrayList<>();
+			this.principalVariationByDepth = new ArrayList<>();
 			this.branchingFactorByDepth = new HashMap<>();
 		}
 		
@@ -166,11 +238,29 @@ public class GameStats {
 			this.windowCuts += newer.windowCuts;
 			this.windowsNarrowed += newer.windowsNarrowed;
 			this.transpositionTableSize = newer.transpositionTableSize;
+			this.evaluationCacheHits += newer.evaluationCacheHits;
+			this.evaluationCacheMisses += newer.evaluationCacheMisses;
+			this.principalVariations = newer.principalVariations;
+			if (!newer.principalVariations.isEmpty()) {
+				this.principalVariationByDepth.add(newer.depth + ": " + newer.principalVariations.get(0));
+			}
 			newer.branchingFactorByDepth.forEach(
 					(key, value) -> this.branchingFactorByDepth.merge(key, value, (v1, v2) -> v1.add(v2)));
 			this.branchingFactorByDepth = newer.branchingFactorByDepth;
 		}
 		
+		void addSearchStats(TurnStats other) {
+			this.nodesVisited += other.nodesVisited;
+			this.leafNodes += other.leafNodes;
+			this.exactCuts += other.exactCuts;
+			this.windowCuts += other.windowCuts;
+			this.windowsNarrowed += other.windowsNarrowed;
+			this.evaluationCacheHits += other.evaluationCacheHits;
+			this.evaluationCacheMisses += other.evaluationCacheMisses;
+			other.branchingFactorByDepth.forEach(
+					(key, value) -> this.branchingFactorByDepth.merge(key, value, (v1, v2) -> v1.add(v2)));
+		}
+		
 		public String[] toStringArray() {
 			List<String> res = new ArrayList<>();
 			res.add(player.getName());
@@ -186,6 +276,10 @@ public class GameStats {
 			res.add(String.valueOf(windowCuts));
 			res.add(String.valueOf(windowsNarrowed));
 			res.add(String.valueOf(transpositionTableSize));
+			res.add(String.valueOf(evaluationCacheHits));
+			res.add(String.valueOf(evaluationCacheMisses));
+			res.add(String.join(" | ", principalVariations));
+			res.add(String.join(" | ", principalVariationByDepth));
 			for (int i : branchingFactorByDepth.keySet().stream().sorted().collect(Collectors.toList())) {
 				res.add(String.valueOf(branchingFactorByDepth.get(i).getAverage()));
 			}
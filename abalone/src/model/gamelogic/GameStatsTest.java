@@ -96,7 +96,9 @@ class GameStatsTest {
 		gameState.gameStats.initializeTurn();
 		dfsMinimax.getBestMove();
 		assertEquals(2, gameState.gameStats.currentTurnCommittedDepth.depth);
-		assertTrue(gameState.gameStats.currentTurnCommittedDepth.transpositionTableSize > 45); // 45 is the amount of nodes of depth 0 + 1.
+		// 45 is the amount of nodes of depth 0 + 1, the leaves are rated in the evaluation cache instead.
+		assertEquals(45, gameState.gameStats.currentTurnCommittedDepth.transpositionTableSize);
+		assertTrue(gameState.gameStats.currentTurnCommittedDepth.evaluationCacheMisses > 0);
 	}
 	
 	@Test
@@ -134,6 +136,10 @@ class GameStatsTest {
 		ts.windowCuts = 1723;
 		ts.windowsNarrowed = 127;
 		ts.transpositionTableSize = 26043;
+		ts.evaluationCacheHits = 3120;
+		ts.evaluationCacheMisses = 24811;
+		ts.principalVariations = Arrays.asList("12 a1b2 c3d4", "8 e5f6");
+		ts.principalVariationByDepth = Arrays.asList("1: 10 a1b2", "2: 12 a1b2 c3d4");
 		ts.branchingFactorByDepth = new HashMap<>();
 		Average avg = new Average();
 		avg.sum = 44;
@@ -151,7 +157,8 @@ class GameStatsTest {
 		avg.sum = 27931;
 		avg.count = 3951;
 		ts.branchingFactorByDepth.put(4, avg);
-		String[] expected = {"x","0","0","2304","34050","27931","0","4","206","1723","127","26043","44","4","30","7"};
+		String[] expected = {"x","0","0","2304","34050","27931","0","4","206","1723","127","26043","3120","24811",
+				"12 a1b2 c3d4 | 8 e5f6","1: 10 a1b2 | 2: 12 a1b2 c3d4","44","4","30","7"};
 		assertTrue(Arrays.equals(expected, ts.toStringArray()));
 	}
 	
@@ -169,6 +176,8 @@ class GameStatsTest {
 		confirmed.windowCuts = 1723;
 		confirmed.windowsNarrowed = 127;
 		confirmed.transpositionTableSize = 26043;
+		confirmed.evaluationCacheHits = 3120;
+		confirmed.evaluationCacheMisses = 24811;
 		confirmed.branchingFactorByDepth = new HashMap<>();
 		Average avg = new Average();
 		avg.sum = 44;
@@ -187,6 +196,9 @@ class GameStatsTest {
 		newer.windowCuts = 165723;
 		newer.windowsNarrowed = 1237;
 		newer.transpositionTableSize = 260413;
+		newer.evaluationCacheHits = 40212;
+		newer.evaluationCacheMisses = 233719;
+		newer.principalVariations = Arrays.asList("30 a1b2 i5h5");
 		newer.branchingFactorByDepth = new HashMap<>();
 		avg = new Average();
 		avg.sum = 44;
@@ -198,7 +210,8 @@ class GameStatsTest {
 		newer.branchingFactorByDepth.put(2, avg);
 		
 		confirmed.merge(newer);
-		String[] expected = {"x", "0", "0", "25347", "374600", "301862", "100", "5", "2512", "167446", "1364", "260413", "44", "4"};
+		String[] expected = {"x", "0", "0", "25347", "374600", "301862", "100", "5", "2512", "167446", "1364", "260413", "43332", "258530",
+				"30 a1b2 i5h5", "5: 30 a1b2 i5h5", "44", "4"};
 		assertTrue(Arrays.equals(expected, confirmed.toStringArray()));
 	}
 }
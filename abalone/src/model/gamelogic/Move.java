@@ -1,7 +1,11 @@
 package model.gamelogic;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -116,6 +120,8 @@ public interface Move {
 	
     /**
      * Returns all legal moves for the current player given a gameState.
+     * The moves are ordered by the coordinates of their marbles and by their direction, so that
+     * equal gameStates yield the moves in the same order, regardless of object identities.
      * @requires initiator != null, gameState != null, initiator is a member of a team which
      *     is part of gameState.
      * @ensures result != null
@@ -123,7 +129,7 @@ public interface Move {
      */
     public static Set<PlayableMove> allLegalMoves(GameState gameState) {
     	final Player initiator = gameState.getCurrentPlayer();
-        Set<PlayableMove> moves = new HashSet<>();
+        Set<PlayableMove> moves = new LinkedHashSet<>();
 
         // Generate all possible sumito and sidestep moves:
         // First, generate all possible combinations of 1, 2 or 3 marbles:
@@ -160,7 +166,9 @@ public interface Move {
         
         // Then, for all combinations and all directions, add them to
         // the set of moves if they are legal.
-        for (Set<Hex> pair : combinations) {
+        List<Set<Hex>> orderedCombinations = new ArrayList<>(combinations);
+        orderedCombinations.sort(Move::compareCombinations);
+        for (Set<Hex> pair : orderedCombinations) {
             for (Direction dir : Direction.directions()) {
                 try {
                     PlayableMove move = Move.newMove(
@@ -181,9 +189,25 @@ public interface Move {
         moves = moves.stream()
         	.filter(m -> !gameState.gameHistory.isRepetition(
         					GameStateEvaluator.hashOfBoard(gameState.getBoard().boardHash, m)))
-        	.collect(Collectors.toSet());
+        	.collect(Collectors.toCollection(LinkedHashSet::new));
         return moves;
     }
+    
+    /**
+     * Compares two combinations of marbles in a line by their end points, 
+     * which are their smallest and largest Hex.
+     * @param combination1 The first combination.
+     * @param combination2 The second combination.
+     * @return A negative integer, zero, or a positive integer as combination1 is less than, 
+     *     equal to, or greater than combination2.
+     */
+    private static int compareCombinations(Set<Hex> combination1, Set<Hex> combination2) {
+    	int result = Collections.min(combination1).compareTo(Collections.min(combination2));
+    	if (result == 0) {
+    		result = Collections.max(combination1).compareTo(Collections.max(combination2));
+    	}
+    	return result;
+    }
 
 
     /**
@@ -324,6 +324,16 @@ public class MoveSumito implements PlayableMove {
 	public int getNrOfInvolvedMarbles() {
 		return originalMarbleFields.size();
 	}
+	
+	/**
+	 * Returns whether this move pushes a marble off the board. Does not make an isLegal check:
+	 * a legal move that pushes a marble off the board always pushes off a marble of the opposition.
+	 * @return True if the line of involved marbles ends at the edge of the board, false otherwise.
+	 */
+	public boolean isCapture() {
+		return originalMarbleFields.size() > 1
+				&& board.getField(origin.neighbour(direction, originalMarbleFields.size())) == null;
+	}
 
 	@Override
 	public String getMoveNotation() {
@@ -3,8 +3,10 @@ package model.gamelogic;
 import java.util.ArrayList;
 import java.util.List;
 import model.artificialintelligence.AggressivePusherStrategy;
+import model.artificialintelligence.MctsStrategy;
 import model.artificialintelligence.MinimaxStrategy;
 import model.artificialintelligence.RandomStrategy;
+import model.artificialintelligence.mcts.Mcts;
 import model.artificialintelligence.minimax.GameStateEvaluator;
 import model.artificialintelligence.minimax.Minimax;
 import model.color.ConsoleColors;
@@ -44,6 +46,25 @@ public abstract class Player {
     	
     	return new ComputerPlayer(name, new MinimaxStrategy(miniBuilder, evaluator));
     }
+    
+    /**
+     * Factory method to create computer players that use Monte Carlo Tree Search.
+     * @param name Name of the player (must match the regex [\w.,: ]+)
+     * @param mctsBuilder The builder for mcts which contains all budget, parallelism and prior settings.
+     * @param evaluator The GameStateEvaluator that decides unfinished playouts, may be null.
+     * @return player of the appropriate subclass
+     * @throws IllegalArgumentException If the name does not fit the requirements
+     */
+    public static Player newPlayer(String name, Mcts.Builder mctsBuilder, GameStateEvaluator evaluator) {
+    	assert (name != null);
+    	assert (mctsBuilder != null);
+    	if (!name.matches(PLAYER_NAME_PATTERN)) {
+            throw new IllegalArgumentException("Name must be at least one character and may"
+                    + "only contain alphabetic characters, digits and the characters \",.: \".");
+        }
+    	
+    	return new ComputerPlayer(name, new MctsStrategy(mctsBuilder, evaluator));
+    }
 
     /**
      * Factory method to create players.
@@ -51,6 +51,11 @@ public class Team {
     			players.size()));
     }
     
+    void setCurrentPlayer(Player player) {
+    	assert (players.contains(player));
+    	this.currentPlayer = player;
+    }
+    
     void nextPlayer() {
         currentPlayer = players.get((players.indexOf(currentPlayer) + 1) % players.size());
     }